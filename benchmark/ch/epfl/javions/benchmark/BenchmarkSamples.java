@@ -0,0 +1,52 @@
+package ch.epfl.javions.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * This class loads the captures of samples demodulated by the benchmarks.
+ * The bundled captures are only a few kilobytes long, so they are repeated until the stream is long enough
+ * to cross many batches of samples, as a real capture would.
+ */
+final class BenchmarkSamples {
+    private BenchmarkSamples() {
+    }
+
+    /**
+     * @param capture the name of a resource (such as samples.bin) or the path of a file of samples
+     * @param size    the minimal size of the stream in bytes
+     * @return the samples of the capture, repeated until the stream contains at least size bytes
+     * @throws UncheckedIOException if the capture can't be read
+     */
+    static byte[] load(String capture, int size) {
+        byte[] samples = read(capture);
+        if (samples.length == 0 || samples.length % Short.BYTES != 0) {
+            throw new IllegalArgumentException("not a capture of 12 bits samples: " + capture);
+        }
+        int copies = Math.max(1, (size + samples.length - 1) / samples.length);
+        byte[] bytes = Arrays.copyOf(samples, copies * samples.length);
+        for (int i = 1; i < copies; i++) {
+            System.arraycopy(samples, 0, bytes, i * samples.length, samples.length);
+        }
+        return bytes;
+    }
+
+    /**
+     * @param capture the name of a resource or the path of a file
+     * @return the content of the resource if there is one with that name, or of the file otherwise
+     */
+    private static byte[] read(String capture) {
+        try (InputStream s = BenchmarkSamples.class.getResourceAsStream("/" + capture)) {
+            return s != null ? s.readAllBytes() : Files.readAllBytes(Path.of(Objects.requireNonNull(capture)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
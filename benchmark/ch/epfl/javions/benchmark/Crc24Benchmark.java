@@ -0,0 +1,59 @@
+package ch.epfl.javions.benchmark;
+
+import ch.epfl.javions.Crc24;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * The benchmarks of the CRC of a message, computed 8 bytes at a time by Crc24.crc or byte by byte with one table lookup per byte,
+ * as Crc24.crc did before it was sliced (and as the demodulators still do while decoding a message).
+ * Each operation is the CRC of one message, so the throughput is in messages per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class Crc24Benchmark {
+    private final Crc24 crc24 = new Crc24(Crc24.GENERATOR);
+    private byte[] message;
+    private ByteBuffer directMessage;
+
+    /**
+     * The length of the message in bytes (7 and 14 are the lengths of the Mode S frames)
+     */
+    @Param({"7", "14", "1024"})
+    public int length;
+
+    @Setup
+    public void createMessage() {
+        message = new byte[length];
+        new Random(2022).nextBytes(message);
+        directMessage = ByteBuffer.allocateDirect(length).put(message).flip();
+    }
+
+    @Benchmark
+    public int sliced() {
+        return crc24.crc(message);
+    }
+
+    @Benchmark
+    public int slicedDirectBuffer() {
+        return crc24.crc(directMessage);
+    }
+
+    @Benchmark
+    public int bytewise() {
+        int crc = 0;
+        for (byte b : message) {
+            crc = crc24.update(crc, b);
+        }
+        return crc;
+    }
+}
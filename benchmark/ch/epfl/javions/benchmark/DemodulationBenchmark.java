@@ -0,0 +1,127 @@
+package ch.epfl.javions.benchmark;
+
+import ch.epfl.javions.adsb.CompactRawMessage;
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.javions.demodulation.AdsbDemodulator;
+import ch.epfl.javions.demodulation.BlockAdsbDemodulator;
+import ch.epfl.javions.demodulation.PowerComputer;
+import ch.epfl.javions.demodulation.PowerWindow;
+import ch.epfl.javions.demodulation.SamplesDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * The benchmarks of the stages of the demodulation chain, each of them reading a whole capture held in memory.
+ * Their throughput is reported in samples (or messages) per second by the counters, next to the number of captures per second
+ * which JMH measures, and their allocation rate by the GC profiler (-prof gc).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class DemodulationBenchmark {
+    private static final int BATCH_SIZE = 1 << 16; // the batch size used by the demodulators
+    private static final int WINDOW_SIZE = 1200;
+    private final short[] samplesBatch = new short[BATCH_SIZE];
+    private final int[] powerBatch = new int[BATCH_SIZE];
+    private byte[] samples;
+
+    /**
+     * The name of the resource or the path of the file of samples demodulated
+     */
+    @Param("samples.bin")
+    public String capture;
+
+    /**
+     * The minimal size of the stream demodulated, in bytes (the capture is repeated to reach it)
+     */
+    @Param("8388608")
+    public int size;
+
+    /**
+     * The number of samples and messages processed during an iteration, reported as rates by JMH
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long samples;
+        public long messages;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            samples = 0;
+            messages = 0;
+        }
+    }
+
+    @Setup
+    public void load() {
+        samples = BenchmarkSamples.load(capture, size);
+    }
+
+    @Benchmark
+    public void samplesDecoderReadBatch(Counters counters, Blackhole blackhole) throws IOException {
+        SamplesDecoder decoder = new SamplesDecoder(new ByteArrayInputStream(samples), BATCH_SIZE);
+        for (int read = decoder.readBatch(samplesBatch); read > 0; read = decoder.readBatch(samplesBatch)) {
+            blackhole.consume(samplesBatch);
+            counters.samples += read;
+        }
+    }
+
+    @Benchmark
+    public void powerComputerReadBatch(Counters counters, Blackhole blackhole) throws IOException {
+        PowerComputer computer = new PowerComputer(new ByteArrayInputStream(samples), BATCH_SIZE);
+        for (int read = computer.readBatch(powerBatch); read > 0; read = computer.readBatch(powerBatch)) {
+            blackhole.consume(powerBatch);
+            counters.samples += read;
+        }
+    }
+
+    @Benchmark
+    public void powerWindowAdvance(Counters counters, Blackhole blackhole) throws IOException {
+        PowerWindow window = new PowerWindow(new ByteArrayInputStream(samples), WINDOW_SIZE);
+        for (; window.isFull(); window.advance()) {
+            // the samples read by AdsbDemodulator at each position
+            blackhole.consume(window.get(0) + window.get(10) + window.get(35) + window.get(45));
+            counters.samples++;
+        }
+    }
+
+    @Benchmark
+    public void adsbDemodulatorNextMessage(Counters counters, Blackhole blackhole) throws IOException {
+        AdsbDemodulator demodulator = new AdsbDemodulator(new ByteArrayInputStream(samples));
+        for (RawMessage m = demodulator.nextMessage(); m != null; m = demodulator.nextMessage()) {
+            blackhole.consume(m);
+            counters.messages++;
+        }
+        counters.samples += samples.length / Short.BYTES;
+    }
+
+    @Benchmark
+    public void blockAdsbDemodulatorNextMessage(Counters counters, Blackhole blackhole) throws IOException {
+        BlockAdsbDemodulator demodulator = new BlockAdsbDemodulator(new ByteArrayInputStream(samples));
+        for (RawMessage m = demodulator.nextMessage(); m != null; m = demodulator.nextMessage()) {
+            blackhole.consume(m);
+            counters.messages++;
+        }
+        counters.samples += samples.length / Short.BYTES;
+    }
+
+    @Benchmark
+    public void blockAdsbDemodulatorNextCompactMessage(Counters counters, Blackhole blackhole) throws IOException {
+        BlockAdsbDemodulator demodulator = new BlockAdsbDemodulator(new ByteArrayInputStream(samples));
+        for (CompactRawMessage m = demodulator.nextCompactMessage(); m != null; m = demodulator.nextCompactMessage()) {
+            blackhole.consume(m);
+            counters.messages++;
+        }
+        counters.samples += samples.length / Short.BYTES;
+    }
+}
@@ -1,5 +1,11 @@
 package ch.epfl.javions;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
 /**
  * @author @franklintra (362694)
  * @author @chukla (357550)
@@ -11,16 +17,20 @@ public final class Crc24 {
      * (it has to be given by the user upon construction with new Crc24(Crc24.GENERATOR))
      */
     public static final int GENERATOR = 0xFFF409;
+    private static final VarHandle BIG_ENDIAN_INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
     private static final int TABLE_SIZE = 256;
+    private static final int SLICES = 8; // the number of bytes processed at once by the sliced algorithm
     /**
-     * This is the table used to optimize the algorithm
-     * (see instruction set 2.4.4). It was generated using the crc_bitwise and buildTable methods.
+     * These are the tables used to optimize the algorithm (see instruction set 2.4.4), one after the other.
+     * The first one is the table of the instruction set, generated using the crc_bitwise method. The k-th one gives the crc of a byte
+     * followed by k zero bytes, so that 8 bytes are processed with 8 independent lookups (slicing-by-8).
+     * The crcs are stored shifted left by 8 bits, so that the crc of 4 bytes fills a whole int.
      */
     private final int[] buildTable;
 
 
     /**
-     * This constructor builds the table for the given generator to use in the optimized algorithm
+     * This constructor builds the tables for the given generator to use in the optimized algorithm
      *
      * @param generator the generator to use
      */
@@ -50,31 +60,147 @@ public final class Crc24 {
     }
 
     /**
-     * Build the table for the given generator to use in the optimized algorithm
+     * Build the tables for the given generator to use in the optimized algorithm
      *
-     * @return the table
+     * @return the tables, one after the other
      */
     private static int[] buildTable(int generator) {
-        int[] table = new int[TABLE_SIZE];
-        //use crc_bitwise to build the table
+        int[] table = new int[SLICES * TABLE_SIZE];
+        //use crc_bitwise to build the first table
         for (int i = 0; i < TABLE_SIZE; i++) {
-            table[i] = crcBitwise(generator, (byte) i);
+            table[i] = crcBitwise(generator, (byte) i) << Byte.SIZE;
+        }
+        //each table is the previous one followed by a zero byte
+        for (int i = TABLE_SIZE; i < table.length; i++) {
+            int previous = table[i - TABLE_SIZE];
+            table[i] = (previous << Byte.SIZE) ^ table[previous >>> 3 * Byte.SIZE];
         }
         return table;
     }
 
     /**
-     * This returns the crc of a byte array using a table (optimized version or unoptimized according to config (optimized variable)).
+     * This returns the crc of a byte array using the tables.
      *
      * @param bytes the bytes to calculate the crc for
      * @return the crc
      */
     public int crc(byte[] bytes) {
-        //Optimized version of the bitwise algorithm using a table as described in the instruction set 2.4.4
+        return crc(bytes, 0, bytes.length);
+    }
+
+    /**
+     * This returns the crc of a range of a byte array using the tables, without copying it.
+     *
+     * @param bytes  the bytes to calculate the crc for
+     * @param offset the index of the first byte of the range
+     * @param length the number of bytes of the range
+     * @return the crc
+     * @throws IndexOutOfBoundsException if the range is not inside the array
+     */
+    public int crc(byte[] bytes, int offset, int length) {
+        return update(0, bytes, offset, length);
+    }
+
+    /**
+     * This returns the crc of the remaining bytes of a buffer (from its position to its limit), without changing its position.
+     *
+     * @param buffer the buffer containing the bytes to calculate the crc for
+     * @return the crc
+     */
+    public int crc(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return crc(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
         int crc = 0;
-        for (byte b : bytes) {
-            crc = (crc << Byte.SIZE) ^ buildTable[((crc >> 2 * Byte.SIZE) ^ (b & 0xff)) & 0xff];
+        int i = buffer.position();
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        for (; i <= buffer.limit() - SLICES; i += SLICES) {
+            int high = buffer.getInt(i);
+            int low = buffer.getInt(i + Integer.BYTES);
+            crc = slice(crc, bigEndian ? high : Integer.reverseBytes(high), bigEndian ? low : Integer.reverseBytes(low));
         }
-        return crc & 0xffffff;
+        if (i <= buffer.limit() - Integer.BYTES) {
+            int word = buffer.getInt(i);
+            crc = slice(crc, bigEndian ? word : Integer.reverseBytes(word));
+            i += Integer.BYTES;
+        }
+        for (; i < buffer.limit(); i++) {
+            crc = update(crc, buffer.get(i));
+        }
+        return crc;
+    }
+
+    /**
+     * This updates a running crc with one more byte, so that the crc of a message can be computed while its bytes are being decoded.
+     * Starting from 0 and updating the crc with all the bytes gives the same result as crc(bytes).
+     *
+     * @param crc the crc of the bytes before b
+     * @param b   the next byte
+     * @return the crc of the bytes before b followed by b
+     */
+    public int update(int crc, byte b) {
+        return ((crc << Byte.SIZE) ^ (buildTable[((crc >> 2 * Byte.SIZE) ^ (b & 0xff)) & 0xff] >>> Byte.SIZE)) & 0xffffff;
+    }
+
+    /**
+     * This updates a running crc with a range of a byte array, 8 bytes at a time (then 4 and 1 for the last ones).
+     * Starting from 0 and updating the crc with consecutive ranges gives the same result as the crc of their concatenation.
+     *
+     * @param crc    the crc of the bytes before the range
+     * @param bytes  the bytes containing the range
+     * @param offset the index of the first byte of the range
+     * @param length the number of bytes of the range
+     * @return the crc of the bytes before the range followed by the range
+     * @throws IndexOutOfBoundsException if the range is not inside the array
+     */
+    public int update(int crc, byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        int end = offset + length;
+        int i = offset;
+        for (; i <= end - SLICES; i += SLICES) {
+            crc = slice(crc, (int) BIG_ENDIAN_INT.get(bytes, i), (int) BIG_ENDIAN_INT.get(bytes, i + Integer.BYTES));
+        }
+        if (i <= end - Integer.BYTES) {
+            crc = slice(crc, (int) BIG_ENDIAN_INT.get(bytes, i));
+            i += Integer.BYTES;
+        }
+        for (; i < end; i++) {
+            crc = update(crc, bytes[i]);
+        }
+        return crc;
+    }
+
+    /**
+     * Updates a running crc with 8 bytes (slicing-by-8)
+     *
+     * @param crc  the crc of the bytes before the 8 bytes
+     * @param high the 4 first bytes, the first one being the most significant
+     * @param low  the 4 last bytes, the first one being the most significant
+     * @return the crc of the bytes before followed by the 8 bytes
+     */
+    private int slice(int crc, int high, int low) {
+        // the crc is xored with the first bytes, as the bitwise algorithm does
+        high ^= crc << Byte.SIZE;
+        int[] t = buildTable;
+        int shifted = t[7 * TABLE_SIZE + (high >>> 24)] ^ t[6 * TABLE_SIZE + (high >>> 16 & 0xff)]
+                ^ t[5 * TABLE_SIZE + (high >>> 8 & 0xff)] ^ t[4 * TABLE_SIZE + (high & 0xff)]
+                ^ t[3 * TABLE_SIZE + (low >>> 24)] ^ t[2 * TABLE_SIZE + (low >>> 16 & 0xff)]
+                ^ t[TABLE_SIZE + (low >>> 8 & 0xff)] ^ t[low & 0xff];
+        return shifted >>> Byte.SIZE;
+    }
+
+    /**
+     * Updates a running crc with 4 bytes (slicing-by-4), used for the end of the ranges which are too short for slicing-by-8
+     *
+     * @param crc   the crc of the bytes before the 4 bytes
+     * @param bytes the 4 bytes, the first one being the most significant
+     * @return the crc of the bytes before followed by the 4 bytes
+     */
+    private int slice(int crc, int bytes) {
+        bytes ^= crc << Byte.SIZE;
+        int[] t = buildTable;
+        int shifted = t[3 * TABLE_SIZE + (bytes >>> 24)] ^ t[2 * TABLE_SIZE + (bytes >>> 16 & 0xff)]
+                ^ t[TABLE_SIZE + (bytes >>> 8 & 0xff)] ^ t[bytes & 0xff];
+        return shifted >>> Byte.SIZE;
     }
 }
@@ -58,7 +58,18 @@ public record AirbornePositionMessage(long timeStampNs, IcaoAddress icaoAddress,
      * @return the decoded message, or null if the message cannot be decoded
      */
     public static AirbornePositionMessage of(RawMessage rawMessage) {
-        long payload = rawMessage.payload();
+        return of(rawMessage.timeStampNs(), rawMessage.icaoAddress(), rawMessage.payload());
+    }
+
+    /**
+     * Decodes the fields of a raw message, read from a RawMessage or a CompactRawMessage, as an airborne position message.
+     *
+     * @param timeStampNs the time stamp of the raw message
+     * @param icaoAddress the ICAO address of the raw message
+     * @param payload     the payload of the raw message
+     * @return the decoded message, or null if the message cannot be decoded
+     */
+    static AirbornePositionMessage of(long timeStampNs, IcaoAddress icaoAddress, long payload) {
         int Q = Bits.extractUInt(payload, Q_INDEX_POSITION, 1);
         double altitude;
 
@@ -98,8 +109,8 @@ public record AirbornePositionMessage(long timeStampNs, IcaoAddress icaoAddress,
         }
 
         return new AirbornePositionMessage(
-                rawMessage.timeStampNs(),
-                rawMessage.icaoAddress(),
+                timeStampNs,
+                icaoAddress,
                 Units.convertFrom(altitude, Units.Length.FOOT),
                 Bits.extractUInt(payload, PARITY_BIT, 1),
                 Math.scalb(Bits.extractUInt(payload, LONGITUDE_INDEX_START, LONG_OR_LAT_BIT_LENGTH), -17),
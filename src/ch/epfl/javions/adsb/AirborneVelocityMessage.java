@@ -46,12 +46,24 @@ public record AirborneVelocityMessage(long timeStampNs, IcaoAddress icaoAddress,
      * @return the corresponding AirborneVelocityMessage
      */
     public static AirborneVelocityMessage of(RawMessage rawMessage) {
-        int subType = Bits.extractUInt(rawMessage.payload(), SUBTYPE_START_BIT, SUBTYPE_SIZE);
+        return of(rawMessage.timeStampNs(), rawMessage.icaoAddress(), rawMessage.payload());
+    }
+
+    /**
+     * Decodes the fields of a raw message, read from a RawMessage or a CompactRawMessage, as an airborne velocity message.
+     *
+     * @param timeStampNs the time stamp of the raw message
+     * @param icaoAddress the ICAO address of the raw message
+     * @param payload     the payload of the raw message
+     * @return the corresponding AirborneVelocityMessage, or null if the message cannot be decoded
+     */
+    static AirborneVelocityMessage of(long timeStampNs, IcaoAddress icaoAddress, long payload) {
+        int subType = Bits.extractUInt(payload, SUBTYPE_START_BIT, SUBTYPE_SIZE);
         if (GROUND_SUBTYPES.contains(subType)) {
-            return groundVelocity(rawMessage, subType);
+            return groundVelocity(timeStampNs, icaoAddress, payload, subType);
         }
         if (AIR_SUBTYPES.contains(subType)) {
-            return airVelocity(rawMessage, subType);
+            return airVelocity(timeStampNs, icaoAddress, payload, subType);
         }
         return null;
     }
@@ -60,45 +72,49 @@ public record AirborneVelocityMessage(long timeStampNs, IcaoAddress icaoAddress,
      * Returns the AirborneVelocityMessage corresponding to the given raw message.
      * It decodes the speed and the angle of the aircraft for groundVelocity subType messages.
      *
-     * @param m       the raw message
-     * @param subType the subType of the given message
+     * @param timeStampNs the time stamp of the raw message
+     * @param icaoAddress the ICAO address of the raw message
+     * @param payload     the payload of the raw message
+     * @param subType     the subType of the given message
      * @return the corresponding AirborneVelocityMessage
      */
-    private static AirborneVelocityMessage groundVelocity(RawMessage m, int subType) {
-        double eastWest = Bits.extractUInt(m.payload(), SUBTYPE_DATA_START_BIT + 11, 10) - 1;
-        double northSouth = Bits.extractUInt(m.payload(), SUBTYPE_DATA_START_BIT, 10) - 1;
+    private static AirborneVelocityMessage groundVelocity(long timeStampNs, IcaoAddress icaoAddress, long payload, int subType) {
+        double eastWest = Bits.extractUInt(payload, SUBTYPE_DATA_START_BIT + 11, 10) - 1;
+        double northSouth = Bits.extractUInt(payload, SUBTYPE_DATA_START_BIT, 10) - 1;
         if (eastWest == -1 || northSouth == -1) {
             return null;
         }
-        int horizontalDirection = Bits.extractUInt(m.payload(), SUBTYPE_DATA_START_BIT + 21, 1) == 0 ? 1 : -1; // as on the unit circle : 1 to go up and -1 down
-        int verticalDirection = Bits.extractUInt(m.payload(), SUBTYPE_DATA_START_BIT + 10, 1) == 0 ? 1 : -1; // as on the unit circle : 1 to go up and -1 down
+        int horizontalDirection = Bits.extractUInt(payload, SUBTYPE_DATA_START_BIT + 21, 1) == 0 ? 1 : -1; // as on the unit circle : 1 to go up and -1 down
+        int verticalDirection = Bits.extractUInt(payload, SUBTYPE_DATA_START_BIT + 10, 1) == 0 ? 1 : -1; // as on the unit circle : 1 to go up and -1 down
         eastWest *= horizontalDirection; // adjust the direction according to the bit that indicates it (21)
         northSouth *= verticalDirection; // adjust the direction according to the bit that indicates it (10)
         double theta = getAngle(eastWest, northSouth);
         double speed = Math.hypot(northSouth, eastWest);
-        return new AirborneVelocityMessage(m.timeStampNs(), m.icaoAddress(), speedInMeterPerSecond(speed, subType), theta);
+        return new AirborneVelocityMessage(timeStampNs, icaoAddress, speedInMeterPerSecond(speed, subType), theta);
     }
 
     /**
      * Returns the AirborneVelocityMessage corresponding to the given raw message.
      * It decodes the speed and the angle of the aircraft for airVelocity subType messages.
      *
-     * @param m       the raw message
-     * @param subType the subType of the given message
+     * @param timeStampNs the time stamp of the raw message
+     * @param icaoAddress the ICAO address of the raw message
+     * @param payload     the payload of the raw message
+     * @param subType     the subType of the given message
      * @return the corresponding AirborneVelocityMessage
      */
-    private static AirborneVelocityMessage airVelocity(RawMessage m, int subType) {
-        int shBit = Bits.extractUInt(m.payload(), SUBTYPE_DATA_START_BIT + 21, 1);
-        double speed = Bits.extractUInt(m.payload(), SUBTYPE_DATA_START_BIT, 10);
+    private static AirborneVelocityMessage airVelocity(long timeStampNs, IcaoAddress icaoAddress, long payload, int subType) {
+        int shBit = Bits.extractUInt(payload, SUBTYPE_DATA_START_BIT + 21, 1);
+        double speed = Bits.extractUInt(payload, SUBTYPE_DATA_START_BIT, 10);
         if (shBit == 0 || speed == 0) {
             return null; // if shBit is 0, the message is invalid
         }
 
-        // interpret the turn : Bits.extractUInt(m.payload(), 11, 10) as a unsigned integer
-        long turnValue = Bits.extractUInt(m.payload(), SUBTYPE_DATA_START_BIT + 11, 10);
+        // interpret the turn : Bits.extractUInt(payload, 11, 10) as a unsigned integer
+        long turnValue = Bits.extractUInt(payload, SUBTYPE_DATA_START_BIT + 11, 10);
         double turn = Units.convertFrom(Math.scalb(turnValue, -10), Units.Angle.TURN); // divide by 1024 and convert to radian as specified in the standard
         speed--; // the speed is 1 less than the value
-        return new AirborneVelocityMessage(m.timeStampNs(), m.icaoAddress(), speedInMeterPerSecond(speed, subType), turn);
+        return new AirborneVelocityMessage(timeStampNs, icaoAddress, speedInMeterPerSecond(speed, subType), turn);
     }
 
     /**
@@ -41,8 +41,19 @@ public record AircraftIdentificationMessage(long timeStampNs, IcaoAddress icaoAd
      * @return the corresponding AircraftIdentificationMessage
      */
     public static AircraftIdentificationMessage of(RawMessage rawMessage) {
+        return of(rawMessage.timeStampNs(), rawMessage.icaoAddress(), rawMessage.payload());
+    }
+
+    /**
+     * Decodes the fields of a raw message, read from a RawMessage or a CompactRawMessage, as an aircraft identification message.
+     *
+     * @param timeStampNs the time stamp of the raw message
+     * @param icaoAddress the ICAO address of the raw message
+     * @param payload     the payload of the raw message
+     * @return the corresponding AircraftIdentificationMessage, or null if one of the characters is invalid
+     */
+    static AircraftIdentificationMessage of(long timeStampNs, IcaoAddress icaoAddress, long payload) {
         StringBuilder callSignString = new StringBuilder();
-        long payload = rawMessage.payload();
         //this loop goes from 42 to 0, 6 by 6, to ensure we decode the characters in order (and use the .append method with the String Builder).
         //the most significant bits contain the characters on the left
         for (int i = 42; i >= 0; i = i - CHAR_LENGTH_ENCODED) {
@@ -54,7 +65,7 @@ public record AircraftIdentificationMessage(long timeStampNs, IcaoAddress icaoAd
         }
         int category = (14 - (Bits.extractUInt(payload, 51, 5)) << 4) + Bits.extractUInt(payload, 48, 3);
         CallSign callSign = new CallSign(callSignString.toString().stripTrailing());
-        return new AircraftIdentificationMessage(rawMessage.timeStampNs(), rawMessage.icaoAddress(), category, callSign);
+        return new AircraftIdentificationMessage(timeStampNs, icaoAddress, category, callSign);
     }
 
     /**
@@ -0,0 +1,136 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.Crc24;
+import ch.epfl.javions.Preconditions;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * A raw ADS-B message stored in primitive fields: its 112 bits are split into two longs, the first 8 bytes in high
+ * and the 6 last ones in the 48 least significant bits of low.
+ * Unlike RawMessage, it doesn't copy the bytes of the message in a ByteString, and its ICAO address, payload and type code
+ * are extracted from those fields with a few shifts, without any allocation. The ICAO address is returned as its 24 bits,
+ * so that it can be compared or used as a key without building the hexadecimal string of an IcaoAddress.
+ * The RawMessage with the same content is available as a view through toRawMessage.
+ * <p>
+ * It is the form in which the demodulators and the replayer hand the messages to the DecodingEngine,
+ * whose MessageParser decodes them from their primitive fields.
+ *
+ * @param timeStampNs the time stamp of the message in nanoseconds
+ * @param high        the bytes 0 to 7 of the message, the first one being the most significant
+ * @param low         the bytes 8 to 13 of the message, in the 48 least significant bits
+ */
+public record CompactRawMessage(long timeStampNs, long high, long low) {
+    private static final int LOW_BYTES = RawMessage.LENGTH - Long.BYTES;
+    private static final long LOW_MASK = (1L << LOW_BYTES * Byte.SIZE) - 1;
+    private static final int ICAO_ADDRESS_BITS = 24;
+    private static final int PARITY_BITS = 24;
+    private static final int PAYLOAD_BITS = 56;
+    private static final int PAYLOAD_LOW_BITS = PAYLOAD_BITS - Integer.SIZE; // the bits of the payload which are in low
+    private static final Crc24 crc = new Crc24(Crc24.GENERATOR);
+    private static final VarHandle BIG_ENDIAN_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * @throws IllegalArgumentException if the time stamp is negative or low has more than 48 bits
+     */
+    public CompactRawMessage {
+        Preconditions.checkArgument(timeStampNs >= 0 && (low & ~LOW_MASK) == 0);
+    }
+
+    /**
+     * Returns a CompactRawMessage if the CRC24 of the 14 bytes starting at the given offset is 0, null otherwise.
+     * The bytes are read in place, so the message can be taken from a larger buffer without copying it.
+     *
+     * @param timeStampNs the time stamp in nanoseconds
+     * @param bytes       the bytes containing the message
+     * @param offset      the index of the first byte of the message
+     * @return a CompactRawMessage if the CRC24 of the bytes is 0, null otherwise
+     * @throws IndexOutOfBoundsException if the 14 bytes of the message are not all in the array
+     */
+    public static CompactRawMessage of(long timeStampNs, byte[] bytes, int offset) {
+        Objects.checkFromIndexSize(offset, RawMessage.LENGTH, bytes.length);
+        return crc.crc(bytes, offset, RawMessage.LENGTH) == 0 ? ofValid(timeStampNs, bytes, offset) : null;
+    }
+
+    /**
+     * Returns the CompactRawMessage of the 14 bytes starting at the given offset, without checking their CRC,
+     * for the messages which have already been validated, like the ones repaired by the demodulator or read from a recording.
+     *
+     * @param timeStampNs the time stamp in nanoseconds
+     * @param bytes       the bytes containing the message
+     * @param offset      the index of the first byte of the message
+     * @return the CompactRawMessage of the bytes
+     * @throws IndexOutOfBoundsException if the 14 bytes of the message are not all in the array
+     */
+    public static CompactRawMessage ofValid(long timeStampNs, byte[] bytes, int offset) {
+        Objects.checkFromIndexSize(offset, RawMessage.LENGTH, bytes.length);
+        long high = (long) BIG_ENDIAN_LONG.get(bytes, offset);
+        // the 8 bytes ending with the message are read, and the 2 bytes preceding the 6 last ones are dropped
+        long low = (long) BIG_ENDIAN_LONG.get(bytes, offset + RawMessage.LENGTH - Long.BYTES) & LOW_MASK;
+        return new CompactRawMessage(timeStampNs, high, low);
+    }
+
+    /**
+     * @param message a raw message
+     * @return the compact form of the given message
+     */
+    public static CompactRawMessage of(RawMessage message) {
+        ByteString bytes = message.bytes();
+        return new CompactRawMessage(message.timeStampNs(), bytes.bytesInRange(0, Long.BYTES - 1) << Byte.SIZE | bytes.byteAt(Long.BYTES - 1),
+                bytes.bytesInRange(Long.BYTES, RawMessage.LENGTH));
+    }
+
+    /**
+     * @return the downlink format of the message
+     */
+    public int downLinkFormat() {
+        return (int) (high >>> Long.SIZE - 5);
+    }
+
+    /**
+     * @return the 24 bits of the ICAO address of the message (bytes 1 to 3)
+     */
+    public int icaoAddress() {
+        return (int) (high >>> Integer.SIZE) & (1 << ICAO_ADDRESS_BITS) - 1;
+    }
+
+    /**
+     * @return the payload of the message (bytes 4 to 10)
+     */
+    public long payload() {
+        return (high & 0xFFFFFFFFL) << PAYLOAD_LOW_BITS | low >>> PARITY_BITS;
+    }
+
+    /**
+     * @return the type code of the message
+     */
+    public int typeCode() {
+        return RawMessage.typeCode(payload());
+    }
+
+    /**
+     * @return the parity of the message (bytes 11 to 13)
+     */
+    public int parity() {
+        return (int) low & (1 << PARITY_BITS) - 1;
+    }
+
+    /**
+     * @return the RawMessage with the same time stamp and bytes
+     */
+    public RawMessage toRawMessage() {
+        byte[] bytes = new byte[RawMessage.LENGTH];
+        BIG_ENDIAN_LONG.set(bytes, 0, high);
+        for (int i = Long.BYTES; i < RawMessage.LENGTH; i++) {
+            bytes[i] = (byte) (low >>> (RawMessage.LENGTH - 1 - i) * Byte.SIZE);
+        }
+        return new RawMessage(timeStampNs, new ByteString(bytes));
+    }
+}
@@ -1,5 +1,7 @@
 package ch.epfl.javions.adsb;
 
+import ch.epfl.javions.aircraft.IcaoAddress;
+
 /**
  * @author @franklintra (362694)
  * @project Javions
@@ -18,25 +20,48 @@ public final class MessageParser {
      * @return the parsed message or null if the message is of an unknown type
      */
     public static Message parse(RawMessage message) {
-        int typeCode = message.typeCode();
+        return parse(message.timeStampNs(), message.icaoAddress(), message.payload());
+    }
+
+    /**
+     * Parses the given compact raw message into a message object if the message is of a known type, straight from its
+     * primitive fields: unlike a RawMessage, no ByteString is built on the way.
+     *
+     * @param message the compact raw message to parse
+     * @return the parsed message or null if the message is of an unknown type
+     */
+    public static Message parse(CompactRawMessage message) {
+        return parse(message.timeStampNs(), IcaoAddress.of(message.icaoAddress()), message.payload());
+    }
+
+    /**
+     * Parses the fields of a raw message into a message object if the message is of a known type.
+     *
+     * @param timeStampNs the time stamp of the raw message
+     * @param icaoAddress the ICAO address of the raw message
+     * @param payload     the payload of the raw message
+     * @return the parsed message or null if the message is of an unknown type
+     */
+    private static Message parse(long timeStampNs, IcaoAddress icaoAddress, long payload) {
+        int typeCode = RawMessage.typeCode(payload);
         switch (typeCode) {
             /*
              * Aircraft identification message
              */
             case 1, 2, 3, 4 -> {
-                return AircraftIdentificationMessage.of(message);
+                return AircraftIdentificationMessage.of(timeStampNs, icaoAddress, payload);
             }
             /*
              * Airborne position message
              */
             case 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 20, 21, 22 -> {
-                return AirbornePositionMessage.of(message);
+                return AirbornePositionMessage.of(timeStampNs, icaoAddress, payload);
             }
             /*
              * Airborne velocity message
              */
             case 19 -> {
-                return AirborneVelocityMessage.of(message);
+                return AirborneVelocityMessage.of(timeStampNs, icaoAddress, payload);
             }
             default -> {
                 return null;
@@ -0,0 +1,84 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+import java.util.Objects;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * A Mode S frame of any Downlink Format, short (56 bits) or long (112 bits), whose parity has been validated.
+ * Unlike RawMessage, it isn't restricted to the ADS-B messages (DF 17): it also represents the all-call replies (DF 11),
+ * the non-transponder extended squitters (DF 18) and the surveillance and Comm-B replies (DF 0, 4, 5, 16, 20 and 21).
+ * In the replies of the last group, the address is not transmitted but xored with the parity, so it is recovered from the CRC.
+ *
+ * @param timeStampNs the time stamp of the frame in nanoseconds
+ * @param bytes       the 7 or 14 bytes of the frame
+ * @param icaoAddress the ICAO address of the aircraft which sent the frame
+ */
+public record ModeSFrame(long timeStampNs, ByteString bytes, IcaoAddress icaoAddress) {
+    /**
+     * The length in bytes of a short frame
+     */
+    public static final int SHORT_LENGTH = 7;
+    /**
+     * The length in bytes of a long frame
+     */
+    public static final int LONG_LENGTH = RawMessage.LENGTH;
+    private static final int FIRST_LONG_FORMAT = 16; // the Downlink Formats 16 to 24 are long, the others are short
+    private static final int DF_ADSB = 17;
+    private static final int DF_NON_TRANSPONDER = 18;
+
+    /**
+     * @throws IllegalArgumentException if the time stamp is negative or the frame doesn't have the length of its Downlink Format
+     * @throws NullPointerException     if the bytes or the ICAO address are null
+     */
+    public ModeSFrame {
+        Objects.requireNonNull(icaoAddress);
+        Preconditions.checkArgument(timeStampNs >= 0 && bytes.size() > 0 && bytes.size() == length(downLinkFormat(bytes)));
+    }
+
+    /**
+     * @param downLinkFormat the Downlink Format of a frame
+     * @return the length in bytes of the frames of the given Downlink Format
+     */
+    public static int length(int downLinkFormat) {
+        return downLinkFormat < FIRST_LONG_FORMAT ? SHORT_LENGTH : LONG_LENGTH;
+    }
+
+    /**
+     * @param bytes the bytes of a frame
+     * @return the Downlink Format of the frame
+     */
+    private static int downLinkFormat(ByteString bytes) {
+        return bytes.byteAt(0) >>> 3;
+    }
+
+    /**
+     * @return the Downlink Format of the frame
+     */
+    public int downLinkFormat() {
+        return downLinkFormat(bytes);
+    }
+
+    /**
+     * @return true if the frame is a long one (112 bits)
+     */
+    public boolean isLong() {
+        return bytes.size() == LONG_LENGTH;
+    }
+
+    /**
+     * Returns the frame as a RawMessage, so that it can be parsed by MessageParser.
+     * The non-transponder extended squitters (DF 18) have the same format as the ADS-B messages, so they are also converted.
+     *
+     * @return the frame as a RawMessage if it is an extended squitter (DF 17 or 18), null otherwise
+     */
+    public RawMessage toRawMessage() {
+        int downLinkFormat = downLinkFormat();
+        return downLinkFormat == DF_ADSB || downLinkFormat == DF_NON_TRANSPONDER ? new RawMessage(timeStampNs, bytes) : null;
+    }
+}
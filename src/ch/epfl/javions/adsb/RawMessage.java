@@ -79,10 +79,7 @@ public record RawMessage(long timeStampNs, ByteString bytes) {
      */
     public IcaoAddress icaoAddress() {
         // extract the 24-bit ICAO address from the message (byte 1 to byte 3 inclusive)
-        String address = Long.toHexString(bytes.bytesInRange(1, 4)).toUpperCase();
-        // pad with zeros to 6 characters if necessary in case the ICAO address encoded is ABC3 for exemple it's meant to be 00ABC3
-        address = "000000".substring(address.length()) + address;
-        return new IcaoAddress(address);
+        return IcaoAddress.of((int) bytes.bytesInRange(1, 4));
     }
 
     /**
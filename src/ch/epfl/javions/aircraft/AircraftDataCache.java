@@ -0,0 +1,125 @@
+package ch.epfl.javions.aircraft;
+
+import ch.epfl.javions.Preconditions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The cache of the lookups of an AircraftDatabase, which keeps at most maxSize aircraft and evicts the least recently used one.
+ * The aircraft which aren't in the database are cached as well, but only for a limited time, so that they are not looked up
+ * again for every message they send, but still found if the database is replaced.
+ * <p>
+ * The cache can be used by several threads at once, and counts its hits, misses and evictions.
+ */
+public final class AircraftDataCache {
+    private final int maxSize;
+    private final long negativeTtlNs;
+    private final Map<IcaoAddress, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * A cached lookup
+     *
+     * @param data        the aircraft data, null if the aircraft isn't in the database
+     * @param expiresAtNs the time at which a negative entry expires, in the time base of System.nanoTime
+     */
+    record Entry(AircraftData data, long expiresAtNs) {
+    }
+
+    /**
+     * Constructs an empty cache
+     *
+     * @param maxSize       the maximum number of aircraft in the cache, 0 to disable it
+     * @param negativeTtlNs the time during which an aircraft which isn't in the database is remembered, in nanoseconds
+     * @throws IllegalArgumentException if one of the arguments is negative
+     */
+    AircraftDataCache(int maxSize, long negativeTtlNs) {
+        Preconditions.checkArgument(maxSize >= 0 && negativeTtlNs >= 0);
+        this.maxSize = maxSize;
+        this.negativeTtlNs = negativeTtlNs;
+        // in access order, so that the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IcaoAddress, Entry> eldest) {
+                boolean full = size() > AircraftDataCache.this.maxSize;
+                if (full) {
+                    evictions++;
+                }
+                return full;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached lookup of an aircraft, and counts a hit or a miss
+     *
+     * @param address the ICAO address of the aircraft
+     * @param nowNs   the current time, in the time base of System.nanoTime
+     * @return the cached lookup, or null if the aircraft isn't in the cache or its negative entry has expired
+     */
+    synchronized Entry get(IcaoAddress address, long nowNs) {
+        Entry entry = entries.get(address);
+        if (entry != null && entry.data() == null && nowNs - entry.expiresAtNs() >= 0) {
+            entries.remove(address);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the lookup of an aircraft
+     *
+     * @param address the ICAO address of the aircraft
+     * @param data    the aircraft data, null if the aircraft isn't in the database
+     * @param nowNs   the current time, in the time base of System.nanoTime
+     */
+    synchronized void put(IcaoAddress address, AircraftData data, long nowNs) {
+        if (maxSize > 0) {
+            entries.put(address, new Entry(data, nowNs + negativeTtlNs));
+        }
+    }
+
+    /**
+     * @return the number of aircraft in the cache, expired ones included
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups answered by the cache
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which had to read the database
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of aircraft evicted because the cache was full
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AircraftDataCache[size=" + entries.size() + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+}
@@ -6,7 +6,20 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -14,19 +27,85 @@ import java.util.zip.ZipFile;
  * @author @franklintra (362694)
  * @author @chukla (357550)
  * @project Javions
+ * <p>
+ * The aircraft database. If the indexed database file built from the zip file by IndexedAircraftDatabase is next to it,
+ * and was built from the zip file as it is now, the lookups are binary searches in that file; otherwise, the zip file is read
+ * again for each lookup.
+ * In both cases, the lookups go through an AircraftDataCache, which also remembers for a while the aircraft which aren't in the database.
+ * Once preload has been called, the whole database is in memory and the files are never read again.
  */
 public final class AircraftDatabase {
+    /**
+     * The default maximum number of aircraft in the cache, much more than the number of aircraft in range of a receiver
+     */
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+    /**
+     * The default time during which an aircraft which isn't in the database is remembered
+     */
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofMinutes(10);
     private final String filename;
+    private final AircraftDataCache cache;
+    private final LongSupplier clock;
+    private volatile PreloadedAircraftDatabase preloaded;
+    private IndexedAircraftDatabase index;
+    private boolean indexOpened;
 
     /**
-     * The constructor of the AircraftDatabase class
+     * The constructor of the AircraftDatabase class, with the default cache
      *
      * @param filename the name of the database file
      * @throws NullPointerException if the database file could not be read
      */
     public AircraftDatabase(String filename) {
+        this(filename, DEFAULT_CACHE_SIZE, DEFAULT_NEGATIVE_TTL);
+    }
+
+    /**
+     * The constructor of the AircraftDatabase class
+     *
+     * @param filename    the name of the database file
+     * @param cacheSize   the maximum number of aircraft in the cache, 0 to disable it
+     * @param negativeTtl the time during which an aircraft which isn't in the database is remembered
+     * @throws NullPointerException     if the file name or the time to live is null
+     * @throws IllegalArgumentException if the cache size or the time to live is negative
+     */
+    public AircraftDatabase(String filename, int cacheSize, Duration negativeTtl) {
+        this(filename, cacheSize, negativeTtl, System::nanoTime);
+    }
+
+    /**
+     * The constructor of the AircraftDatabase class with the given clock, so that the expiry of the cache can be tested
+     *
+     * @param filename    the name of the database file
+     * @param cacheSize   the maximum number of aircraft in the cache, 0 to disable it
+     * @param negativeTtl the time during which an aircraft which isn't in the database is remembered
+     * @param clock       the clock of the cache, in nanoseconds
+     */
+    AircraftDatabase(String filename, int cacheSize, Duration negativeTtl, LongSupplier clock) {
         Objects.requireNonNull(filename);
         this.filename = filename;
+        this.cache = new AircraftDataCache(cacheSize, negativeTtl.toNanos());
+        this.clock = clock;
+    }
+
+    /**
+     * @return the cache of the lookups, whose counters measure how often the database file is read
+     */
+    public AircraftDataCache cache() {
+        return cache;
+    }
+
+    /**
+     * Loads the whole database in memory, which takes a few seconds and tens of megabytes but makes the lookups immediate.
+     * The lookups made while it is loading still read the files.
+     *
+     * @return the database loaded in memory, whose size and load time can be reported
+     * @throws IOException if the database file could not be read
+     */
+    public PreloadedAircraftDatabase preload() throws IOException {
+        PreloadedAircraftDatabase database = PreloadedAircraftDatabase.load(Path.of(filename));
+        preloaded = database;
+        return database;
     }
 
     /**
@@ -38,27 +117,145 @@ public final class AircraftDatabase {
      */
     public AircraftData get(IcaoAddress address) throws IOException {
         Objects.requireNonNull(address);
-        String identifier = address.string().substring(4, 6) + ".csv";
+        long now = clock.getAsLong();
+        AircraftDataCache.Entry cached = cache.get(address, now);
+        if (cached != null) {
+            return cached.data();
+        }
+        // the failed lookups aren't cached, so that they are retried
+        AircraftData data = read(address);
+        cache.put(address, data, now);
+        return data;
+    }
+
+    /**
+     * Reads the aircraft data for the given ICAO address from the database file, without the cache.
+     *
+     * @param address the ICAO address of the aircraft
+     * @return the aircraft data, or null if the aircraft isn't in the database
+     * @throws IOException if the database file could not be read
+     */
+    private AircraftData read(IcaoAddress address) throws IOException {
+        PreloadedAircraftDatabase preloaded = this.preloaded;
+        if (preloaded != null) {
+            return preloaded.get(address);
+        }
+        IndexedAircraftDatabase index = index();
+        if (index != null) {
+            return index.get(address);
+        }
+        return readFromZip(List.of(address)).get(address);
+    }
+
+    /**
+     * Returns the aircraft data for all the given ICAO addresses, reading the zip file at most once.
+     * The addresses are grouped by the CSV entry of the zip file which contains them, and each group is sorted,
+     * so that all the aircraft of a group are found in a single pass over their entry.
+     *
+     * @param addresses the ICAO addresses of the aircraft, possibly with duplicates
+     * @return the aircraft data of the given addresses; the aircraft which aren't in the database are not in the map
+     * @throws IOException if the database file could not be read
+     */
+    public Map<IcaoAddress, AircraftData> getAll(Collection<IcaoAddress> addresses) throws IOException {
+        long now = clock.getAsLong();
+        Map<IcaoAddress, AircraftData> found = new HashMap<>();
+        Set<IcaoAddress> misses = new HashSet<>();
+        for (IcaoAddress address : addresses) {
+            AircraftDataCache.Entry cached = misses.contains(Objects.requireNonNull(address)) ? null : cache.get(address, now);
+            if (cached == null) {
+                misses.add(address);
+            } else if (cached.data() != null) {
+                found.put(address, cached.data());
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+
+        Map<IcaoAddress, AircraftData> read;
+        if (preloaded != null || index() != null) {
+            read = new HashMap<>();
+            for (IcaoAddress address : misses) {
+                read.put(address, read(address));
+            }
+        } else {
+            read = readFromZip(misses);
+        }
+        for (IcaoAddress address : misses) {
+            AircraftData data = read.get(address);
+            cache.put(address, data, now);
+            if (data != null) {
+                found.put(address, data);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Reads the aircraft data for the given ICAO addresses from the zip file, which is opened once.
+     *
+     * @param addresses the distinct ICAO addresses of the aircraft
+     * @return the aircraft data of the given addresses which are in the database
+     * @throws IOException if the database file could not be read
+     */
+    private Map<IcaoAddress, AircraftData> readFromZip(Collection<IcaoAddress> addresses) throws IOException {
+        // the aircraft are in the entry named by the last two digits of their address, sorted by address
+        Map<String, List<IcaoAddress>> groups = new TreeMap<>();
+        for (IcaoAddress address : addresses) {
+            groups.computeIfAbsent(address.string().substring(4, 6) + ".csv", entry -> new ArrayList<>()).add(address);
+        }
+        Map<IcaoAddress, AircraftData> found = new HashMap<>();
         try (ZipFile zipFile = new ZipFile(new File(filename))) {
-            ZipEntry zipEntry = zipFile.getEntry(identifier);
-            try (
-                    BufferedReader file = new BufferedReader(new InputStreamReader(zipFile.getInputStream(zipEntry)))
-            ) {
-                String line;
-                while ((line = file.readLine()) != null) {
-                    int comparison = line.substring(0, IcaoAddress.LENGTH).compareTo(address.string());
-                    if (comparison > 0) {
-                        return null; //Interrupts the loop and go to the next zip file if the current description is greater than the description we're looking for (because the database is sorted)
-                    }
-                    if (comparison == 0) {
-                        return parseAircraftData(line);
+            for (Map.Entry<String, List<IcaoAddress>> group : groups.entrySet()) {
+                ZipEntry zipEntry = zipFile.getEntry(group.getKey());
+                if (zipEntry == null) {
+                    continue;
+                }
+                List<IcaoAddress> sorted = group.getValue();
+                sorted.sort(Comparator.comparingInt(IcaoAddress::value)); // the same order as the one of their strings
+                try (
+                        BufferedReader file = new BufferedReader(new InputStreamReader(zipFile.getInputStream(zipEntry)))
+                ) {
+                    int next = 0;
+                    String line;
+                    while (next < sorted.size() && (line = file.readLine()) != null) {
+                        String lineAddress = line.substring(0, IcaoAddress.LENGTH);
+                        // the addresses smaller than the one of the line aren't in the database (because the database is sorted)
+                        while (next < sorted.size() && lineAddress.compareTo(sorted.get(next).string()) > 0) {
+                            next++;
+                        }
+                        if (next < sorted.size() && lineAddress.equals(sorted.get(next).string())) {
+                            found.put(sorted.get(next), parseAircraftData(line));
+                            next++;
+                        }
                     }
                 }
             }
         } catch (IOException e) {
             throw new IOException("Could not read database file: " + filename + " (" + e.getMessage() + ")", e);
         }
-        return null;
+        return found;
+    }
+
+    /**
+     * Opens the indexed database file next to the zip file the first time it is called.
+     *
+     * @return the indexed database, or null if there is none (or it can't be read, or is outdated), in which case the zip file is used
+     */
+    private synchronized IndexedAircraftDatabase index() {
+        if (!indexOpened) {
+            indexOpened = true;
+            Path zipFile = Path.of(filename);
+            Path indexFile = IndexedAircraftDatabase.indexFor(zipFile);
+            if (Files.isRegularFile(indexFile)) {
+                try {
+                    index = IndexedAircraftDatabase.open(indexFile, zipFile);
+                } catch (IOException e) {
+                    index = null; // falls back to the zip file, also when the index was built from another version of it
+                }
+            }
+        }
+        return index;
     }
 
     /**
@@ -68,13 +265,34 @@ public final class AircraftDatabase {
      * @return the AircraftData object corresponding to the line
      */
     private AircraftData parseAircraftData(String line) {
-        String[] data = line.split(",", -1);
+        return parseFields(line.substring(IcaoAddress.LENGTH + 1));
+    }
+
+    /**
+     * Parses the fields which follow the address in a line of the database file.
+     *
+     * @param fields the registration, type designator, model, description and wake turbulence category, separated by commas
+     * @return the AircraftData object corresponding to the fields
+     */
+    static AircraftData parseFields(String fields) {
+        return parseFields(fields.split(",", -1));
+    }
+
+    /**
+     * Parses the fields which follow the address in a line of the database file, once split.
+     *
+     * @param data the registration, type designator, model, description and wake turbulence category
+     * @return the AircraftData object corresponding to the fields
+     * @throws IllegalArgumentException  if one of the fields isn't valid
+     * @throws IndexOutOfBoundsException if there are less than five fields
+     */
+    static AircraftData parseFields(String[] data) {
         return new AircraftData(
-                new AircraftRegistration(data[1]),
-                new AircraftTypeDesignator(data[2]),
-                data[3],
-                new AircraftDescription(data[4]),
-                WakeTurbulenceCategory.of(data[5])
+                new AircraftRegistration(data[0]),
+                new AircraftTypeDesignator(data[1]),
+                data[2],
+                new AircraftDescription(data[3]),
+                WakeTurbulenceCategory.of(data[4])
         );
     }
 }
@@ -2,26 +2,103 @@ package ch.epfl.javions.aircraft;
 
 import ch.epfl.javions.Preconditions;
 
-import java.util.regex.Pattern;
+import java.util.HexFormat;
 
 /**
  * @author @franklintra (362694)
  * @project Javions
+ * <p>
+ * The ICAO address of an aircraft, stored as its 24 bits.
+ * The addresses of the messages are obtained with of(int), which returns the same instance for the same address
+ * (as long as its cache isn't full), so that decoding a message neither formats nor validates a string. The hexadecimal string is only formatted when it is asked for.
+ * Two addresses are equal if they have the same bits, whether they were obtained from of(int) or built from their string.
  */
-public record IcaoAddress(String string) {
+public final class IcaoAddress {
     /**
      * The length of an ICAO address.
      * This constant is used to check that the ICAO address is valid and to extract the ICAO address from the file more easily
      * as it is always 6 characters long.
      */
     public static final int LENGTH = 6;
-    private static final Pattern REGEX = Pattern.compile("[0-9A-F]{%s}".formatted(LENGTH));
+    /**
+     * The number of bits of an ICAO address
+     */
+    public static final int BITS = 24;
+    private static final HexFormat HEX_FORMAT = HexFormat.of().withUpperCase();
+    private static final IcaoAddressTable CACHE = new IcaoAddressTable();
+    private final int value;
+    private String string; // formatted lazily, at worst once per thread as the result is always the same
 
     /**
      * @param string the ICAO address
      * @throws IllegalArgumentException if the ICAO address is not valid
+     * @throws NullPointerException     if the string is null
+     */
+    public IcaoAddress(String string) {
+        Preconditions.checkArgument(string.length() == LENGTH);
+        int value = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = string.charAt(i);
+            // only the digits and the upper case letters are valid
+            Preconditions.checkArgument(('0' <= c && c <= '9') || ('A' <= c && c <= 'F'));
+            value = value << 4 | HexFormat.fromHexDigit(c);
+        }
+        this.value = value;
+        this.string = string;
+    }
+
+    /**
+     * @param value the 24 bits of the ICAO address
+     */
+    IcaoAddress(int value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the canonical instance of an ICAO address, which is cached so that no address is allocated twice.
+     * Once the cache holds IcaoAddressTable.DEFAULT_MAX_SIZE addresses, the ones which aren't in it are allocated each time.
+     *
+     * @param value the 24 bits of the ICAO address
+     * @return the ICAO address with the given bits
+     * @throws IllegalArgumentException if the value has more than 24 bits
+     */
+    public static IcaoAddress of(int value) {
+        Preconditions.checkArgument(value >>> BITS == 0);
+        return CACHE.get(value);
+    }
+
+    /**
+     * @return the 24 bits of the ICAO address
+     */
+    public int value() {
+        return value;
+    }
+
+    /**
+     * @return the ICAO address as 6 upper case hexadecimal digits
      */
-    public IcaoAddress {
-        Preconditions.checkArgument(REGEX.matcher(string).matches());
+    public String string() {
+        String s = string;
+        if (s == null) {
+            // the 2 first hexadecimal digits of the int are always 0
+            s = HEX_FORMAT.toHexDigits(value).substring(Integer.BYTES * 2 - LENGTH);
+            string = s;
+        }
+        return s;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof IcaoAddress that && value == that.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return "IcaoAddress[string=" + string() + "]";
     }
 }
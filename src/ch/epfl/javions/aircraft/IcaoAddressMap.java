@@ -0,0 +1,201 @@
+package ch.epfl.javions.aircraft;
+
+import ch.epfl.javions.Preconditions;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * A map whose keys are the 24 bits of ICAO addresses, stored in an open addressing hash table of primitive ints.
+ * Finding the value of an address costs a hash and a few probes of an int array, without boxing the key or calling equals,
+ * and each entry only takes an int and a reference, at most doubled by the free slots (the table is never more than half full).
+ * The removed entries are not marked as deleted: the entries which follow them are moved back, so that the probe sequences
+ * stay as short as if the removed entries had never been there.
+ * <p>
+ * The map isn't thread-safe.
+ *
+ * @param <V> the type of the values
+ */
+public final class IcaoAddressMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final int EMPTY = -1; // never the bits of an address, which only have 24 bits
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Constructs an empty map
+     */
+    public IcaoAddressMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Constructs an empty map which can hold the given number of addresses before it grows
+     *
+     * @param expectedSize the number of addresses expected
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public IcaoAddressMap(int expectedSize) {
+        Preconditions.checkArgument(expectedSize >= 0);
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, 2 * expectedSize - 1)) << 1));
+    }
+
+    /**
+     * @return the number of addresses in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param address the bits of an ICAO address
+     * @return the value of the address, or null if it isn't in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int address) {
+        int slot = slot(address);
+        return keys[slot] == EMPTY ? null : (V) values[slot];
+    }
+
+    /**
+     * Associates a value with an address, replacing its previous value if there was one
+     *
+     * @param address the bits of an ICAO address
+     * @param value   the value (not null)
+     * @return the previous value of the address, or null if it wasn't in the map
+     * @throws IllegalArgumentException if the address has more than 24 bits
+     * @throws NullPointerException     if the value is null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int address, V value) {
+        Preconditions.checkArgument(address >>> IcaoAddress.BITS == 0);
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int slot = slot(address);
+        if (keys[slot] != EMPTY) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        keys[slot] = address;
+        values[slot] = value;
+        size++;
+        // at most half full, so that the probe sequences stay short
+        if (2 * size > keys.length) {
+            rehash(2 * keys.length);
+        }
+        return null;
+    }
+
+    /**
+     * Removes an address from the map
+     *
+     * @param address the bits of an ICAO address
+     * @return the value of the address, or null if it wasn't in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int address) {
+        int slot = slot(address);
+        if (keys[slot] == EMPTY) {
+            return null;
+        }
+        V value = (V) values[slot];
+        delete(slot);
+        return value;
+    }
+
+    /**
+     * Removes all the addresses whose value satisfies the given predicate
+     *
+     * @param filter the predicate, which returns true for the values to remove
+     * @return true if an address has been removed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super V> filter) {
+        int removed = 0;
+        for (int slot = 0; slot < keys.length; ) {
+            if (keys[slot] != EMPTY && filter.test((V) values[slot])) {
+                // the entry moved back into the slot, if any, still has to be tested
+                delete(slot);
+                removed++;
+            } else {
+                slot++;
+            }
+        }
+        return removed > 0;
+    }
+
+    /**
+     * @param address the bits of an ICAO address
+     * @return the slot of the address if it is in the map, or the empty slot where it would be added otherwise
+     */
+    private int slot(int address) {
+        int mask = keys.length - 1;
+        int slot = hash(address) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != address) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot and moves back the entries of the same probe sequence which follow it (backward shift deletion)
+     *
+     * @param slot the slot of an entry
+     */
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int free = slot;
+        for (int next = (free + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            // the entry can be moved to the free slot if its home slot isn't cyclically in ]free, next]
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+        }
+        keys[free] = EMPTY;
+        values[free] = null;
+        size--;
+    }
+
+    /**
+     * @param capacity the new number of slots, a power of 2
+     */
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * @param capacity the number of slots, a power of 2
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+    }
+
+    /**
+     * @param address the bits of an ICAO address
+     * @return the hash of the address, whose lowest bits depend on all its bits (the addresses of a country share their highest bits)
+     */
+    private static int hash(int address) {
+        int h = address * 0x9E3779B1;
+        return h ^ h >>> 16;
+    }
+}
@@ -0,0 +1,131 @@
+package ch.epfl.javions.aircraft;
+
+import ch.epfl.javions.Preconditions;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The table of the canonical instances of the ICAO addresses, an open addressing hash table keyed by the bits of the addresses.
+ * The lookups don't take any lock: a slot only ever goes from null to an address whose fields are final, so a lookup either finds
+ * the address or falls back to the insertion, which is synchronized and looks for it again in the current slots.
+ * <p>
+ * The table is never emptied, as the number of aircraft seen by a receiver is small (a few thousands a day), but the noise and
+ * the messages wrongly repaired by the error correction add random addresses to it. So it stops growing once it holds maxSize
+ * addresses, and the addresses which aren't in it are then allocated each time they are asked for: they are still equal to
+ * the ones of the table, only not the same instances.
+ */
+final class IcaoAddressTable {
+    /**
+     * The default maximum number of addresses of a table, many more than a receiver sees in a day, and about 2 MB once full
+     */
+    static final int DEFAULT_MAX_SIZE = 1 << 16;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private final int maxSize;
+    private volatile IcaoAddress[] slots = new IcaoAddress[INITIAL_CAPACITY];
+    private volatile boolean full; // so that the lookups of a full table don't take the lock
+    private int size; // guarded by this
+
+    /**
+     * Constructs a table which holds at most DEFAULT_MAX_SIZE addresses
+     */
+    IcaoAddressTable() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize the maximum number of addresses of the table
+     * @throws IllegalArgumentException if the maximum size isn't positive
+     */
+    IcaoAddressTable(int maxSize) {
+        Preconditions.checkArgument(maxSize > 0);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param value the 24 bits of an ICAO address
+     * @return the canonical instance of the address, or a new instance if it isn't in the table and the table is full
+     */
+    IcaoAddress get(int value) {
+        IcaoAddress address = find(slots, value);
+        if (address != null) {
+            return address;
+        }
+        return full ? new IcaoAddress(value) : insert(value);
+    }
+
+    /**
+     * @return the number of addresses of the table
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param slots the slots of the table
+     * @param value the 24 bits of an ICAO address
+     * @return the address with the given bits if it is in the slots, null otherwise
+     */
+    private static IcaoAddress find(IcaoAddress[] slots, int value) {
+        int mask = slots.length - 1;
+        for (int slot = hash(value) & mask; slots[slot] != null; slot = (slot + 1) & mask) {
+            if (slots[slot].value() == value) {
+                return slots[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds an address to the table, if another thread hasn't just done it and the table isn't full
+     *
+     * @param value the 24 bits of an ICAO address
+     * @return the canonical instance of the address, or a new instance if the table is full
+     */
+    private synchronized IcaoAddress insert(int value) {
+        IcaoAddress address = find(slots, value);
+        if (address != null) {
+            return address;
+        }
+        if (size == maxSize) {
+            full = true;
+            return new IcaoAddress(value);
+        }
+        // at most half full, so that the probe sequences stay short
+        if (2 * (size + 1) > slots.length) {
+            IcaoAddress[] grown = new IcaoAddress[2 * slots.length];
+            for (IcaoAddress a : slots) {
+                if (a != null) {
+                    put(grown, a);
+                }
+            }
+            slots = grown;
+        }
+        address = new IcaoAddress(value);
+        put(slots, address);
+        size++;
+        return address;
+    }
+
+    /**
+     * @param slots   the slots of the table
+     * @param address an address which isn't in the slots
+     */
+    private static void put(IcaoAddress[] slots, IcaoAddress address) {
+        int mask = slots.length - 1;
+        int slot = hash(address.value()) & mask;
+        while (slots[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = address;
+    }
+
+    /**
+     * @param value the 24 bits of an ICAO address
+     * @return the hash of the address, whose lowest bits depend on all its bits (the addresses of a country share their highest bits)
+     */
+    private static int hash(int value) {
+        int h = value * 0x9E3779B1;
+        return h ^ h >>> 16;
+    }
+}
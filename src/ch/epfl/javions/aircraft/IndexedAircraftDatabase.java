@@ -0,0 +1,238 @@
+package ch.epfl.javions.aircraft;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * An aircraft database stored in a sorted binary file, built once from the zip file of the CSV database.
+ * The file is mapped in memory when it is opened, and each lookup is a binary search over the addresses
+ * followed by the decoding of a single record, instead of the opening of the zip file and the scan of a CSV entry.
+ * <p>
+ * The file is made of, in order:
+ * <ol>
+ *     <li>a header made of the magic number and the number of aircraft n, as ints, followed by the size and the time of
+ *     the last modification (in milliseconds) of the zip file it was built from, as longs,</li>
+ *     <li>the n addresses of the aircraft, sorted, each one as an int holding its 24 bits,</li>
+ *     <li>n + 1 offsets of the records, relative to the first one, the record i ending where the record i + 1 begins,</li>
+ *     <li>the records, each one being the CSV fields which follow the address, encoded in UTF-8.</li>
+ * </ol>
+ * All the numbers are big-endian. Once opened, the database can be read by several threads at once.
+ * <p>
+ * The size and the modification time of the zip file tell whether the index is still the one of the zip file,
+ * so that an index which wasn't built again after the zip file was replaced is never used.
+ */
+public final class IndexedAircraftDatabase {
+    /**
+     * The extension of the indexed database files
+     */
+    public static final String EXTENSION = ".idx";
+    private static final int MAGIC = 0x4A41_5632; // "JAV2", the first version having no size nor time of the zip file
+    private static final int ZIP_SIZE_POSITION = 2 * Integer.BYTES;
+    private static final int ZIP_MODIFIED_POSITION = ZIP_SIZE_POSITION + Long.BYTES;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + 2 * Long.BYTES;
+    private static final String CSV_EXTENSION = ".csv";
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int offsetsStart;
+    private final int recordsStart;
+
+    private IndexedAircraftDatabase(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an indexed aircraft database");
+        }
+        this.buffer = buffer;
+        this.count = buffer.getInt(Integer.BYTES);
+        long recordsStart = HEADER_BYTES + (2L * count + 1) * Integer.BYTES;
+        if (count < 0 || recordsStart > buffer.capacity()) {
+            throw new IOException("Truncated indexed aircraft database");
+        }
+        this.offsetsStart = HEADER_BYTES + count * Integer.BYTES;
+        this.recordsStart = (int) recordsStart;
+        if (this.recordsStart + buffer.getInt(offsetsStart + count * Integer.BYTES) != buffer.capacity()) {
+            throw new IOException("Truncated indexed aircraft database");
+        }
+    }
+
+    /**
+     * Maps an indexed database file in memory
+     *
+     * @param file the indexed database file, written by convert
+     * @return the indexed database
+     * @throws IOException if the file could not be read or isn't an indexed database
+     */
+    public static IndexedAircraftDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid once the channel is closed
+            return new IndexedAircraftDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Maps an indexed database file in memory, after checking that it was built from the given zip file as it is now.
+     * If the zip file doesn't exist, the index is the only copy of the database and is opened as it is.
+     *
+     * @param file    the indexed database file, written by convert
+     * @param zipFile the zip database file the index was built from
+     * @return the indexed database
+     * @throws IOException if the file could not be read, isn't an indexed database, or was built from another version of the zip file
+     */
+    public static IndexedAircraftDatabase open(Path file, Path zipFile) throws IOException {
+        IndexedAircraftDatabase index = open(file);
+        if (Files.exists(zipFile) && (index.buffer.getLong(ZIP_SIZE_POSITION) != Files.size(zipFile)
+                || index.buffer.getLong(ZIP_MODIFIED_POSITION) != Files.getLastModifiedTime(zipFile).toMillis())) {
+            throw new IOException("Outdated indexed aircraft database: " + file);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the indexed database file which goes with the given zip database file, i.e. the file with the same name
+     * whose extension is EXTENSION instead of .zip
+     *
+     * @param zipFile the zip database file
+     * @return the indexed database file
+     */
+    public static Path indexFor(Path zipFile) {
+        String name = zipFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return zipFile.resolveSibling((dot < 0 ? name : name.substring(0, dot)) + EXTENSION);
+    }
+
+    /**
+     * Converts the zip file of the CSV database to an indexed database file
+     *
+     * @param zipFile   the zip database file
+     * @param indexFile the indexed database file to write, replaced if it exists
+     * @throws IOException if one of the files could not be read or written
+     */
+    public static void convert(Path zipFile, Path indexFile) throws IOException {
+        record Entry(int address, byte[] record) {
+        }
+        // read before the entries, so that a zip file replaced during the conversion makes the index outdated
+        long zipSize = Files.size(zipFile);
+        long zipModified = Files.getLastModifiedTime(zipFile).toMillis();
+        List<Entry> entries = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            for (ZipEntry zipEntry : Collections.list(zip.entries())) {
+                if (!zipEntry.getName().endsWith(CSV_EXTENSION)) {
+                    continue;
+                }
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(zipEntry), UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int address = new IcaoAddress(line.substring(0, IcaoAddress.LENGTH)).value();
+                        entries.add(new Entry(address, line.substring(IcaoAddress.LENGTH + 1).getBytes(UTF_8)));
+                    }
+                }
+            }
+        }
+        entries.sort(Comparator.comparingInt(Entry::address));
+
+        Path temporary = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(entries.size());
+            out.writeLong(zipSize);
+            out.writeLong(zipModified);
+            for (Entry entry : entries) {
+                out.writeInt(entry.address());
+            }
+            int offset = 0;
+            out.writeInt(offset);
+            for (Entry entry : entries) {
+                offset += entry.record().length;
+                out.writeInt(offset);
+            }
+            for (Entry entry : entries) {
+                out.write(entry.record());
+            }
+        }
+        // the index is only replaced once it is complete, so that a reader never opens a truncated one
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Converts a zip database file to an indexed database file, once and for all.
+     * The first argument is the zip file, the second (optional) one the indexed file, by default the one given by indexFor.
+     *
+     * @param args the command line arguments
+     * @throws IOException if one of the files could not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: IndexedAircraftDatabase <aircraft.zip> [<aircraft" + EXTENSION + ">]");
+            System.exit(1);
+        }
+        Path zipFile = Path.of(args[0]);
+        Path indexFile = args.length == 2 ? Path.of(args[1]) : indexFor(zipFile);
+        convert(zipFile, indexFile);
+        System.out.println(open(indexFile).size() + " aircraft written to " + indexFile);
+    }
+
+    /**
+     * @return the number of aircraft in the database
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the aircraft data for the given ICAO address.
+     *
+     * @param address the ICAO address of the aircraft
+     * @return the aircraft data, or null if the aircraft isn't in the database
+     */
+    public AircraftData get(IcaoAddress address) {
+        int index = indexOf(Objects.requireNonNull(address).value());
+        if (index < 0) {
+            return null;
+        }
+        int start = buffer.getInt(offsetsStart + index * Integer.BYTES);
+        int end = buffer.getInt(offsetsStart + (index + 1) * Integer.BYTES);
+        byte[] record = new byte[end - start];
+        buffer.get(recordsStart + start, record); // absolute, so that the threads don't share a position
+        return AircraftDatabase.parseFields(new String(record, UTF_8));
+    }
+
+    /**
+     * @param address the bits of an ICAO address
+     * @return the index of the address among the sorted addresses, or -1 if it isn't in the database
+     */
+    private int indexOf(int address) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int key = buffer.getInt(HEADER_BYTES + middle * Integer.BYTES);
+            if (key < address) {
+                low = middle + 1;
+            } else if (key > address) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,253 @@
+package ch.epfl.javions.aircraft;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The whole aircraft database loaded in memory, so that the lookups are binary searches which never read a file.
+ * The CSV entries of the zip file are decompressed and parsed in parallel, then the aircraft are stored by column:
+ * <ul>
+ *     <li>the sorted addresses in an int array,</li>
+ *     <li>the registrations, which are ASCII, one after the other in a single byte array, with the offsets of their ends,</li>
+ *     <li>the type designators, models and descriptions, shared by many aircraft, as indices in pools of distinct values,</li>
+ *     <li>the wake turbulence categories as the ordinals of the enum.</li>
+ * </ul>
+ * So an aircraft only takes about 25 bytes plus its registration, instead of the five objects of its AircraftData.
+ * The lines which can't be parsed are skipped and counted, as a lookup of the zip file would only fail for their aircraft.
+ * The database is immutable and can be read by several threads at once.
+ */
+public final class PreloadedAircraftDatabase {
+    private static final String CSV_EXTENSION = ".csv";
+    private static final int ADDRESS_SHIFT = Integer.SIZE; // the addresses are sorted in the highest bits of longs
+    private static final WakeTurbulenceCategory[] CATEGORIES = WakeTurbulenceCategory.values();
+    private final int[] addresses;
+    private final int[] registrationEnds;
+    private final byte[] registrations;
+    private final int[] typeDesignators;
+    private final int[] models;
+    private final int[] descriptions;
+    private final byte[] categories;
+    private final AircraftTypeDesignator[] typeDesignatorPool;
+    private final String[] modelPool;
+    private final AircraftDescription[] descriptionPool;
+    private final long loadTimeNs;
+    private final int malformedLines;
+
+    /**
+     * The lines of a CSV entry of the zip file, split in fields
+     *
+     * @param addresses      the bits of the addresses of the valid lines
+     * @param fields         the fields which follow the address of each valid line
+     * @param malformedLines the number of lines skipped because they couldn't be parsed
+     */
+    private record Chunk(int[] addresses, String[][] fields, int malformedLines) {
+    }
+
+    private PreloadedAircraftDatabase(List<Chunk> chunks, long startNs) {
+        int count = chunks.stream().mapToInt(c -> c.addresses().length).sum();
+        // sorts the addresses with their index in the chunks, packed in longs so that a primitive sort is enough
+        long[] order = new long[count];
+        String[][] fields = new String[count][];
+        int i = 0;
+        for (Chunk chunk : chunks) {
+            for (int j = 0; j < chunk.addresses().length; j++, i++) {
+                order[i] = (long) chunk.addresses()[j] << ADDRESS_SHIFT | i;
+                fields[i] = chunk.fields()[j];
+            }
+        }
+        Arrays.sort(order);
+
+        addresses = new int[count];
+        registrationEnds = new int[count];
+        typeDesignators = new int[count];
+        models = new int[count];
+        descriptions = new int[count];
+        categories = new byte[count];
+        Pool<AircraftTypeDesignator> typeDesignatorPool = new Pool<>(AircraftTypeDesignator::new);
+        Pool<String> modelPool = new Pool<>(Function.identity());
+        Pool<AircraftDescription> descriptionPool = new Pool<>(AircraftDescription::new);
+        StringBuilder registrations = new StringBuilder();
+        for (int k = 0; k < count; k++) {
+            String[] line = fields[(int) order[k]];
+            addresses[k] = (int) (order[k] >>> ADDRESS_SHIFT);
+            registrations.append(line[0]); // already checked by readChunk
+            registrationEnds[k] = registrations.length();
+            typeDesignators[k] = typeDesignatorPool.indexOf(line[1]);
+            models[k] = modelPool.indexOf(line[2]);
+            descriptions[k] = descriptionPool.indexOf(line[3]);
+            categories[k] = (byte) WakeTurbulenceCategory.of(line[4]).ordinal();
+        }
+        this.registrations = registrations.toString().getBytes(US_ASCII);
+        this.typeDesignatorPool = typeDesignatorPool.values().toArray(AircraftTypeDesignator[]::new);
+        this.modelPool = modelPool.values().toArray(String[]::new);
+        this.descriptionPool = descriptionPool.values().toArray(AircraftDescription[]::new);
+        this.malformedLines = chunks.stream().mapToInt(Chunk::malformedLines).sum();
+        this.loadTimeNs = System.nanoTime() - startNs;
+    }
+
+    /**
+     * Loads the whole zip file of the CSV database, whose entries are decompressed and parsed in parallel
+     *
+     * @param zipFile the zip database file
+     * @return the database loaded in memory
+     * @throws IOException if the zip file could not be read
+     */
+    public static PreloadedAircraftDatabase load(Path zipFile) throws IOException {
+        long startNs = System.nanoTime();
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            // a ZipFile can be read by several threads at once, each one inflating its own entry
+            List<Chunk> chunks = Collections.list(zip.entries()).parallelStream()
+                    .filter(entry -> entry.getName().endsWith(CSV_EXTENSION))
+                    .map(entry -> readChunk(zip, entry))
+                    .toList();
+            return new PreloadedAircraftDatabase(chunks, startNs);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads and splits the lines of a CSV entry of the zip file, skipping the lines which can't be parsed
+     *
+     * @param zip   the zip file
+     * @param entry the CSV entry
+     * @return the valid lines of the entry
+     * @throws UncheckedIOException if the entry could not be read
+     */
+    private static Chunk readChunk(ZipFile zip, ZipEntry entry) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(entry), UTF_8))) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            int[] addresses = new int[lines.size()];
+            String[][] fields = new String[lines.size()][];
+            int count = 0;
+            for (String csvLine : lines) {
+                try {
+                    int address = new IcaoAddress(csvLine.substring(0, IcaoAddress.LENGTH)).value();
+                    String[] lineFields = csvLine.substring(IcaoAddress.LENGTH + 1).split(",", -1);
+                    AircraftDatabase.parseFields(lineFields); // the same checks as a lookup of the zip file
+                    addresses[count] = address;
+                    fields[count] = lineFields;
+                    count++;
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    // skipped, only this aircraft is missing from the database
+                }
+            }
+            return new Chunk(Arrays.copyOf(addresses, count), Arrays.copyOf(fields, count), lines.size() - count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the number of aircraft in the database
+     */
+    public int size() {
+        return addresses.length;
+    }
+
+    /**
+     * @return the number of lines of the zip file which were skipped because they couldn't be parsed
+     */
+    public int malformedLines() {
+        return malformedLines;
+    }
+
+    /**
+     * @return the time taken to load the database, in nanoseconds
+     */
+    public long loadTimeNs() {
+        return loadTimeNs;
+    }
+
+    /**
+     * Estimates the memory taken by the database: its arrays and the objects of its pools, but not their headers
+     *
+     * @return the approximate size of the database in memory, in bytes
+     */
+    public long residentBytes() {
+        long bytes = (long) addresses.length * (5 * Integer.BYTES + Byte.BYTES) + registrations.length;
+        for (String model : modelPool) {
+            bytes += model.length();
+        }
+        // the type designators and descriptions are at most 4 characters long
+        return bytes + (long) (typeDesignatorPool.length + descriptionPool.length) * Integer.BYTES;
+    }
+
+    /**
+     * Returns the aircraft data for the given ICAO address.
+     *
+     * @param address the ICAO address of the aircraft
+     * @return the aircraft data, or null if the aircraft isn't in the database
+     */
+    public AircraftData get(IcaoAddress address) {
+        int i = Arrays.binarySearch(addresses, Objects.requireNonNull(address).value());
+        if (i < 0) {
+            return null;
+        }
+        int start = i == 0 ? 0 : registrationEnds[i - 1];
+        return new AircraftData(
+                new AircraftRegistration(new String(registrations, start, registrationEnds[i] - start, US_ASCII)),
+                typeDesignatorPool[typeDesignators[i]],
+                modelPool[models[i]],
+                descriptionPool[descriptions[i]],
+                CATEGORIES[categories[i]]);
+    }
+
+    @Override
+    public String toString() {
+        return "PreloadedAircraftDatabase[aircraft=" + size() + ", malformedLines=" + malformedLines + ", residentBytes=" + residentBytes() + ", loadTimeMs=" + loadTimeNs / 1_000_000 + "]";
+    }
+
+    /**
+     * The distinct values of a column, each one stored once and referred to by its index
+     *
+     * @param <T> the type of the values
+     */
+    private static final class Pool<T> {
+        private final Function<String, T> constructor;
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        Pool(Function<String, T> constructor) {
+            this.constructor = constructor;
+        }
+
+        /**
+         * @param field the field of a line
+         * @return the index of the value of the field, which is added to the pool the first time it is seen
+         */
+        int indexOf(String field) {
+            return indices.computeIfAbsent(field, f -> {
+                values.add(constructor.apply(f));
+                return values.size() - 1;
+            });
+        }
+
+        List<T> values() {
+            return values;
+        }
+    }
+}
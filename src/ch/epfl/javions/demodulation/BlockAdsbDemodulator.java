@@ -0,0 +1,122 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.adsb.CompactRawMessage;
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+import static ch.epfl.javions.demodulation.MessageScanner.SAMPLE_DURATION_NS;
+import static ch.epfl.javions.demodulation.MessageScanner.WINDOW_SIZE;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * This class demodulates ADS-B messages from a stream of samples, like AdsbDemodulator, and returns exactly the same messages.
+ * Instead of advancing a PowerWindow one sample at a time, it scans whole batches of power samples computed by a FusedPowerComputer
+ * (reading a stream or a mapped file), held in a PowerBuffer.
+ * The messages are demodulated as CompactRawMessage, of which nextMessage returns the RawMessage view.
+ */
+public final class BlockAdsbDemodulator {
+    private final PowerBuffer buffer;
+    private final MessageScanner scanner;
+
+    /**
+     * The constructor of the BlockAdsbDemodulator class
+     *
+     * @param samplesStream the stream of samples to be demodulated
+     */
+    public BlockAdsbDemodulator(InputStream samplesStream) {
+        this(samplesStream, ErrorCorrection.NONE);
+    }
+
+    /**
+     * Constructs a demodulator which repairs the messages whose CRC isn't 0 when it can.
+     *
+     * @param samplesStream the stream of samples to be demodulated
+     * @param correction    the error correction applied to the messages
+     */
+    public BlockAdsbDemodulator(InputStream samplesStream, ErrorCorrection correction) {
+        this(samplesStream, correction, PhaseCorrection.NONE);
+    }
+
+    /**
+     * Constructs a demodulator which decodes again the messages whose CRC isn't 0 with the given phase correction,
+     * then repairs them when it can.
+     *
+     * @param samplesStream   the stream of samples to be demodulated
+     * @param correction      the error correction applied to the messages
+     * @param phaseCorrection the phase correction applied to the messages
+     */
+    public BlockAdsbDemodulator(InputStream samplesStream, ErrorCorrection correction, PhaseCorrection phaseCorrection) {
+        this.buffer = new PowerBuffer(new FusedPowerComputer(samplesStream, PowerBuffer.BATCH_SIZE));
+        this.scanner = new MessageScanner(Objects.requireNonNull(correction), Objects.requireNonNull(phaseCorrection));
+    }
+
+    /**
+     * Constructs a demodulator reading the samples straight from a file mapped in memory, which avoids copying them through a stream.
+     * It returns the same messages as a demodulator reading the same file through a stream.
+     *
+     * @param samplesChannel the channel of the file of samples to be demodulated (starting at its current position), closed by the caller
+     * @throws IOException if an I/O error occurs while reading the size or the position of the channel
+     */
+    public BlockAdsbDemodulator(FileChannel samplesChannel) throws IOException {
+        this(samplesChannel, ErrorCorrection.NONE);
+    }
+
+    /**
+     * Constructs a demodulator reading the samples straight from a file mapped in memory and repairing the messages when it can.
+     *
+     * @param samplesChannel the channel of the file of samples to be demodulated (starting at its current position), closed by the caller
+     * @param correction     the error correction applied to the messages
+     * @throws IOException if an I/O error occurs while reading the size or the position of the channel
+     */
+    public BlockAdsbDemodulator(FileChannel samplesChannel, ErrorCorrection correction) throws IOException {
+        this(samplesChannel, correction, PhaseCorrection.NONE);
+    }
+
+    /**
+     * Constructs a demodulator reading the samples straight from a file mapped in memory, which decodes again the messages
+     * whose CRC isn't 0 with the given phase correction, then repairs them when it can.
+     *
+     * @param samplesChannel  the channel of the file of samples to be demodulated (starting at its current position), closed by the caller
+     * @param correction      the error correction applied to the messages
+     * @param phaseCorrection the phase correction applied to the messages
+     * @throws IOException if an I/O error occurs while reading the size or the position of the channel
+     */
+    public BlockAdsbDemodulator(FileChannel samplesChannel, ErrorCorrection correction, PhaseCorrection phaseCorrection) throws IOException {
+        this.buffer = new PowerBuffer(new FusedPowerComputer(samplesChannel, PowerBuffer.BATCH_SIZE));
+        this.scanner = new MessageScanner(Objects.requireNonNull(correction), Objects.requireNonNull(phaseCorrection));
+    }
+
+    /**
+     * @return the number of positions which reached each stage of the demodulation so far
+     */
+    public DemodulationStatistics statistics() {
+        return scanner.statistics();
+    }
+
+    /**
+     * This method returns the next ADS-B message in the stream.
+     *
+     * @return the next ADS-B message in the stream, or null if the end of the stream has been reached
+     * @throws IOException if an error occurs while reading the stream
+     */
+    public RawMessage nextMessage() throws IOException {
+        CompactRawMessage message = nextCompactMessage();
+        return message == null ? null : message.toRawMessage();
+    }
+
+    /**
+     * This method returns the next ADS-B message in the stream, in the compact form in which it was demodulated,
+     * which doesn't allocate the ByteString of a RawMessage.
+     *
+     * @return the next ADS-B message in the stream, or null if the end of the stream has been reached
+     * @throws IOException if an error occurs while reading the stream
+     */
+    public CompactRawMessage nextCompactMessage() throws IOException {
+        return buffer.next(scanner::nextMessage, message -> message.timeStampNs() / SAMPLE_DURATION_NS + WINDOW_SIZE);
+    }
+}
@@ -0,0 +1,130 @@
+package ch.epfl.javions.demodulation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * This class counts how many positions reach each stage of the demodulation, so that the reject rate of each stage can be measured.
+ * The stages are, in order:
+ * <ol>
+ *     <li>the positions tested,</li>
+ *     <li>the candidates, whose preamble and Downlink Format pass the tests of AdsbDemodulator,</li>
+ *     <li>the three parity bytes, each of them compared to the CRC of the data as soon as it is decoded,</li>
+ *     <li>the messages returned, some of which may have been decoded again by the phase correction or repaired by the error correction.</li>
+ * </ol>
+ * A candidate rejected at a parity byte is one whose first wrong parity byte is that one, and which couldn't be recovered.
+ * The counters can be updated from several threads, as the chunks of ParallelAdsbDemodulator are demodulated concurrently.
+ */
+public final class DemodulationStatistics {
+    /**
+     * The number of parity bytes at the end of an ADS-B message
+     */
+    public static final int PARITY_BYTES = 3;
+    private final LongAdder positions = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder[] parityRejects = {new LongAdder(), new LongAdder(), new LongAdder()};
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder[] recovered = {new LongAdder(), new LongAdder()};
+    private final LongAdder rephased = new LongAdder();
+
+    /**
+     * @param count the number of positions which have just been tested
+     */
+    void countPositions(long count) {
+        positions.add(count);
+    }
+
+    /**
+     * Counts a position which passed the preamble and Downlink Format tests
+     */
+    void countCandidate() {
+        candidates.increment();
+    }
+
+    /**
+     * Counts a candidate rejected because of its i-th parity byte
+     *
+     * @param i the index of the parity byte (0 for the first one)
+     */
+    void countParityReject(int i) {
+        parityRejects[i].increment();
+    }
+
+    /**
+     * Counts a message repaired by the error correction
+     *
+     * @param flippedBits the number of bits flipped to repair it (1 or 2)
+     */
+    void countRecovered(int flippedBits) {
+        recovered[flippedBits - 1].increment();
+    }
+
+    /**
+     * Counts a message whose CRC became valid once decoded again by the phase correction
+     */
+    void countRephased() {
+        rephased.increment();
+    }
+
+    /**
+     * Counts a message whose CRC is valid
+     */
+    void countMessage() {
+        messages.increment();
+    }
+
+    /**
+     * @return the number of positions tested
+     */
+    public long positions() {
+        return positions.sum();
+    }
+
+    /**
+     * @return the number of positions which passed the preamble and Downlink Format tests
+     */
+    public long candidates() {
+        return candidates.sum();
+    }
+
+    /**
+     * @param i the index of the parity byte (0 for the first one)
+     * @return the number of candidates rejected because their i-th parity byte doesn't match the CRC of their data
+     * @throws IndexOutOfBoundsException if i is not in [0, PARITY_BYTES[
+     */
+    public long rejectedAtParityByte(int i) {
+        return parityRejects[i].sum();
+    }
+
+    /**
+     * @param flippedBits the number of bits flipped (1 or 2)
+     * @return the number of messages repaired by flipping the given number of bits
+     * @throws IndexOutOfBoundsException if the number of bits is not 1 or 2
+     */
+    public long recovered(int flippedBits) {
+        return recovered[flippedBits - 1].sum();
+    }
+
+    /**
+     * @return the number of messages whose CRC only became valid once decoded again by the phase correction
+     */
+    public long rephased() {
+        return rephased.sum();
+    }
+
+    /**
+     * @return the number of messages whose CRC is valid, repaired ones included
+     */
+    public long messages() {
+        return messages.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "DemodulationStatistics[positions=" + positions() + ", candidates=" + candidates()
+                + ", rejected at parity bytes=" + rejectedAtParityByte(0) + "/" + rejectedAtParityByte(1) + "/" + rejectedAtParityByte(2)
+                + ", messages=" + messages() + ", rephased=" + rephased() + ", recovered=" + recovered(1) + "/" + recovered(2) + "]";
+    }
+}
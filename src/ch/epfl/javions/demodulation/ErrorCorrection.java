@@ -0,0 +1,41 @@
+package ch.epfl.javions.demodulation;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The error correction applied by the demodulators to the messages whose CRC isn't 0.
+ * Correcting errors recovers messages damaged by noise, but also turns some random noise into messages:
+ * a random syndrome is taken for an error 1 time in 156796 with SINGLE_BIT, and 1 time in 2903 with TWO_BITS.
+ */
+public enum ErrorCorrection {
+    /**
+     * The messages whose CRC isn't 0 are dropped, as in AdsbDemodulator
+     */
+    NONE(0),
+    /**
+     * The messages with one wrong bit are repaired
+     */
+    SINGLE_BIT(1),
+    /**
+     * The messages with one or two wrong bits are repaired
+     */
+    TWO_BITS(2);
+
+    private final SyndromeTable table; // built once when the class is loaded
+
+    ErrorCorrection(int maxErrors) {
+        this.table = maxErrors == 0 ? null : new SyndromeTable(maxErrors);
+    }
+
+    /**
+     * Repairs a message whose CRC isn't 0
+     *
+     * @param bytes    the bytes of the message, modified in place if it can be repaired
+     * @param syndrome the CRC of the message (not 0)
+     * @return the number of bits flipped, 0 if the message can't be repaired
+     */
+    int correct(byte[] bytes, int syndrome) {
+        return table == null ? 0 : table.correct(bytes, syndrome);
+    }
+}
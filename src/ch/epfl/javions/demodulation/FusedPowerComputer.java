@@ -0,0 +1,114 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * This class computes the power samples of a stream of raw samples, or of a file of samples mapped in memory, and computes exactly the same power samples as PowerComputer,
+ * which remains the reference implementation.
+ * Instead of decoding the samples with a SamplesDecoder and then walking the ring of the last 8 samples for each power sample,
+ * it reads the raw bytes of a whole batch, decodes them in place and computes all the power samples with plain array indexing.
+ * A mapped file is decoded straight from its mapped window by a MappedSamplesDecoder, without copying its bytes to an array first.
+ * The last 6 samples of a batch, needed to compute the first power samples of the next one, are carried over to the beginning of the samples array.
+ * <p>
+ * Both loops have independent iterations and no modulo or branch in their bodies, so that the JIT compiler can vectorize them.
+ */
+public final class FusedPowerComputer implements PowerSource {
+    private static final int BIAS = 2048;
+    private static final int N = 8; // the number of samples used to calculate the power
+    private static final int CARRIED_SAMPLES = N - 2; // the samples of the previous batch used by the first power sample
+    private static final int BYTES_PER_POWER_SAMPLE = 2 * Short.BYTES; // a power sample is computed from 2 new samples of 2 bytes
+    // reads a little-endian short from a byte array, compiled by the JIT to a single load
+    private static final VarHandle LITTLE_ENDIAN_SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private final InputStream stream; // null if the samples are read from a mapped file
+    private final MappedSamplesDecoder mappedDecoder; // null if the samples are read from a stream
+    private final int batchSize;
+    private final byte[] bytes; // the raw bytes of the samples of a batch read from the stream
+    private final short[] samples; // the samples carried over from the previous batch followed by the samples of the batch
+
+    /**
+     * Creates a new FusedPowerComputer object that will read from the given input stream
+     *
+     * @param stream    the input stream to read from
+     * @param batchSize the size of the batch of power samples to be calculated (must be a multiple of 8 and strictly greater than 0)
+     * @throws NullPointerException     if the stream is null
+     * @throws IllegalArgumentException if the batch size is not a multiple of 8 or is negative
+     */
+    public FusedPowerComputer(InputStream stream, int batchSize) {
+        Preconditions.checkArgument(batchSize > 0 && batchSize % N == 0);
+        this.stream = Objects.requireNonNull(stream);
+        this.mappedDecoder = null;
+        this.batchSize = batchSize;
+        this.bytes = new byte[BYTES_PER_POWER_SAMPLE * batchSize];
+        this.samples = new short[CARRIED_SAMPLES + 2 * batchSize]; // the first samples are 0, as the ones of PowerComputer
+    }
+
+    /**
+     * Creates a new FusedPowerComputer object that will read the samples straight from the given file, mapped in memory
+     *
+     * @param channel   the channel of the file to read from (starting at its current position)
+     * @param batchSize the size of the batch of power samples to be calculated (must be a multiple of 8 and strictly greater than 0)
+     * @throws IOException              if an I/O error occurs while reading the size or the position of the channel
+     * @throws NullPointerException     if the channel is null
+     * @throws IllegalArgumentException if the batch size is not a multiple of 8 or is negative
+     */
+    public FusedPowerComputer(FileChannel channel, int batchSize) throws IOException {
+        Preconditions.checkArgument(batchSize > 0 && batchSize % N == 0);
+        this.stream = null;
+        this.mappedDecoder = new MappedSamplesDecoder(channel, 2 * batchSize);
+        this.batchSize = batchSize;
+        this.bytes = null;
+        this.samples = new short[CARRIED_SAMPLES + 2 * batchSize];
+    }
+
+    /**
+     * Reads a batch of samples from the input stream or the mapped file and computes the corresponding power samples
+     *
+     * @param batch the array that will contain the power samples
+     * @return number of power samples computed and written to the batch
+     * @throws IOException              if input or output error occurs
+     * @throws IllegalArgumentException if the size of the batch doesn't match the required size
+     */
+    @Override
+    public int readBatch(int... batch) throws IOException {
+        Preconditions.checkArgument(batch.length == batchSize);
+        // a last sample without the second one of its power sample is ignored, as by PowerComputer
+        int count = (mappedDecoder == null
+                ? decodeStreamSamples()
+                : mappedDecoder.readSamples(samples, CARRIED_SAMPLES, 2 * batchSize)) / 2;
+
+        for (int i = 0; i < count; i++) {
+            int j = 2 * i; // the oldest of the 8 samples of the power sample
+            int evenIndexes = samples[j] - samples[j + 2] + samples[j + 4] - samples[j + 6];
+            int oddIndexes = samples[j + 1] - samples[j + 3] + samples[j + 5] - samples[j + 7];
+            batch[i] = evenIndexes * evenIndexes + oddIndexes * oddIndexes;
+        }
+        System.arraycopy(samples, 2 * count, samples, 0, CARRIED_SAMPLES);
+        return count;
+    }
+
+    /**
+     * Reads the raw bytes of a batch from the input stream and decodes its samples after the ones carried over
+     *
+     * @return the number of samples decoded, which is even
+     * @throws IOException if input or output error occurs
+     */
+    private int decodeStreamSamples() throws IOException {
+        int count = 2 * (stream.readNBytes(bytes, 0, bytes.length) / BYTES_PER_POWER_SAMPLE);
+        for (int i = 0; i < count; i++) {
+            // same transformation as SamplesDecoder, the cast to short keeping the same result for out of range samples
+            samples[CARRIED_SAMPLES + i] = (short) ((short) LITTLE_ENDIAN_SHORT.get(bytes, Short.BYTES * i) - BIAS);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,119 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * This class decodes batches of samples straight from a file mapped in memory, and returns exactly the same samples as SamplesDecoder.
+ * Unlike SamplesDecoder, it doesn't copy the bytes of the file to an intermediate array nor does it make a system call for each batch:
+ * the samples are read from the mapped little-endian region and written directly to the batch.
+ * A mapped region can't be bigger than 2 GB, so the file is mapped by windows which are remapped as the samples are read.
+ * <p>
+ * The samples are read from the current position of the channel, and the channel is neither moved nor closed by this class.
+ */
+public final class MappedSamplesDecoder implements SamplesSource {
+    private static final int BIAS = 2048;
+    private static final long DEFAULT_WINDOW_SIZE = 1L << 30; // 1 GB, a mapped region can't exceed 2 GB
+    private final FileChannel channel;
+    private final int batchSize; // the size of the batch of samples to read
+    private final long windowSize; // the number of bytes mapped at once
+    private final long end; // the size of the file, in bytes
+    private MappedByteBuffer window; // the region of the file which is currently mapped
+    private long windowStart; // the position in the file of the first byte of the window
+    private long position; // the position in the file of the next sample to read
+
+    /**
+     * The constructor of the MappedSamplesDecoder class that takes a file channel and a batch size
+     *
+     * @param channel   the channel of the file that contains the samples to decode / cannot be null
+     * @param batchSize the size of the batch / cannot be negative
+     * @throws IOException              if an I/O error occurs while reading the size or the position of the channel
+     * @throws NullPointerException     if the channel is null
+     * @throws IllegalArgumentException if the batch size is negative
+     */
+    public MappedSamplesDecoder(FileChannel channel, int batchSize) throws IOException {
+        this(channel, batchSize, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * The constructor of the MappedSamplesDecoder class that also takes the size of the mapped windows (only used by the tests)
+     *
+     * @param channel    the channel of the file that contains the samples to decode / cannot be null
+     * @param batchSize  the size of the batch / cannot be negative
+     * @param windowSize the number of bytes mapped at once (it is enlarged to at least one batch)
+     * @throws IOException              if an I/O error occurs while reading the size or the position of the channel
+     * @throws NullPointerException     if the channel is null
+     * @throws IllegalArgumentException if the batch size or the window size is negative
+     */
+    MappedSamplesDecoder(FileChannel channel, int batchSize, long windowSize) throws IOException {
+        Preconditions.checkArgument(batchSize > 0 && windowSize > 0);
+        this.channel = Objects.requireNonNull(channel);
+        this.batchSize = batchSize;
+        this.windowSize = Math.min(Integer.MAX_VALUE, Math.max(windowSize, (long) Short.BYTES * batchSize));
+        this.position = channel.position();
+        this.end = channel.size();
+    }
+
+    /**
+     * Reads a batch of samples from the mapped file
+     *
+     * @param batch the array of shorts that will contain the samples
+     * @return the number of samples read and actually stored in the batch (if the end of the file is reached, it will be less than the batch size)
+     * @throws IOException              if an I/O error occurs while mapping the file
+     * @throws IllegalArgumentException if the size of the batch doesn't match the required size
+     */
+    @Override
+    public int readBatch(short... batch) throws IOException {
+        Preconditions.checkArgument(batch.length == batchSize);
+        return readSamples(batch, 0, batchSize);
+    }
+
+    /**
+     * Reads samples from the mapped file and writes them at the given offset of an array, which lets FusedPowerComputer
+     * decode them straight after the samples it carries over from its previous batch
+     *
+     * @param samples  the array that will contain the samples
+     * @param offset   the index of the array at which the first sample is written
+     * @param maxCount the maximum number of samples to read, at most the batch size
+     * @return the number of samples read and actually stored in the array (less than maxCount once the end of the file is reached)
+     * @throws IOException if an I/O error occurs while mapping the file
+     */
+    int readSamples(short[] samples, int offset, int maxCount) throws IOException {
+        int count = (int) Math.min(maxCount, Math.max(0, end - position) / Short.BYTES);
+        if (count == 0) {
+            return 0;
+        }
+        mapWindow((long) Short.BYTES * count);
+
+        int windowOffset = (int) (position - windowStart);
+        for (int i = 0; i < count; i++) {
+            // the samples are stored as unsigned 12 bits little-endian numbers
+            samples[offset + i] = (short) (Short.toUnsignedInt(window.getShort(windowOffset + Short.BYTES * i)) - BIAS);
+        }
+        position += (long) Short.BYTES * count;
+        return count;
+    }
+
+    /**
+     * Maps a new window starting at the current position if the current one doesn't contain the next bytes to read
+     *
+     * @param length the number of bytes that will be read from the current position
+     * @throws IOException if an I/O error occurs while mapping the file
+     */
+    private void mapWindow(long length) throws IOException {
+        if (window != null && position + length <= windowStart + window.capacity()) {
+            return;
+        }
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(windowSize, end - windowStart));
+        window.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,405 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.Crc24;
+import ch.epfl.javions.adsb.CompactRawMessage;
+import ch.epfl.javions.adsb.ModeSFrame;
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * This class looks for ADS-B messages in a contiguous array of power samples.
+ * It applies exactly the same tests as AdsbDemodulator, but reads the samples straight from the array
+ * instead of going through the bounds-checked circular PowerWindow. The tests are done by a PreambleDetector on blocks of positions,
+ * and only the candidate positions it returns are decoded.
+ * The caller is responsible for keeping the power samples of a whole message (WINDOW_SIZE samples) available
+ * after every position that is tested.
+ */
+final class MessageScanner {
+    /**
+     * The number of power samples covered by an ADS-B message (preamble included)
+     */
+    static final int WINDOW_SIZE = 1200;
+    /**
+     * The duration of a power sample in nanoseconds, used to compute the time stamp of the messages
+     */
+    static final int SAMPLE_DURATION_NS = 100;
+    /**
+     * The bitmask of the Downlink Formats of the ADS-B messages (only 17)
+     */
+    static final int ADSB_FORMATS = 1 << 17;
+    private static final int DF_ALL_CALL_REPLY = 11;
+    private static final int DF_ADSB = 17;
+    private static final int DF_NON_TRANSPONDER = 18;
+    private static final int INTERROGATOR_MASK = 0x7F; // the bits of the interrogator code which a DF 11 parity may contain
+    private static final int DATA_BYTES = RawMessage.LENGTH - DemodulationStatistics.PARITY_BYTES; // the bytes covered by the CRC
+    private static final Crc24 CRC = new Crc24(Crc24.GENERATOR);
+    // the detectors are stateless, so they can be shared
+    private static final PreambleDetector DEFAULT_DETECTOR = PreambleDetector.best(ADSB_FORMATS);
+    private final PreambleDetector detector;
+    private final ErrorCorrection correction;
+    private final PhaseCorrection phaseCorrection;
+    private final DemodulationStatistics statistics = new DemodulationStatistics();
+
+    /**
+     * Constructs a scanner of ADS-B messages using the fastest preamble detector available.
+     *
+     * @param correction the error correction applied to the messages whose CRC isn't 0
+     */
+    MessageScanner(ErrorCorrection correction) {
+        this(correction, PhaseCorrection.NONE);
+    }
+
+    /**
+     * Constructs a scanner of ADS-B messages using the fastest preamble detector available.
+     *
+     * @param correction      the error correction applied to the messages whose CRC isn't 0
+     * @param phaseCorrection the phase correction tried before the error correction on the messages whose CRC isn't 0
+     */
+    MessageScanner(ErrorCorrection correction, PhaseCorrection phaseCorrection) {
+        this(DEFAULT_DETECTOR, correction, phaseCorrection);
+    }
+
+    /**
+     * Constructs a scanner using the given preamble detector.
+     *
+     * @param detector   the detector used to find the positions where a message may start, which defines the Downlink Formats accepted
+     * @param correction the error correction applied to the messages whose CRC isn't 0
+     */
+    MessageScanner(PreambleDetector detector, ErrorCorrection correction) {
+        this(detector, correction, PhaseCorrection.NONE);
+    }
+
+    /**
+     * Constructs a scanner using the given preamble detector, which decodes again the messages whose CRC isn't 0 with the given phase correction.
+     *
+     * @param detector        the detector used to find the positions where a message may start, which defines the Downlink Formats accepted
+     * @param correction      the error correction applied to the messages whose CRC isn't 0
+     * @param phaseCorrection the phase correction tried before the error correction on the messages whose CRC isn't 0
+     */
+    MessageScanner(PreambleDetector detector, ErrorCorrection correction, PhaseCorrection phaseCorrection) {
+        this.detector = detector;
+        this.correction = correction;
+        this.phaseCorrection = phaseCorrection;
+    }
+
+    /**
+     * @return the counters of the positions which reached each stage of the demodulation in this scanner
+     */
+    DemodulationStatistics statistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the first ADS-B message found at a position in [from, to[ of the given power samples.
+     *
+     * @param power         the power samples (power[to - 1 + WINDOW_SIZE] must be valid)
+     * @param from          the first position to test
+     * @param to            the position (exclusive) at which the scan stops
+     * @param firstIndex    the index in the whole stream of power[0] (used for the time stamps)
+     * @param previousPower the sum Sigma P at the position preceding from (0 if it should be ignored)
+     * @return the first message found, or null if there is none in the range
+     */
+    CompactRawMessage nextMessage(int[] power, int from, int to, long firstIndex, int previousPower) {
+        return next(power, from, to, firstIndex, previousPower, this::message);
+    }
+
+    /**
+     * Returns the first Mode S frame of one of the Downlink Formats accepted by the detector found at a position in [from, to[.
+     *
+     * @param power          the power samples (power[to - 1 + WINDOW_SIZE] must be valid)
+     * @param from           the first position to test
+     * @param to             the position (exclusive) at which the scan stops
+     * @param firstIndex     the index in the whole stream of power[0] (used for the time stamps)
+     * @param previousPower  the sum Sigma P at the position preceding from (0 if it should be ignored)
+     * @param knownAddresses the addresses of the frames found recently, to which the addresses of the new frames are added
+     * @return the first frame found, or null if there is none in the range
+     */
+    ModeSFrame nextFrame(int[] power, int from, int to, long firstIndex, int previousPower, RecentAddresses knownAddresses) {
+        return next(power, from, to, firstIndex, previousPower,
+                (p, position, index) -> frame(p, position, index, knownAddresses));
+    }
+
+    /**
+     * Returns the first valid message decoded at a candidate position in [from, to[.
+     *
+     * @param power         the power samples
+     * @param from          the first position to test
+     * @param to            the position (exclusive) at which the scan stops
+     * @param firstIndex    the index in the whole stream of power[0]
+     * @param previousPower the sum Sigma P at the position preceding from (0 if it should be ignored)
+     * @param decoder       the decoder of the candidates
+     * @param <T>           the type of the messages
+     * @return the first message decoded, or null if there is none in the range
+     */
+    private <T> T next(int[] power, int from, int to, long firstIndex, int previousPower, CandidateDecoder<T> decoder) {
+        if (from >= to) {
+            return null;
+        }
+        // the first position is compared to the given previous power instead of the sample before it, so it isn't given to the detector
+        if (isCandidate(power, from, previousPower, sigmaP(power, from), sigmaP(power, from + 1), detector.formats())) {
+            T message = decoder.decode(power, from, firstIndex);
+            if (message != null) {
+                statistics.countPositions(1);
+                return message;
+            }
+        }
+        for (int block = from + 1; block < to; block += PreambleDetector.POSITIONS) {
+            long candidates = detector.candidates(power, block);
+            if (to - block < PreambleDetector.POSITIONS) {
+                candidates &= (1L << (to - block)) - 1; // the positions after to are not part of the scan
+            }
+            // only the few candidates are fully decoded, in order
+            for (; candidates != 0; candidates &= candidates - 1) {
+                int position = block + Long.numberOfTrailingZeros(candidates);
+                T message = decoder.decode(power, position, firstIndex);
+                if (message != null) {
+                    statistics.countPositions(position - from + 1);
+                    return message;
+                }
+            }
+        }
+        statistics.countPositions(to - from);
+        return null;
+    }
+
+    /**
+     * Applies the tests of AdsbDemodulator to a position, from the cheapest to the most expensive one.
+     *
+     * @param power         the power samples
+     * @param position      the position tested
+     * @param previousPower the sum Sigma P of the previous position
+     * @param currentPower  the sum Sigma P of the position
+     * @param nextPower     the sum Sigma P of the next position
+     * @param formats       the bitmask of the accepted Downlink Formats
+     * @return true if a message may start at the given position
+     */
+    static boolean isCandidate(int[] power, int position, int previousPower, int currentPower, int nextPower, int formats) {
+        return currentPower >= previousPower && currentPower >= nextPower
+                && (formats >>> downLinkFormat(power, position) & 1) != 0
+                && currentPower >= 2 * sigmaV(power, position);
+    }
+
+    /**
+     * Decodes the message starting at a candidate position in stages, to reject the invalid ones as early as possible.
+     * The data bytes are decoded into a running CRC, which gives the expected parity bytes of the message.
+     * Then each parity byte is decoded and compared to the expected one, so that most of the invalid candidates are rejected
+     * at the first parity byte (unless they can be repaired). The bytes are gathered in the two longs of a CompactRawMessage
+     * as they are decoded, so that a valid message allocates nothing but its record.
+     *
+     * @param power      the power samples
+     * @param position   the position of the message
+     * @param firstIndex the index in the whole stream of power[0]
+     * @return the message starting at the given position, or null if its CRC is invalid and it can't be repaired
+     */
+    private CompactRawMessage message(int[] power, int position, long firstIndex) {
+        statistics.countCandidate();
+        int crc = 0;
+        long high = 0; // the bytes of the message are gathered as they are decoded, for a CompactRawMessage
+        long low = 0;
+        for (int i = 0; i < DATA_BYTES; i++) {
+            int b = byteAt(power, position, i);
+            crc = CRC.update(crc, (byte) b);
+            if (i < Long.BYTES) {
+                high = high << Byte.SIZE | b;
+            } else {
+                low = low << Byte.SIZE | b;
+            }
+        }
+        // the CRC of a whole message is 0 if and only if its parity bytes are the CRC of its data
+        for (int i = 0; i < DemodulationStatistics.PARITY_BYTES; i++) {
+            int expected = (crc >> (DemodulationStatistics.PARITY_BYTES - 1 - i) * Byte.SIZE) & 0xff;
+            if (byteAt(power, position, DATA_BYTES + i) != expected) {
+                return retry(power, position, firstIndex, i);
+            }
+            low = low << Byte.SIZE | expected;
+        }
+        statistics.countMessage();
+        return new CompactRawMessage((firstIndex + position) * SAMPLE_DURATION_NS, high, low);
+    }
+
+    /**
+     * Tries to recover a message whose CRC isn't 0, first by decoding it again with the phase correction of the scanner,
+     * then by repairing the bits decoded at the fixed offsets with its error correction.
+     *
+     * @param power      the power samples
+     * @param position   the position of the message
+     * @param firstIndex the index in the whole stream of power[0]
+     * @param parityByte the index of the first parity byte which doesn't match the CRC of the data
+     * @return the recovered message, or null if it can't be recovered
+     */
+    private CompactRawMessage retry(int[] power, int position, long firstIndex, int parityByte) {
+        byte[] bytes = phaseCorrection.decode(power, position, RawMessage.LENGTH);
+        // the Downlink Format may have changed too, it must still be the one of an ADS-B message
+        if (bytes != null && (bytes[0] & 0xff) >>> 3 == DF_ADSB && CRC.crc(bytes) == 0) {
+            statistics.countRephased();
+            statistics.countMessage();
+            return CompactRawMessage.ofValid((firstIndex + position) * SAMPLE_DURATION_NS, bytes, 0);
+        }
+        return correction == ErrorCorrection.NONE ? reject(parityByte) : repair(power, position, firstIndex, parityByte);
+    }
+
+    /**
+     * Tries to repair a message whose CRC isn't 0 with the error correction of the scanner.
+     *
+     * @param power      the power samples
+     * @param position   the position of the message
+     * @param firstIndex the index in the whole stream of power[0]
+     * @param parityByte the index of the first parity byte which doesn't match the CRC of the data
+     * @return the repaired message, or null if it can't be repaired
+     */
+    private CompactRawMessage repair(int[] power, int position, long firstIndex, int parityByte) {
+        byte[] bytes = bytes(power, position, RawMessage.LENGTH);
+        int flipped = correction.correct(bytes, CRC.crc(bytes));
+        if (flipped == 0) {
+            return reject(parityByte);
+        }
+        statistics.countRecovered(flipped);
+        statistics.countMessage();
+        return CompactRawMessage.ofValid((firstIndex + position) * SAMPLE_DURATION_NS, bytes, 0);
+    }
+
+    /**
+     * @param parityByte the index of the first parity byte which doesn't match the CRC of the data
+     * @param <T>        the type of the messages
+     * @return null, after counting the rejected candidate
+     */
+    private <T> T reject(int parityByte) {
+        statistics.countParityReject(parityByte);
+        return null;
+    }
+
+    /**
+     * Decodes the Mode S frame starting at a candidate position and validates its parity according to its Downlink Format:
+     * <ul>
+     *     <li>the parity of the extended squitters (DF 17 and 18) is the CRC of their data,</li>
+     *     <li>the parity of the all-call replies (DF 11) is the CRC of their data xored with the code of the interrogator, in its 7 last bits,</li>
+     *     <li>the parity of the other formats is the CRC of their data xored with the address of the aircraft,
+     *     which must be the address of a frame of the first two groups found recently, as any random frame would give an address.</li>
+     * </ul>
+     *
+     * @param power          the power samples
+     * @param position       the position of the frame
+     * @param firstIndex     the index in the whole stream of power[0]
+     * @param knownAddresses the addresses of the frames found recently
+     * @return the frame starting at the given position, or null if its parity is invalid
+     */
+    private ModeSFrame frame(int[] power, int position, long firstIndex, RecentAddresses knownAddresses) {
+        statistics.countCandidate();
+        int downLinkFormat = downLinkFormat(power, position);
+        int length = ModeSFrame.length(downLinkFormat);
+        int dataBytes = length - DemodulationStatistics.PARITY_BYTES;
+        int crc = 0;
+        for (int i = 0; i < dataBytes; i++) {
+            crc = CRC.update(crc, (byte) byteAt(power, position, i));
+        }
+        int parity = 0;
+        for (int i = 0; i < DemodulationStatistics.PARITY_BYTES; i++) {
+            parity = parity << Byte.SIZE | byteAt(power, position, dataBytes + i);
+        }
+        int syndrome = crc ^ parity;
+
+        int address;
+        switch (downLinkFormat) {
+            case DF_ADSB, DF_NON_TRANSPONDER, DF_ALL_CALL_REPLY -> {
+                int error = downLinkFormat == DF_ALL_CALL_REPLY ? syndrome & ~INTERROGATOR_MASK : syndrome;
+                if (error != 0) {
+                    return reject(Integer.numberOfLeadingZeros(error) / Byte.SIZE - 1); // the first parity byte which differs
+                }
+                address = byteAt(power, position, 1) << 2 * Byte.SIZE | byteAt(power, position, 2) << Byte.SIZE
+                        | byteAt(power, position, 3);
+                knownAddresses.add(address, firstIndex + position);
+            }
+            default -> {
+                address = syndrome;
+                if (!knownAddresses.contains(address, firstIndex + position)) {
+                    return reject(0);
+                }
+            }
+        }
+        statistics.countMessage();
+        return new ModeSFrame((firstIndex + position) * SAMPLE_DURATION_NS, new ByteString(bytes(power, position, length)),
+                IcaoAddress.of(address));
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the position of the message
+     * @return the sum Sigma P of the preamble starting at the given position
+     */
+    static int sigmaP(int[] power, int position) {
+        return power[position] + power[position + 10] + power[position + 35] + power[position + 45];
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the position of the message
+     * @return the sum Sigma V of the preamble starting at the given position
+     */
+    static int sigmaV(int[] power, int position) {
+        return power[position + 5] + power[position + 15] + power[position + 20]
+                + power[position + 25] + power[position + 30] + power[position + 40];
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the position of the message
+     * @return the DF of the message starting at the given position
+     */
+    static int downLinkFormat(int[] power, int position) {
+        return bitAt(power, position, 0) << 4 | bitAt(power, position, 1) << 3 | bitAt(power, position, 2) << 2
+                | bitAt(power, position, 3) << 1 | bitAt(power, position, 4);
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the position of the message
+     * @param i        the index of the bit
+     * @return the i-th bit of the message starting at the given position
+     */
+    private static int bitAt(int[] power, int position, int i) {
+        int index = position + 80 + 10 * i;
+        return power[index] < power[index + 5] ? 0 : 1;
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the position of the message
+     * @param length   the length of the message in bytes
+     * @return all the bytes of the message starting at the given position
+     */
+    private static byte[] bytes(int[] power, int position, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) byteAt(power, position, i);
+        }
+        return bytes;
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the position of the message
+     * @param i        the index of the byte
+     * @return the i-th byte of the message starting at the given position, as an unsigned value
+     */
+    private static int byteAt(int[] power, int position, int i) {
+        int b = 0;
+        for (int j = 0; j < Byte.SIZE; j++) {
+            b = b << 1 | bitAt(power, position, i * Byte.SIZE + j);
+        }
+        return b;
+    }
+
+    /**
+     * Decodes the message starting at a candidate position, or returns null if it is invalid.
+     *
+     * @param <T> the type of the messages
+     */
+    @FunctionalInterface
+    private interface CandidateDecoder<T> {
+        T decode(int[] power, int position, long firstIndex);
+    }
+}
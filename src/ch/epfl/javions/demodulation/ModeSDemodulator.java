@@ -0,0 +1,77 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.adsb.ModeSFrame;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+import static ch.epfl.javions.demodulation.MessageScanner.SAMPLE_DURATION_NS;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * This class demodulates the Mode S frames of a set of Downlink Formats from a stream of samples, short (56 bits) as well as long (112 bits).
+ * It scans the power samples like BlockAdsbDemodulator, the Downlink Formats which aren't wanted being rejected by the preamble detector
+ * as cheaply as the ones other than 17 are rejected when only ADS-B messages are demodulated.
+ * <p>
+ * The replies of DF 0, 4, 5, 16, 20 and 21 carry the address of the aircraft xored with their parity.
+ * They are only accepted if that address has been seen in a frame with a plain parity (DF 11, 17 or 18) within the last
+ * 60 seconds of samples, so those formats should be demodulated with at least one of the latter.
+ */
+public final class ModeSDemodulator {
+    /**
+     * The Downlink Formats which can be demodulated
+     */
+    public static final Set<Integer> SUPPORTED_FORMATS = Set.of(0, 4, 5, 11, 16, 17, 18, 20, 21);
+    private static final int PREAMBLE_SIZE = 80; // in samples, 8 µs
+    private static final int SAMPLES_PER_BIT = 10; // 1 µs
+    private final PowerBuffer buffer;
+    private final MessageScanner scanner;
+    private final RecentAddresses knownAddresses = new RecentAddresses();
+
+    /**
+     * Constructs a demodulator of all the supported Downlink Formats
+     *
+     * @param samplesStream the stream of samples to be demodulated
+     */
+    public ModeSDemodulator(InputStream samplesStream) {
+        this(samplesStream, SUPPORTED_FORMATS);
+    }
+
+    /**
+     * @param samplesStream   the stream of samples to be demodulated
+     * @param downLinkFormats the Downlink Formats of the frames to be returned
+     * @throws IllegalArgumentException if there is no Downlink Format or one of them isn't supported
+     */
+    public ModeSDemodulator(InputStream samplesStream, Set<Integer> downLinkFormats) {
+        Preconditions.checkArgument(!downLinkFormats.isEmpty() && SUPPORTED_FORMATS.containsAll(downLinkFormats));
+        int formats = 0;
+        for (int downLinkFormat : downLinkFormats) {
+            formats |= 1 << downLinkFormat;
+        }
+        this.buffer = new PowerBuffer(new FusedPowerComputer(samplesStream, PowerBuffer.BATCH_SIZE));
+        this.scanner = new MessageScanner(PreambleDetector.best(formats), ErrorCorrection.NONE);
+    }
+
+    /**
+     * @return the number of positions which reached each stage of the demodulation so far
+     */
+    public DemodulationStatistics statistics() {
+        return scanner.statistics();
+    }
+
+    /**
+     * This method returns the next frame in the stream whose Downlink Format is one of the wanted ones.
+     *
+     * @return the next frame in the stream, or null if the end of the stream has been reached
+     * @throws IOException if an error occurs while reading the stream
+     */
+    public ModeSFrame nextFrame() throws IOException {
+        // as for the messages, the positions covered by a frame are skipped
+        return buffer.next(
+                (power, from, to, firstIndex, previousPower) -> scanner.nextFrame(power, from, to, firstIndex, previousPower, knownAddresses),
+                frame -> frame.timeStampNs() / SAMPLE_DURATION_NS + PREAMBLE_SIZE + frame.bytes().size() * Byte.SIZE * SAMPLES_PER_BIT);
+    }
+}
@@ -0,0 +1,292 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.adsb.CompactRawMessage;
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static ch.epfl.javions.demodulation.MessageScanner.SAMPLE_DURATION_NS;
+import static ch.epfl.javions.demodulation.MessageScanner.WINDOW_SIZE;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * This class demodulates ADS-B messages from a stream of samples on several threads and returns exactly the same messages as AdsbDemodulator.
+ * The stream is split into chunks of positions which are demodulated independently on a fork-join pool.
+ * Each chunk also contains the samples of the message that can start at its last position, so consecutive chunks overlap by one message length.
+ * <p>
+ * The chunks are merged back in order on the thread calling nextMessage. A chunk is demodulated as if the previous position had just been tested,
+ * which is what the sequential demodulator does unless a message found near the end of the previous chunk makes it skip past the beginning of this one.
+ * In that case, the messages of the chunk that were found in the overlap are dropped and the chunk is scanned again from the end of that message.
+ */
+public final class ParallelAdsbDemodulator {
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 18; // the number of positions tested by a chunk
+    // the number of power samples computed before the first position of a chunk: 3 to fill the power computer, 1 for the previous Sigma P
+    private static final int WARM_UP = 4;
+    private static final int BYTES_PER_POWER_SAMPLE = 2 * Short.BYTES; // a power sample is computed from 2 samples of 2 bytes
+    private final InputStream samplesStream;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final MessageScanner scanner;
+    private final Queue<Future<Chunk>> chunksInFlight = new ArrayDeque<>();
+    private final Queue<CompactRawMessage> messages = new ArrayDeque<>(); // the merged messages not returned yet
+    private byte[] lastChunkBytes; // the bytes of the last chunk read, whose end is the beginning of the next one
+    private long lastChunkEndIndex; // the index (exclusive) of the last power sample of the last chunk read
+    private int chunksRead;
+    private boolean endOfStream;
+    private long resumePosition = -1; // the position at which the sequential demodulator resumes after the last message merged
+
+    /**
+     * Constructs a parallel demodulator using the common fork-join pool and the default chunk size.
+     *
+     * @param samplesStream the stream of samples to be demodulated
+     * @throws NullPointerException if the stream is null
+     */
+    public ParallelAdsbDemodulator(InputStream samplesStream) {
+        this(samplesStream, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a parallel demodulator.
+     *
+     * @param samplesStream the stream of samples to be demodulated
+     * @param pool          the pool on which the chunks are demodulated
+     * @param chunkSize     the number of positions tested by each chunk (strictly positive)
+     * @throws NullPointerException     if the stream or the pool is null
+     * @throws IllegalArgumentException if the chunk size is not strictly positive
+     */
+    public ParallelAdsbDemodulator(InputStream samplesStream, ForkJoinPool pool, int chunkSize) {
+        this(samplesStream, pool, chunkSize, ErrorCorrection.NONE);
+    }
+
+    /**
+     * Constructs a parallel demodulator which repairs the messages whose CRC isn't 0 when it can.
+     * It returns the same messages as a BlockAdsbDemodulator using the same error correction.
+     *
+     * @param samplesStream the stream of samples to be demodulated
+     * @param pool          the pool on which the chunks are demodulated
+     * @param chunkSize     the number of positions tested by each chunk (strictly positive)
+     * @param correction    the error correction applied to the messages
+     * @throws NullPointerException     if the stream, the pool or the error correction is null
+     * @throws IllegalArgumentException if the chunk size is not strictly positive
+     */
+    public ParallelAdsbDemodulator(InputStream samplesStream, ForkJoinPool pool, int chunkSize, ErrorCorrection correction) {
+        this(samplesStream, pool, chunkSize, correction, PhaseCorrection.NONE);
+    }
+
+    /**
+     * Constructs a parallel demodulator which decodes again the messages whose CRC isn't 0 with the given phase correction,
+     * then repairs them when it can. It returns the same messages as a BlockAdsbDemodulator using the same corrections.
+     *
+     * @param samplesStream   the stream of samples to be demodulated
+     * @param pool            the pool on which the chunks are demodulated
+     * @param chunkSize       the number of positions tested by each chunk (strictly positive)
+     * @param correction      the error correction applied to the messages
+     * @param phaseCorrection the phase correction applied to the messages
+     * @throws NullPointerException     if the stream, the pool or one of the corrections is null
+     * @throws IllegalArgumentException if the chunk size is not strictly positive
+     */
+    public ParallelAdsbDemodulator(InputStream samplesStream, ForkJoinPool pool, int chunkSize, ErrorCorrection correction,
+                                   PhaseCorrection phaseCorrection) {
+        Preconditions.checkArgument(chunkSize > 0);
+        this.samplesStream = Objects.requireNonNull(samplesStream);
+        this.pool = Objects.requireNonNull(pool);
+        this.scanner = new MessageScanner(Objects.requireNonNull(correction), Objects.requireNonNull(phaseCorrection));
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = 2 * pool.getParallelism(); // enough to keep the pool busy while a chunk is being merged
+    }
+
+    /**
+     * @return the number of positions which reached each stage of the demodulation so far (the positions of the chunks scanned again are counted twice)
+     */
+    public DemodulationStatistics statistics() {
+        return scanner.statistics();
+    }
+
+    /**
+     * This method returns the next ADS-B message in the stream.
+     *
+     * @return the next ADS-B message in the stream, or null if the end of the stream has been reached
+     * @throws IOException if an error occurs while reading the stream
+     */
+    public RawMessage nextMessage() throws IOException {
+        CompactRawMessage message = nextCompactMessage();
+        return message == null ? null : message.toRawMessage();
+    }
+
+    /**
+     * This method returns the next ADS-B message in the stream, in the compact form in which it was demodulated.
+     *
+     * @return the next ADS-B message in the stream, or null if the end of the stream has been reached
+     * @throws IOException if an error occurs while reading the stream
+     */
+    public CompactRawMessage nextCompactMessage() throws IOException {
+        while (messages.isEmpty()) {
+            if (!mergeNextChunk()) {
+                return null;
+            }
+        }
+        return messages.poll();
+    }
+
+    /**
+     * Submits new chunks to the pool as long as there is room for them, then waits for the oldest one and merges its messages.
+     *
+     * @return false if all the chunks have already been merged, true otherwise
+     * @throws IOException if an error occurs while reading the stream
+     */
+    private boolean mergeNextChunk() throws IOException {
+        while (!endOfStream && chunksInFlight.size() < maxChunksInFlight) {
+            submitNextChunk();
+        }
+        Future<Chunk> next = chunksInFlight.poll();
+        if (next == null) {
+            return false;
+        }
+        Chunk chunk = join(next);
+        List<CompactRawMessage> chunkMessages = chunk.messages();
+        if (resumePosition >= chunk.firstPosition()) {
+            // the sequential demodulator doesn't test the beginning of this chunk: scan it again from the right position
+            chunkMessages = chunk.scan(scanner, resumePosition, 0);
+        }
+        if (!chunkMessages.isEmpty()) {
+            CompactRawMessage last = chunkMessages.get(chunkMessages.size() - 1);
+            resumePosition = last.timeStampNs() / SAMPLE_DURATION_NS + WINDOW_SIZE;
+            messages.addAll(chunkMessages);
+        }
+        return true;
+    }
+
+    /**
+     * Reads the bytes of the next chunk from the stream and submits its demodulation to the pool.
+     *
+     * @throws IOException if an error occurs while reading the stream
+     */
+    private void submitNextChunk() throws IOException {
+        long firstPosition = (long) chunksRead * chunkSize;
+        long firstIndex = Math.max(0, firstPosition - WARM_UP);
+        // the chunk needs the power samples of a whole message after its last position
+        long lastIndex = firstPosition + chunkSize + WINDOW_SIZE - 1;
+        byte[] bytes = new byte[Math.toIntExact((lastIndex - firstIndex) * BYTES_PER_POWER_SAMPLE)];
+
+        int overlap = 0;
+        if (lastChunkBytes != null) {
+            overlap = (int) (lastChunkEndIndex - firstIndex) * BYTES_PER_POWER_SAMPLE;
+            System.arraycopy(lastChunkBytes, lastChunkBytes.length - overlap, bytes, 0, overlap);
+        }
+        int read = samplesStream.readNBytes(bytes, overlap, bytes.length - overlap);
+        if (read < bytes.length - overlap) {
+            endOfStream = true;
+            if (read == 0 && lastChunkBytes != null) {
+                return; // the overlap alone doesn't contain any position
+            }
+        }
+        lastChunkBytes = bytes;
+        lastChunkEndIndex = lastIndex;
+        chunksRead++;
+
+        int length = overlap + read;
+        chunksInFlight.add(pool.submit(() -> demodulate(bytes, length, firstIndex, firstPosition)));
+    }
+
+    /**
+     * Computes the power samples of a chunk and demodulates the messages of its positions. This method is run by the pool.
+     *
+     * @param bytes         the bytes of the samples of the chunk
+     * @param length        the number of valid bytes
+     * @param firstIndex    the index in the whole stream of the first power sample of the chunk
+     * @param firstPosition the first position tested by the chunk
+     * @return the demodulated chunk
+     * @throws IOException never in practice, as the samples are read from an array
+     */
+    private Chunk demodulate(byte[] bytes, int length, long firstIndex, long firstPosition) throws IOException {
+        int batchSize = Math.max(Byte.SIZE, (length / BYTES_PER_POWER_SAMPLE + Byte.SIZE - 1) / Byte.SIZE * Byte.SIZE);
+        int[] power = new int[batchSize];
+        int count = new FusedPowerComputer(new ByteArrayInputStream(bytes, 0, length), batchSize).readBatch(power);
+
+        int from = (int) (firstPosition - firstIndex);
+        int limit = Math.min(from + chunkSize, count - WINDOW_SIZE + 1);
+        Chunk chunk = new Chunk(power, firstIndex, from, limit, List.of());
+        if (from >= limit) {
+            return chunk;
+        }
+        // the first chunk starts like the sequential demodulator, the others as if the previous position had just been tested
+        int previousPower = from == 0 ? 0 : MessageScanner.sigmaP(power, from - 1);
+        return new Chunk(power, firstIndex, from, limit, chunk.scan(scanner, firstPosition, previousPower));
+    }
+
+    /**
+     * Waits for a chunk to be demodulated.
+     *
+     * @param future the future result of the demodulation
+     * @return the demodulated chunk
+     * @throws IOException if the thread is interrupted or if the demodulation failed
+     */
+    private static Chunk join(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * A chunk of power samples and the messages that were found in it.
+     *
+     * @param power      the power samples of the chunk
+     * @param firstIndex the index in the whole stream of power[0]
+     * @param from       the index in power of the first position of the chunk
+     * @param limit      the index in power at which the positions of the chunk stop
+     * @param messages   the messages found in the chunk, in order
+     */
+    private record Chunk(int[] power, long firstIndex, int from, int limit, List<CompactRawMessage> messages) {
+        /**
+         * @return the first position of the chunk in the whole stream
+         */
+        long firstPosition() {
+            return firstIndex + from;
+        }
+
+        /**
+         * Finds all the messages of the chunk starting from the given position, the way successive calls to nextMessage would.
+         *
+         * @param scanner       the scanner used to find the messages
+         * @param position      the position in the whole stream at which the scan starts
+         * @param previousPower the sum Sigma P at the position preceding the first one
+         * @return the messages found, in order
+         */
+        List<CompactRawMessage> scan(MessageScanner scanner, long position, int previousPower) {
+            List<CompactRawMessage> found = new ArrayList<>();
+            int next = (int) Math.max(from, Math.min(limit, position - firstIndex));
+            while (next < limit) {
+                CompactRawMessage message = scanner.nextMessage(power, next, limit, firstIndex, previousPower);
+                if (message == null) {
+                    break;
+                }
+                found.add(message);
+                next = (int) (message.timeStampNs() / SAMPLE_DURATION_NS - firstIndex) + WINDOW_SIZE;
+                previousPower = 0;
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ch.epfl.javions.demodulation;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The phase correction applied by the demodulators to the messages whose CRC isn't 0.
+ * AdsbDemodulator compares the power samples at the very beginning of the two halves of each bit (80 + 10i and 85 + 10i samples
+ * after the preamble). When the preamble starts between two samples, those samples fall on the edges of the pulses and
+ * some bits are decoded wrongly. The interpolated decoding estimates how far the preamble starts before its first sample,
+ * then compares the power around the centres of the two halves of each bit, linearly interpolated between the nearest samples.
+ * <p>
+ * The messages which are valid at the fixed offsets are returned unchanged, so that the phase correction only adds messages.
+ */
+public enum PhaseCorrection {
+    /**
+     * The messages whose CRC isn't 0 are dropped (or repaired by the error correction), as in AdsbDemodulator
+     */
+    NONE,
+    /**
+     * The messages whose CRC isn't 0 are decoded again at the centres of the half bits, aligned on the phase of the preamble
+     */
+    INTERPOLATED;
+
+    private static final int FRACTION_BITS = 4; // the positions are computed in 1/16 of a sample
+    private static final int ONE = 1 << FRACTION_BITS;
+    // the centre of the first half of the first bit, 82.5 samples after the beginning of the preamble
+    private static final int FIRST_CENTRE = 80 * ONE + ONE * 5 / 2;
+    private static final int HALF_BIT = 5;
+    private static final int BIT = 10;
+
+    /**
+     * Decodes again a message whose CRC isn't 0, around the centres of the half bits.
+     * The phase of the preamble is the fraction of the sample preceding it which is covered by its pulses,
+     * estimated by the ratio of the sums Sigma P at that sample and at the position of the message (a local maximum).
+     *
+     * @param power    the power samples
+     * @param position the position of the message
+     * @param length   the length of the message in bytes
+     * @return the bytes of the message decoded around the centres of the half bits, or null if the phase isn't corrected
+     */
+    byte[] decode(int[] power, int position, int length) {
+        if (this == NONE) {
+            return null;
+        }
+        // the sample preceding the first position of a buffer is unknown, its phase is taken as 0
+        long previousPower = position > 0 ? MessageScanner.sigmaP(power, position - 1) : 0;
+        long currentPower = MessageScanner.sigmaP(power, position);
+        int phase = currentPower == 0 ? 0 : (int) Math.min(ONE, previousPower * ONE / currentPower);
+        int centre = FIRST_CENTRE - phase;
+        int offset = centre >> FRACTION_BITS;
+        int weight = centre & (ONE - 1); // the weight of the sample after the centre
+
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length * Byte.SIZE; i++) {
+            int index = position + offset + BIT * i;
+            if (halfBitPower(power, index, weight) >= halfBitPower(power, index + HALF_BIT, weight)) {
+                bytes[i / Byte.SIZE] |= (byte) (0x80 >>> (i % Byte.SIZE));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @param power  the power samples
+     * @param index  the index of the sample preceding the centre of a half bit
+     * @param weight the weight of the sample following the centre, in 1/16
+     * @return the sum of the powers interpolated at the centre of the half bit and one sample before and after it (times 16)
+     */
+    private static long halfBitPower(int[] power, int index, int weight) {
+        // the three samples around the centre are inside the pulse whatever the phase, summing them averages the noise out
+        long sum = 0;
+        for (int i = index - 1; i <= index + 1; i++) {
+            sum += (long) (ONE - weight) * power[i] + (long) weight * power[i + 1];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,97 @@
+package ch.epfl.javions.demodulation;
+
+import java.io.IOException;
+import java.util.function.ToLongFunction;
+
+import static ch.epfl.javions.demodulation.MessageScanner.WINDOW_SIZE;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * This class holds the power samples scanned by the block demodulators.
+ * The last samples of a batch (the ones that can still be the beginning of a message) are carried over to the beginning of the buffer
+ * before the next batch is appended, so that the messages that straddle two batches are found without any circular indexing.
+ */
+final class PowerBuffer {
+    /**
+     * The number of power samples read at once, 2^16 as the PowerWindow
+     */
+    static final int BATCH_SIZE = 1 << 16;
+    private final PowerSource computer;
+    private final int[] batch = new int[BATCH_SIZE]; // the batch filled by the power computer
+    private final int[] power = new int[WINDOW_SIZE + BATCH_SIZE]; // the samples carried over followed by the last batch
+    private long firstIndex; // the index in the stream of power[0]
+    private int position; // the index in power of the next position to test
+    private int end; // the number of valid samples in power
+
+    /**
+     * @param computer the source of the power samples
+     */
+    PowerBuffer(PowerSource computer) {
+        this.computer = computer;
+    }
+
+    /**
+     * Scans the buffer from the next position to test, reading new batches until the scanner finds something.
+     *
+     * @param scanner      the scanner of a range of positions, returning null if it finds nothing
+     * @param nextPosition the index in the stream of the next position to test after the given result
+     * @param <T>          the type of the results of the scanner
+     * @return the next result of the scanner, or null if the end of the stream has been reached
+     * @throws IOException if an error occurs while reading the stream
+     */
+    <T> T next(RangeScanner<T> scanner, ToLongFunction<T> nextPosition) throws IOException {
+        int previousPower = 0; // as in AdsbDemodulator, the first position tested is never compared to the previous one
+        do {
+            int limit = end - WINDOW_SIZE + 1; // the positions before limit have a whole message in the buffer
+            if (position < limit) {
+                T result = scanner.scan(power, position, limit, firstIndex, previousPower);
+                if (result != null) {
+                    position = (int) (nextPosition.applyAsLong(result) - firstIndex);
+                    return result;
+                }
+                previousPower = MessageScanner.sigmaP(power, limit - 1);
+                position = limit;
+            }
+        } while (readBatch());
+        return null;
+    }
+
+    /**
+     * Moves the samples that haven't been tested yet to the beginning of the buffer and appends the next batch of power samples.
+     *
+     * @return false if the end of the stream has been reached, true otherwise
+     * @throws IOException if an error occurs while reading the stream
+     */
+    private boolean readBatch() throws IOException {
+        // position can be after end when a message has just been skipped, and the sample before it is kept for the phase correction
+        int shift = Math.max(Math.min(position, end) - 1, 0);
+        System.arraycopy(power, shift, power, 0, end - shift);
+        firstIndex += shift;
+        end -= shift;
+        position -= shift;
+
+        int read = computer.readBatch(batch);
+        System.arraycopy(batch, 0, power, end, read);
+        end += read;
+        return read > 0;
+    }
+
+    /**
+     * A scan of a range of positions of the buffer, with the signature of MessageScanner.nextMessage
+     *
+     * @param <T> the type of the results
+     */
+    @FunctionalInterface
+    interface RangeScanner<T> {
+        /**
+         * @param power         the power samples
+         * @param from          the first position to test
+         * @param to            the position (exclusive) at which the scan stops
+         * @param firstIndex    the index in the whole stream of power[0]
+         * @param previousPower the sum Sigma P at the position preceding from (0 if it should be ignored)
+         * @return the first result found in [from, to[, or null if there is none
+         */
+        T scan(int[] power, int from, int to, long firstIndex, int previousPower);
+    }
+}
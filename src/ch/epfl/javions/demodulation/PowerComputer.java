@@ -4,6 +4,7 @@ import ch.epfl.javions.Preconditions;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 /**
  * @author @franklintra (362694)
@@ -12,9 +13,9 @@ import java.io.InputStream;
  * It is used by the PowerWindow class to calculate the power of the samples in the window
  * It allows to demodulate messages from the samples in combination with the PowerWindow and SamplesDecoder classes.
  */
-public final class PowerComputer {
+public final class PowerComputer implements PowerSource {
     private static final int N = 8; // the number of samples used to calculate the power
-    private final SamplesDecoder decoder;
+    private final SamplesSource decoder;
     private final short[] sampleBuffer; // this is the buffer that will contain the samples read from the input stream.
     private final short[] lastNSamples = new short[N]; // this is the buffer that will contain the last 8 samples used to calculate the power
     private final int batchSize;
@@ -33,6 +34,21 @@ public final class PowerComputer {
         this.sampleBuffer = new short[Short.BYTES * batchSize];
     }
 
+    /**
+     * Creates a new PowerComputer object that will read the samples straight from the given file, mapped in memory
+     *
+     * @param channel   the channel of the file to read from (starting at its current position)
+     * @param batchSize the size of the batch of power samples to be calculated (must be a multiple of 8 and strictly greater than 0)
+     * @throws IOException              if an I/O error occurs while reading the size or the position of the channel
+     * @throws IllegalArgumentException if the batch size is not a multiple of 8 or is negative
+     */
+    public PowerComputer(FileChannel channel, int batchSize) throws IOException {
+        Preconditions.checkArgument(batchSize > 0 && batchSize % N == 0);
+        this.batchSize = batchSize;
+        this.decoder = new MappedSamplesDecoder(channel, 2 * batchSize);
+        this.sampleBuffer = new short[Short.BYTES * batchSize];
+    }
+
     /**
      * This method is used to calculate the modulus of a number with N
      * In our case, we need to calculate the modulus of a number with N, but the % operator in java gives the remainder instead of the modulus
@@ -56,6 +72,7 @@ public final class PowerComputer {
      * @throws IOException              if input or output error occurs
      * @throws IllegalArgumentException if the size of the batch doesn't match the required size
      */
+    @Override
     public int readBatch(int... batch) throws IOException {
         Preconditions.checkArgument(batch.length == batchSize);
         int read = decoder.readBatch(sampleBuffer);
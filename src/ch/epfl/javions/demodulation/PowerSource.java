@@ -0,0 +1,22 @@
+package ch.epfl.javions.demodulation;
+
+import java.io.IOException;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * A source of power samples, computed by batches of a fixed size.
+ * It is implemented by PowerComputer, the reference implementation, and by FusedPowerComputer, which computes the same samples faster.
+ */
+interface PowerSource {
+    /**
+     * Computes a batch of power samples
+     *
+     * @param batch the array that will contain the power samples
+     * @return the number of power samples computed and written to the batch (less than the batch size once the end of the samples is reached)
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the size of the batch doesn't match the required size
+     */
+    int readBatch(int... batch) throws IOException;
+}
@@ -0,0 +1,49 @@
+package ch.epfl.javions.demodulation;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * A preamble detector finds the positions of a block of power samples where an ADS-B message may start.
+ * A position is a candidate if it passes all the tests AdsbDemodulator applies before decoding a message:
+ * its sum Sigma P is a local maximum (compared to the previous and the next positions), it is at least twice its sum Sigma V
+ * and the first five bits of the message give one of the Downlink Formats accepted by the detector (only 17 for ADS-B messages).
+ * The accepted formats are given as a bitmask, whose bit DF is set if the Downlink Format DF is accepted, so that they are tested with a shift.
+ * The candidates are returned as a bitmap, so that the detection can be done on several positions at once.
+ * <p>
+ * The SIMD implementation uses the incubating Vector API, which is only available when the jdk.incubator.vector module
+ * has been added to the JVM (--add-modules jdk.incubator.vector). Otherwise, the scalar implementation is used.
+ */
+interface PreambleDetector {
+    /**
+     * The number of positions tested by a call to candidates
+     */
+    int POSITIONS = Long.SIZE;
+
+    /**
+     * @return the bitmask of the Downlink Formats accepted by the detector
+     */
+    int formats();
+
+    /**
+     * Tests the positions [position, position + POSITIONS[ of the given power samples.
+     * The caller must ensure that power[position - 1] is valid, as well as the samples of a whole message after every tested position.
+     *
+     * @param power    the power samples
+     * @param position the first position tested (strictly positive)
+     * @return a bitmap whose bit i is set if position + i is a candidate
+     */
+    long candidates(int[] power, int position);
+
+    /**
+     * @param formats the bitmask of the Downlink Formats accepted by the detector
+     * @return the SIMD detector if the Vector API is available and efficient on this machine, the scalar one otherwise
+     */
+    static PreambleDetector best(int formats) {
+        // the vector detector class can't even be loaded if the module is absent, so the module must be checked first
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && VectorPreambleDetector.isSupported()) {
+            return new VectorPreambleDetector(formats);
+        }
+        return new ScalarPreambleDetector(formats);
+    }
+}
@@ -0,0 +1,84 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.aircraft.IcaoAddressMap;
+
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.javions.demodulation.MessageScanner.SAMPLE_DURATION_NS;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The addresses of the aircraft heard recently, with the index of the power sample at which each one was last seen.
+ * The addresses are the keys of an IcaoAddressMap, and the index of each one is held in a single long array which is updated in place,
+ * so that neither adding a seen address nor testing a candidate one boxes or allocates anything once the aircraft is known.
+ * <p>
+ * An address is only recent for a bounded number of samples after it was last seen, and the older addresses are evicted
+ * regularly, so that the chance that a corrupted frame gives a known address doesn't grow with the length of the capture.
+ */
+final class RecentAddresses {
+    /**
+     * The number of power samples after which an address isn't recent anymore (60 seconds)
+     */
+    static final long DEFAULT_MAX_AGE = TimeUnit.SECONDS.toNanos(60) / SAMPLE_DURATION_NS;
+    private final long maxAge;
+    // the index of the last sample at which each address was seen, in an array of one long
+    private final IcaoAddressMap<long[]> lastSeen = new IcaoAddressMap<>();
+    private long nextEviction;
+
+    /**
+     * Constructs an empty set of addresses, which stay recent for DEFAULT_MAX_AGE samples
+     */
+    RecentAddresses() {
+        this(DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * Constructs an empty set of addresses
+     *
+     * @param maxAge the number of samples during which an address stays recent after it was seen
+     * @throws IllegalArgumentException if the age is negative
+     */
+    RecentAddresses(long maxAge) {
+        Preconditions.checkArgument(maxAge >= 0);
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Records that an address was seen, and evicts the old addresses once every maxAge samples
+     *
+     * @param address     the bits of an ICAO address
+     * @param sampleIndex the index of the sample at which the address was seen, never smaller than the previous ones
+     */
+    void add(int address, long sampleIndex) {
+        long[] last = lastSeen.get(address);
+        if (last == null) {
+            lastSeen.put(address, new long[]{sampleIndex});
+        } else {
+            last[0] = sampleIndex;
+        }
+        if (sampleIndex >= nextEviction) {
+            lastSeen.removeIf(seen -> sampleIndex - seen[0] > maxAge);
+            nextEviction = sampleIndex + Math.max(1, maxAge);
+        }
+    }
+
+    /**
+     * @param address     the bits of an ICAO address
+     * @param sampleIndex the index of the current sample
+     * @return true if the address was seen at most maxAge samples before the current one
+     */
+    boolean contains(int address, long sampleIndex) {
+        long[] last = lastSeen.get(address);
+        return last != null && sampleIndex - last[0] <= maxAge;
+    }
+
+    /**
+     * @return the number of addresses held, some of which may be too old to be recent but not evicted yet
+     */
+    int size() {
+        return lastSeen.size();
+    }
+}
@@ -15,7 +15,7 @@ import java.util.Objects;
  * This class is used by PowerComputer to decode the samples from the input stream.
  * In conjunction with the PowerWindow class, it is used to decode messages from the input stream.
  */
-public final class SamplesDecoder {
+public final class SamplesDecoder implements SamplesSource {
     private static final int BIAS = 2048;
     private static final int BYTE_MASK = 0xFF;
     private final int batchSize; // the size of the batch of samples to read
@@ -46,6 +46,7 @@ public final class SamplesDecoder {
      * @throws IOException              if an I/O error occurs
      * @throws IllegalArgumentException if the size of the batch doesn't match the required size
      */
+    @Override
     public int readBatch(short... batch) throws IOException {
         Preconditions.checkArgument(batch.length == batchSize); //throws IllegalArgumentException if the size of the batch doesn't match the required size
         int data = stream.readNBytes(buffer, 0, Short.BYTES * batchSize);
@@ -0,0 +1,23 @@
+package ch.epfl.javions.demodulation;
+
+import java.io.IOException;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * A source of signed 12 bits samples, read by batches of a fixed size.
+ * It is implemented by SamplesDecoder, which decodes the samples of an input stream,
+ * and by MappedSamplesDecoder, which decodes them straight from a memory-mapped file.
+ */
+interface SamplesSource {
+    /**
+     * Reads a batch of samples
+     *
+     * @param batch the array of shorts that will contain the samples
+     * @return the number of samples read and actually stored in the batch (less than the batch size once the end of the samples is reached)
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the size of the batch doesn't match the required size
+     */
+    int readBatch(short... batch) throws IOException;
+}
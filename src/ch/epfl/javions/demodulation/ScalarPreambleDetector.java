@@ -0,0 +1,28 @@
+package ch.epfl.javions.demodulation;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The scalar preamble detector, which tests the positions one after the other.
+ * It is used when the Vector API is not available.
+ *
+ * @param formats the bitmask of the Downlink Formats accepted by the detector
+ */
+record ScalarPreambleDetector(int formats) implements PreambleDetector {
+    @Override
+    public long candidates(int[] power, int position) {
+        long bits = 0;
+        int previousPower = MessageScanner.sigmaP(power, position - 1);
+        int currentPower = MessageScanner.sigmaP(power, position);
+        for (int i = 0; i < POSITIONS; i++) {
+            int nextPower = MessageScanner.sigmaP(power, position + i + 1);
+            if (MessageScanner.isCandidate(power, position + i, previousPower, currentPower, nextPower, formats)) {
+                bits |= 1L << i;
+            }
+            previousPower = currentPower;
+            currentPower = nextPower;
+        }
+        return bits;
+    }
+}
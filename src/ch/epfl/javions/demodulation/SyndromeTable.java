@@ -0,0 +1,128 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Crc24;
+import ch.epfl.javions.adsb.RawMessage;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * This class maps the CRC of a damaged ADS-B message (its syndrome) to the bits that have to be flipped to repair it.
+ * The CRC is linear, so the CRC of a message whose bits in a set E have been flipped is the xor of the CRCs of the messages
+ * that only contain one of the bits of E. The table is built once from Crc24.GENERATOR for all the sets of at most maxErrors bits,
+ * then each lookup costs a few probes of an open addressing hash table.
+ * <p>
+ * The bits of the Downlink Format are never corrected, as the demodulator has already checked that they give the DF 17.
+ * A syndrome which can be produced by two different sets of bits is ambiguous: it is kept in the table but never corrected.
+ */
+final class SyndromeTable {
+    private static final int MESSAGE_BITS = RawMessage.LENGTH * Byte.SIZE;
+    private static final int FIRST_CORRECTABLE_BIT = 5; // the first 5 bits are the DF
+    private static final int NO_ERROR = 0; // the value of the empty slots, the syndrome 0 being the one of a valid message
+    private static final int AMBIGUOUS = -1;
+    private static final Crc24 CRC = new Crc24(Crc24.GENERATOR);
+    private final int[] syndromes; // the keys of the table, NO_ERROR for the empty slots
+    private final int[] errors; // the bits to flip, each one stored plus 1 on a byte, AMBIGUOUS if the syndrome is ambiguous
+    private final int mask;
+    private final int shift; // the shift which keeps the log2(capacity) highest bits of a hash
+
+    /**
+     * Builds the table of the syndromes of all the errors of at most maxErrors bits
+     *
+     * @param maxErrors the maximum number of bits corrected (1 or 2)
+     */
+    SyndromeTable(int maxErrors) {
+        int[] bitSyndromes = new int[MESSAGE_BITS];
+        for (int bit = FIRST_CORRECTABLE_BIT; bit < MESSAGE_BITS; bit++) {
+            byte[] bytes = new byte[RawMessage.LENGTH];
+            flip(bytes, bit);
+            bitSyndromes[bit] = CRC.crc(bytes);
+        }
+        int bits = MESSAGE_BITS - FIRST_CORRECTABLE_BIT;
+        int entries = maxErrors == 1 ? bits : bits + bits * (bits - 1) / 2;
+        // at most half full, so that the probe sequences stay short
+        int capacity = Integer.highestOneBit(entries) << 2;
+        syndromes = new int[capacity];
+        errors = new int[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+
+        for (int first = FIRST_CORRECTABLE_BIT; first < MESSAGE_BITS; first++) {
+            put(bitSyndromes[first], first + 1);
+            if (maxErrors > 1) {
+                for (int second = first + 1; second < MESSAGE_BITS; second++) {
+                    put(bitSyndromes[first] ^ bitSyndromes[second], (first + 1) | (second + 1) << Byte.SIZE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Repairs a message whose CRC isn't 0
+     *
+     * @param bytes    the bytes of the message, modified in place if it can be repaired
+     * @param syndrome the CRC of the message (not 0)
+     * @return the number of bits flipped, 0 if the message can't be repaired
+     */
+    int correct(byte[] bytes, int syndrome) {
+        int error = lookup(syndrome);
+        if (error == NO_ERROR || error == AMBIGUOUS) {
+            return 0;
+        }
+        int flipped = 0;
+        for (; error != 0; error >>>= Byte.SIZE) {
+            flip(bytes, (error & 0xff) - 1);
+            flipped++;
+        }
+        return flipped;
+    }
+
+    /**
+     * @param syndrome the syndrome to look for
+     * @return the bits to flip for the given syndrome, NO_ERROR if there are none and AMBIGUOUS if the syndrome is ambiguous
+     */
+    private int lookup(int syndrome) {
+        for (int slot = hash(syndrome); syndromes[slot] != NO_ERROR; slot = (slot + 1) & mask) {
+            if (syndromes[slot] == syndrome) {
+                return errors[slot];
+            }
+        }
+        return NO_ERROR;
+    }
+
+    /**
+     * Adds the bits to flip for a syndrome to the table, or marks it as ambiguous if it is already there
+     *
+     * @param syndrome the syndrome of the error
+     * @param error    the bits of the error
+     */
+    private void put(int syndrome, int error) {
+        if (syndrome == NO_ERROR) {
+            return; // two bits with the same syndrome, already marked as ambiguous
+        }
+        int slot = hash(syndrome);
+        while (syndromes[slot] != NO_ERROR && syndromes[slot] != syndrome) {
+            slot = (slot + 1) & mask;
+        }
+        errors[slot] = syndromes[slot] == syndrome ? AMBIGUOUS : error;
+        syndromes[slot] = syndrome;
+    }
+
+    /**
+     * @param syndrome the syndrome
+     * @return the first slot in which the syndrome is looked for
+     */
+    private int hash(int syndrome) {
+        return (syndrome * 0x9E3779B1) >>> shift; // the highest bits of the product depend on all the bits of the syndrome
+    }
+
+    /**
+     * Flips a bit of a message
+     *
+     * @param bytes the bytes of the message
+     * @param bit   the index of the bit, 0 being the most significant bit of the first byte
+     */
+    private static void flip(byte[] bytes, int bit) {
+        bytes[bit / Byte.SIZE] ^= (byte) (0x80 >>> (bit % Byte.SIZE));
+    }
+}
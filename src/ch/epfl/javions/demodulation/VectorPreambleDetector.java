@@ -0,0 +1,131 @@
+package ch.epfl.javions.demodulation;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The SIMD preamble detector, which uses the incubating Vector API to test as many consecutive positions as there are
+ * ints in a vector register (8 with AVX2, 16 with AVX-512) with each instruction.
+ * The samples at the ten offsets of the preamble and at the five first bits of the message are loaded as shifted vectors,
+ * so that each lane computes the tests of its own position exactly like the scalar detector.
+ * When only the ADS-B messages are accepted, the five bits of the Downlink Format are compared to the ones of 17 directly,
+ * otherwise the Downlink Format of each lane is assembled and tested against the bitmask of the accepted formats with a variable shift.
+ * <p>
+ * This class must only be loaded when the jdk.incubator.vector module is present (see PreambleDetector.best).
+ */
+final class VectorPreambleDetector implements PreambleDetector {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    // with narrower vectors, the Vector API is not faster than the scalar detector
+    private static final int MIN_LANES = 8;
+    private static final int DOWNLINK_FORMAT_BITS = 5;
+    private final int formats;
+
+    /**
+     * @param formats the bitmask of the Downlink Formats accepted by the detector
+     */
+    VectorPreambleDetector(int formats) {
+        this.formats = formats;
+    }
+
+    /**
+     * @return true if the preferred vectors of this machine are large enough for the detector to be worth using
+     */
+    static boolean isSupported() {
+        return SPECIES.length() >= MIN_LANES && POSITIONS % SPECIES.length() == 0;
+    }
+
+    @Override
+    public int formats() {
+        return formats;
+    }
+
+    @Override
+    public long candidates(int[] power, int position) {
+        long bits = 0;
+        for (int i = 0; i < POSITIONS; i += SPECIES.length()) {
+            int p = position + i;
+            IntVector currentPower = sigmaP(power, p);
+            VectorMask<Integer> candidates = currentPower.compare(VectorOperators.GE, sigmaP(power, p - 1))
+                    .and(currentPower.compare(VectorOperators.GE, sigmaP(power, p + 1)))
+                    .and(currentPower.compare(VectorOperators.GE, sigmaV(power, p).lanewise(VectorOperators.LSHL, 1)))
+                    .and(formats == MessageScanner.ADSB_FORMATS ? isAdsb(power, p) : isAccepted(power, p));
+            bits |= candidates.toLong() << i;
+        }
+        return bits;
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the first position of the vector
+     * @return the mask of the positions of the vector whose Downlink Format is 17 (10001 in binary)
+     */
+    private static VectorMask<Integer> isAdsb(int[] power, int position) {
+        return bit(power, position, 0, true)
+                .and(bit(power, position, 1, false))
+                .and(bit(power, position, 2, false))
+                .and(bit(power, position, 3, false))
+                .and(bit(power, position, 4, true));
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the first position of the vector
+     * @return the mask of the positions of the vector whose Downlink Format is accepted by the detector
+     */
+    private VectorMask<Integer> isAccepted(int[] power, int position) {
+        IntVector downLinkFormat = IntVector.zero(SPECIES);
+        for (int i = 0; i < DOWNLINK_FORMAT_BITS; i++) {
+            IntVector shifted = downLinkFormat.lanewise(VectorOperators.LSHL, 1);
+            downLinkFormat = shifted.blend(shifted.or(1), bit(power, position, i, true));
+        }
+        return IntVector.broadcast(SPECIES, formats).lanewise(VectorOperators.LSHR, downLinkFormat).and(1)
+                .compare(VectorOperators.NE, 0);
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the first position of the vector
+     * @param offset   the offset of the samples from the positions
+     * @return the vector of the samples at the given offset of the positions
+     */
+    private static IntVector at(int[] power, int position, int offset) {
+        return IntVector.fromArray(SPECIES, power, position + offset);
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the first position of the vector
+     * @return the sums Sigma P of the positions of the vector
+     */
+    private static IntVector sigmaP(int[] power, int position) {
+        return at(power, position, 0).add(at(power, position, 10)).add(at(power, position, 35)).add(at(power, position, 45));
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the first position of the vector
+     * @return the sums Sigma V of the positions of the vector
+     */
+    private static IntVector sigmaV(int[] power, int position) {
+        return at(power, position, 5).add(at(power, position, 15)).add(at(power, position, 20))
+                .add(at(power, position, 25)).add(at(power, position, 30)).add(at(power, position, 40));
+    }
+
+    /**
+     * @param power    the power samples
+     * @param position the first position of the vector
+     * @param i        the index of the bit
+     * @param value    the expected value of the bit
+     * @return the mask of the positions of the vector whose i-th bit has the expected value
+     */
+    private static VectorMask<Integer> bit(int[] power, int position, int i, boolean value) {
+        int offset = 80 + 10 * i;
+        // as in AdsbDemodulator, the bit is 0 if the first half of its pulse is weaker than the second one, 1 otherwise
+        return at(power, position, offset).compare(value ? VectorOperators.GE : VectorOperators.LT, at(power, position, offset + 5));
+    }
+}
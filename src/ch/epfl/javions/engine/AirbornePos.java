@@ -0,0 +1,17 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.GeoPos;
+
+/**
+ * @author @franklintra (362694)
+ * @author @chukla (357550)
+ * @project Javions
+ * The AirbornePos record class
+ * Represents the position of the aircraft in the air
+ * (GeoPos + altitude)
+ *
+ * @param pos      the position of the aircraft
+ * @param altitude the altitude of the aircraft
+ */
+public record AirbornePos(GeoPos pos, double altitude) {
+}
@@ -0,0 +1,36 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.adsb.CallSign;
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+import java.util.Objects;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The state of an aircraft at a given time, as read from an AircraftStateStore by any thread.
+ * As it is immutable, its attributes are always the ones of the same message, even while the store is updated.
+ *
+ * @param icaoAddress            the ICAO address of the aircraft
+ * @param lastMessageTimeStampNs the time stamp of the last message of the aircraft
+ * @param category               the category of the aircraft
+ * @param callSign               the call sign of the aircraft, or null if it is unknown
+ * @param position               the position of the aircraft, or null if it is unknown
+ * @param altitude               the altitude of the aircraft, or NaN if it is unknown
+ * @param velocity               the velocity of the aircraft, or NaN if it is unknown
+ * @param trackOrHeading         the track or heading of the aircraft, or NaN if it is unknown
+ * @param trajectorySize         the number of points of the trajectory of the aircraft
+ */
+public record AircraftSnapshot(IcaoAddress icaoAddress, long lastMessageTimeStampNs, int category, CallSign callSign,
+                               GeoPos position, double altitude, double velocity, double trackOrHeading, int trajectorySize) {
+    /**
+     * Checks that the address isn't null
+     *
+     * @throws NullPointerException if the address is null
+     */
+    public AircraftSnapshot {
+        Objects.requireNonNull(icaoAddress);
+    }
+}
@@ -0,0 +1,70 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.adsb.CallSign;
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The changes of the state of an aircraft since the previous delta of the same aircraft, as published by AircraftStateStore
+ * to its listeners. The attributes are the latest ones, and the trajectory is given by the points which changed:
+ * the trajectory is cut at trajectoryStart, then the trajectory points are added to it.
+ *
+ * @param icaoAddress            the ICAO address of the aircraft
+ * @param lastMessageTimeStampNs the time stamp of the last message of the aircraft
+ * @param category               the category of the aircraft
+ * @param callSign               the call sign of the aircraft, or null if it is unknown
+ * @param position               the position of the aircraft, or null if it is unknown
+ * @param altitude               the altitude of the aircraft, or NaN if it is unknown
+ * @param velocity               the velocity of the aircraft, or NaN if it is unknown
+ * @param trackOrHeading         the track or heading of the aircraft, or NaN if it is unknown
+ * @param trajectoryStart        the index of the first point of the trajectory which changed
+ * @param trajectoryPoints       the points of the trajectory from trajectoryStart on
+ */
+public record AircraftStateDelta(IcaoAddress icaoAddress, long lastMessageTimeStampNs, int category, CallSign callSign,
+                                 GeoPos position, double altitude, double velocity, double trackOrHeading,
+                                 int trajectoryStart, List<AirbornePos> trajectoryPoints) {
+    /**
+     * Checks that the address and the trajectory points aren't null and that the trajectory start is positive,
+     * and copies the trajectory points
+     *
+     * @throws NullPointerException     if the address or the trajectory points are null
+     * @throws IllegalArgumentException if the trajectory start is negative
+     */
+    public AircraftStateDelta {
+        Objects.requireNonNull(icaoAddress);
+        Preconditions.checkArgument(trajectoryStart >= 0);
+        trajectoryPoints = List.copyOf(trajectoryPoints);
+    }
+
+    /**
+     * Combines this delta with the next delta of the same aircraft, so that a subscriber which can't apply every delta,
+     * like the JavaFX thread which applies them once per frame, applies a single one instead
+     *
+     * @param next the delta which follows this one
+     * @return the delta of the changes of this delta then of the next one
+     * @throws IllegalArgumentException if the next delta is the one of another aircraft
+     */
+    public AircraftStateDelta followedBy(AircraftStateDelta next) {
+        Preconditions.checkArgument(next.icaoAddress.equals(icaoAddress));
+        int start = trajectoryStart;
+        List<AirbornePos> points = next.trajectoryPoints;
+        if (next.trajectoryStart >= trajectoryStart) {
+            // the points of this delta which the next one didn't change come first
+            int kept = Math.min(next.trajectoryStart - trajectoryStart, trajectoryPoints.size());
+            points = new ArrayList<>(trajectoryPoints.subList(0, kept));
+            points.addAll(next.trajectoryPoints);
+        } else {
+            start = next.trajectoryStart;
+        }
+        return new AircraftStateDelta(icaoAddress, next.lastMessageTimeStampNs, next.category, next.callSign, next.position,
+                next.altitude, next.velocity, next.trackOrHeading, start, points);
+    }
+}
@@ -0,0 +1,30 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * A subscriber to the changes of the aircraft of an AircraftStateStore, like the GUI, an exporter or a metrics collector.
+ * Its methods are called on the thread which updates the store, so they must return quickly, and hand the changes over
+ * to another thread if they have more work to do.
+ */
+public interface AircraftStateListener {
+    /**
+     * Called after each message, with the changes of the state of its aircraft.
+     * The first delta of an aircraft is the one of its first message.
+     *
+     * @param delta the changes of the state of the aircraft since its previous delta
+     */
+    void aircraftUpdated(AircraftStateDelta delta);
+
+    /**
+     * Called when an aircraft is forgotten, because it hasn't sent any message for too long.
+     * If it sends a message again, it is seen as a new aircraft.
+     *
+     * @param icaoAddress the ICAO address of the aircraft
+     */
+    default void aircraftRemoved(IcaoAddress icaoAddress) {
+    }
+}
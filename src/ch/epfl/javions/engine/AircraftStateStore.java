@@ -0,0 +1,160 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.adsb.AircraftStateAccumulator;
+import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.javions.aircraft.IcaoAddressMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The states of the aircraft, in plain Java objects, without any dependency on JavaFX. The messages are applied to the
+ * states by AircraftStateAccumulator, and the changes of each message are published to the listeners of the store.
+ * The aircraft which haven't sent any message for more than a minute are forgotten.
+ * <p>
+ * The store is updated by a single thread, on which the listeners are called. They can be added and removed from any thread.
+ * <p>
+ * Any number of threads (the GUI, exporters, metrics...) can read the states of the aircraft at the same time without any lock:
+ * after each message, the state of its aircraft is published as an immutable AircraftSnapshot, which replaces the previous one
+ * atomically. A reader thus always sees the attributes of an aircraft as they were after one of its messages, and never slows
+ * down the updating thread.
+ */
+public final class AircraftStateStore {
+    /**
+     * The age of the last message of an aircraft after which it is forgotten, in nanoseconds
+     */
+    public static final long MAX_MESSAGE_AGE_NS = TimeUnit.SECONDS.toNanos(60);
+    private static final long PURGE_PERIOD_NS = TimeUnit.SECONDS.toNanos(1);
+    // keyed by the bits of the ICAO addresses
+    private final IcaoAddressMap<AircraftStateAccumulator<PlainAircraftState>> accumulators = new IcaoAddressMap<>();
+    // the same states for the readers, only changed when an aircraft appears or is forgotten
+    private final Map<IcaoAddress, PlainAircraftState> states = new ConcurrentHashMap<>();
+    private final List<AircraftStateListener> listeners = new CopyOnWriteArrayList<>();
+    private long lastTimeStampNs;
+    private long lastPurgeNs;
+    // only written by the updating thread, and read by any thread
+    private volatile long messageCount;
+
+    /**
+     * Adds a listener, which is called for the messages applied from now on
+     *
+     * @param listener the listener
+     * @throws NullPointerException if the listener is null
+     */
+    public void addListener(AircraftStateListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Removes a listener
+     *
+     * @param listener the listener
+     */
+    public void removeListener(AircraftStateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Applies a message to the state of its aircraft, which is created by its first message, then publishes the changes
+     * of the state to the listeners
+     *
+     * @param message the message
+     */
+    public void update(Message message) {
+        lastTimeStampNs = message.timeStampNs();
+        int address = message.icaoAddress().value();
+        AircraftStateAccumulator<PlainAircraftState> accumulator = accumulators.get(address);
+        boolean isNew = accumulator == null;
+        if (isNew) {
+            accumulator = new AircraftStateAccumulator<>(new PlainAircraftState(message.icaoAddress()));
+            accumulators.put(address, accumulator);
+        }
+        PlainAircraftState state = accumulator.stateSetter();
+        accumulator.update(message);
+        state.publish();
+        if (isNew) {
+            // added once its first snapshot is published, so that the readers never see a state without one
+            states.put(state.icaoAddress(), state);
+        }
+        messageCount++;
+        // taken even without listeners, so that the changed points of the trajectory don't pile up
+        AircraftStateDelta delta = state.takeDelta();
+        for (AircraftStateListener listener : listeners) {
+            listener.aircraftUpdated(delta);
+        }
+
+        if (lastTimeStampNs - lastPurgeNs >= PURGE_PERIOD_NS) {
+            purge();
+            lastPurgeNs = lastTimeStampNs;
+        }
+    }
+
+    /**
+     * Forgets the aircraft whose last message is too old, and tells the listeners
+     */
+    private void purge() {
+        accumulators.removeIf(accumulator -> {
+            PlainAircraftState state = accumulator.stateSetter();
+            if (lastTimeStampNs - state.lastMessageTimeStampNs() <= MAX_MESSAGE_AGE_NS) {
+                return false;
+            }
+            states.remove(state.icaoAddress());
+            for (AircraftStateListener listener : listeners) {
+                listener.aircraftRemoved(state.icaoAddress());
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Can be called by any thread.
+     *
+     * @return the number of aircraft in the store
+     */
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Returns the state of an aircraft. Can be called by any thread.
+     *
+     * @param icaoAddress the ICAO address of the aircraft
+     * @return the last snapshot of the state of the aircraft, or null if it isn't in the store
+     */
+    public AircraftSnapshot get(IcaoAddress icaoAddress) {
+        PlainAircraftState state = states.get(icaoAddress);
+        return state == null ? null : state.snapshot();
+    }
+
+    /**
+     * Returns the states of all the aircraft. Can be called by any thread.
+     * Each snapshot is consistent, but the aircraft which appear or are forgotten meanwhile may or may not be in the list.
+     *
+     * @return the last snapshots of the states of the aircraft
+     */
+    public List<AircraftSnapshot> snapshots() {
+        List<AircraftSnapshot> snapshots = new ArrayList<>(states.size());
+        for (PlainAircraftState state : states.values()) {
+            snapshots.add(state.snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Can be called by any thread.
+     *
+     * @return the number of messages applied since the creation of the store
+     */
+    public long messageCount() {
+        return messageCount;
+    }
+}
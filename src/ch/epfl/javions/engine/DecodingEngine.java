@@ -0,0 +1,250 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.adsb.CompactRawMessage;
+import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.adsb.MessageParser;
+import ch.epfl.javions.demodulation.BlockAdsbDemodulator;
+import ch.epfl.javions.demodulation.ErrorCorrection;
+import ch.epfl.javions.replay.MessageReplayer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The decoding pipeline without any user interface: the raw messages of a source (a demodulator or a replayed file) are parsed
+ * on the calling thread and queued in a MessageRing, then applied to an AircraftStateStore on a second thread, whose listeners
+ * receive the changes of the aircraft. The GUI is one of those listeners, but the engine can run on a server without a display,
+ * and measure how fast messages are decoded.
+ * <p>
+ * Usage: {@code DecodingEngine [<messages file> [<speed>|max]]}, the samples of the radio being read from System.in
+ * if there is no file. Their errors are only corrected if the property {@value #ERROR_CORRECTION_PROPERTY} is set.
+ */
+public final class DecodingEngine {
+    /**
+     * The default capacity of the queue between the two threads
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1 << 14;
+    /**
+     * The system property which sets the error correction of the samples of the radio (e.g. -Djavions.correction=single_bit),
+     * one of the values of ErrorCorrection, NONE by default.
+     * A random syndrome is taken for a single wrong bit 1 time in 156796, and for one or two wrong bits 1 time in 2903:
+     * each of these false accepts adds a message, and possibly an aircraft, which was never sent.
+     */
+    public static final String ERROR_CORRECTION_PROPERTY = "javions.correction";
+    private static final long IDLE_NS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long REPORT_PERIOD_MS = 1000;
+    private final MessageRing queue;
+    private final AircraftStateStore store = new AircraftStateStore();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopped;
+    private volatile boolean sourceEnded;
+    // the exception of the store or of a listener which stopped the updating thread
+    private volatile Throwable failure;
+    private volatile long rawMessageCount;
+    private volatile long startNs;
+    private volatile long endNs;
+
+    /**
+     * Constructs an engine whose queue has the default capacity and the given overflow policy
+     *
+     * @param policy what happens to the messages when the store can't keep up with them
+     */
+    public DecodingEngine(MessageRing.OverflowPolicy policy) {
+        this(new MessageRing(DEFAULT_QUEUE_CAPACITY, policy));
+    }
+
+    /**
+     * Constructs an engine with the given queue
+     *
+     * @param queue the empty queue between the decoding thread and the updating thread
+     * @throws NullPointerException if the queue is null
+     */
+    public DecodingEngine(MessageRing queue) {
+        this.queue = Objects.requireNonNull(queue);
+    }
+
+    /**
+     * Decodes the samples of the radio read from System.in, or replays a file of messages, and prints the number of
+     * messages decoded and of aircraft every second, then the throughput at the end of the file.
+     *
+     * @param args the optional file of messages and its replay speed, "max" by default
+     * @throws IOException if the messages could not be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 2) {
+            System.err.println("Usage: DecodingEngine [<messages file> [<speed>|max]]");
+            System.exit(1);
+        }
+        DecodingEngine engine = new DecodingEngine(args.length == 0
+                ? MessageRing.OverflowPolicy.COALESCE
+                : MessageRing.OverflowPolicy.BLOCK);
+        Thread reporting = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(REPORT_PERIOD_MS);
+                    System.out.println(engine);
+                }
+            } catch (InterruptedException e) {
+                // the engine has finished
+            }
+        }, "engine-report");
+        reporting.setDaemon(true);
+        reporting.start();
+
+        if (args.length == 0) {
+            BlockAdsbDemodulator demodulator = new BlockAdsbDemodulator(System.in, errorCorrection());
+            engine.run(demodulator::nextCompactMessage);
+        } else {
+            double speed = args.length < 2 || args[1].equals("max") ? MessageReplayer.MAX_SPEED : Double.parseDouble(args[1]);
+            try (MessageReplayer replayer = new MessageReplayer(Path.of(args[0]), speed)) {
+                engine.run(replayer::nextCompactMessage);
+            }
+        }
+        reporting.interrupt();
+        System.out.println(engine);
+    }
+
+    /**
+     * @return the error correction set by the property {@value #ERROR_CORRECTION_PROPERTY}, NONE if it isn't set
+     * @throws IllegalArgumentException if the property isn't the name of an ErrorCorrection
+     */
+    public static ErrorCorrection errorCorrection() {
+        return ErrorCorrection.valueOf(System.getProperty(ERROR_CORRECTION_PROPERTY, ErrorCorrection.NONE.name()).toUpperCase());
+    }
+
+    /**
+     * @return the store of the aircraft states, to which the listeners are added
+     */
+    public AircraftStateStore store() {
+        return store;
+    }
+
+    /**
+     * @return the queue between the decoding thread and the updating thread, which gives its depth and the number of messages dropped
+     */
+    public MessageRing queue() {
+        return queue;
+    }
+
+    /**
+     * Decodes the raw messages of the source on the calling thread until it has no more messages or the engine is stopped,
+     * and applies them to the store on another thread. Returns once all the messages decoded have been applied.
+     * <p>
+     * If the store or one of its listeners throws an exception, the engine stops and this method throws it, the messages
+     * not applied yet being lost. The engine can't run again afterwards, its store being left as it was at the failure.
+     *
+     * @param source the source of the raw messages
+     * @throws IOException           if the messages could not be read
+     * @throws IllegalStateException if the engine is already running, or has failed during a previous run
+     * @throws RuntimeException      the exception thrown by the store or one of its listeners, which stopped the engine
+     */
+    public void run(RawMessageSource source) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("The engine is already running");
+        }
+        if (failure != null) {
+            running.set(false);
+            throw new IllegalStateException("The engine has failed", failure);
+        }
+        stopped = false;
+        sourceEnded = false;
+        if (startNs == 0) {
+            startNs = System.nanoTime();
+        }
+        endNs = 0;
+        Thread updating = new Thread(this::applyMessages, "aircraft-states");
+        updating.setDaemon(true);
+        updating.start();
+        try {
+            CompactRawMessage rawMessage;
+            while (!stopped && (rawMessage = source.nextMessage()) != null) {
+                rawMessageCount++;
+                Message message = MessageParser.parse(rawMessage);
+                if (message != null) {
+                    queue.offer(message);
+                }
+            }
+            queue.flush();
+        } finally {
+            sourceEnded = true;
+            boolean interrupted = false;
+            while (updating.isAlive()) {
+                try {
+                    updating.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            endNs = System.nanoTime();
+            running.set(false);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // only reached if the source didn't throw an exception itself
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    /**
+     * Applies the queued messages to the store until the source has ended and the queue is empty.
+     * If the store or a listener throws an exception, the engine is stopped and the queue closed,
+     * so that the decoding thread never waits for this thread, and run throws the exception.
+     */
+    private void applyMessages() {
+        try {
+            while (true) {
+                if (queue.drain(store::update, Long.MAX_VALUE) == 0) {
+                    // the end of the source is read before the queue, so that the last messages are never left in it
+                    if (sourceEnded && queue.size() == 0) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_NS);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            stopped = true;
+            queue.close();
+        }
+    }
+
+    /**
+     * Makes run return once the current message has been decoded and all the messages decoded have been applied
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return the number of raw messages read from the sources since the creation of the engine
+     */
+    public long rawMessageCount() {
+        return rawMessageCount;
+    }
+
+    /**
+     * @return the number of messages applied per second, from the start of the first run to the end of the last one (or now)
+     */
+    public double messagesPerSecond() {
+        long end = endNs == 0 ? System.nanoTime() : endNs;
+        return end == startNs ? 0 : store.messageCount() * 1e9 / (end - startNs);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DecodingEngine[raw=%d, messages=%d, aircraft=%d, queue=%d, dropped=%d, %.0f messages/s]",
+                rawMessageCount, store.messageCount(), store.size(), queue.size(), queue.dropped(), messagesPerSecond());
+    }
+}
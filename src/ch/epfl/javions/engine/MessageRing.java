@@ -0,0 +1,385 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.adsb.AirbornePositionMessage;
+import ch.epfl.javions.adsb.AirborneVelocityMessage;
+import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.aircraft.IcaoAddressMap;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * A bounded queue of messages between a single producer, the thread which decodes the messages,
+ * and a single consumer, the thread which applies them to the aircraft states.
+ * The messages are stored in a ring of preallocated slots, so that queueing a message allocates nothing,
+ * and each slot is cleared once its message is removed, so that the ring never keeps the messages applied.
+ * The consumer drains them in batches limited by a time budget, so that a consumer which has other work, like a frame to draw, is never delayed by a burst of messages.
+ * <p>
+ * When the ring is full, the producer applies the overflow policy of the queue. With COALESCE, the waiting messages are
+ * kept in a growable array, in order, and the last one of each aircraft and kind in primitive maps keyed by the bits of
+ * the addresses: once these have grown to the traffic, overflowing allocates nothing either.
+ * <p>
+ * The number of messages dropped
+ * and the highest number of messages ever queued are counted, so that the capacity can be chosen for the traffic.
+ * <p>
+ * offer and flush must only be called by the producer, and poll and drain only by the consumer.
+ * A message must only be offered once.
+ * A consumer which stops draining the ring for good closes it, so that the producer never waits for it.
+ */
+public final class MessageRing {
+    /**
+     * What the producer does when the ring is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * The producer waits until the consumer has made room, which slows down the decoding
+         */
+        BLOCK,
+        /**
+         * The oldest message of the ring is dropped to make room for the new one
+         */
+        DROP_OLDEST,
+        /**
+         * The new messages wait outside of the ring until there is room, and a message replaces the waiting one of the same
+         * aircraft and kind (identification, velocity, even or odd position), which it makes obsolete
+         */
+        COALESCE
+    }
+
+    private static final long BLOCK_PARK_NS = 100_000;
+    private static final int BUDGET_CHECK_PERIOD = 64; // the number of messages drained between two readings of the clock
+    private static final int KINDS = 4; // identification, velocity, even and odd positions
+    private static final int MIN_WAITING_CAPACITY = 64;
+    private final AtomicReferenceArray<Message> slots;
+    private final int mask;
+    private final OverflowPolicy policy;
+    // the index of the next message to read, advanced by the consumer, and by the producer when it drops the oldest message
+    private final AtomicLong head = new AtomicLong();
+    // the index of the next message to write, only advanced by the producer
+    private final AtomicLong tail = new AtomicLong();
+    // the messages waiting for room with the COALESCE policy, only accessed by the producer: the last one of each aircraft,
+    // for each kind, and all the ones offered in order, those replaced since being skipped when the ring has room
+    private final IcaoAddressMap<Message>[] waitingByKind;
+    private Message[] waiting = new Message[MIN_WAITING_CAPACITY];
+    private int waitingHead;
+    private int waitingTail; // the messages are between the head and the tail, modulo the length of the array
+    private int waitingCount; // the messages which haven't been replaced
+    // the counters are only written by the producer
+    private volatile long dropped;
+    private volatile long highWaterMark;
+    // set by the consumer when it stops draining the ring
+    private volatile boolean closed;
+
+    /**
+     * Constructs an empty ring
+     *
+     * @param capacity the number of messages the ring can hold, a power of two
+     * @param policy   what the producer does when the ring is full
+     * @throws IllegalArgumentException if the capacity isn't a strictly positive power of two
+     * @throws NullPointerException     if the policy is null
+     */
+    public MessageRing(int capacity, OverflowPolicy policy) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.policy = Objects.requireNonNull(policy);
+        @SuppressWarnings("unchecked")
+        IcaoAddressMap<Message>[] waitingByKind = new IcaoAddressMap[KINDS];
+        for (int kind = 0; kind < KINDS; kind++) {
+            waitingByKind[kind] = new IcaoAddressMap<>();
+        }
+        this.waitingByKind = waitingByKind;
+    }
+
+    /**
+     * Adds a message to the ring, applying the overflow policy if it is full.
+     * Once the ring is closed, the message is dropped if it is full instead of waiting for room.
+     *
+     * @param message the message
+     * @throws NullPointerException if the message is null
+     */
+    public void offer(Message message) {
+        Objects.requireNonNull(message);
+        switch (policy) {
+            case BLOCK -> {
+                while (!tryPut(message)) {
+                    if (closed) {
+                        dropped++;
+                        return;
+                    }
+                    LockSupport.parkNanos(BLOCK_PARK_NS);
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!tryPut(message)) {
+                    long h = head.get();
+                    if (tail.get() - h > mask && head.compareAndSet(h, h + 1)) {
+                        dropped++;
+                    }
+                }
+            }
+            case COALESCE -> {
+                // the waiting messages go first, so that the messages of an aircraft stay in order
+                putOverflow();
+                if (waitingCount != 0 || !tryPut(message)) {
+                    // the replaced message is skipped and this one added last, so that the waiting messages stay sorted by time stamp
+                    if (waitingByKind[kind(message)].put(message.icaoAddress().value(), message) != null) {
+                        dropped++;
+                    } else {
+                        waitingCount++;
+                    }
+                    addWaiting(message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until all the messages waiting for room (with the COALESCE policy) are in the ring,
+     * for instance once the producer has no more messages. Once the ring is closed, those which don't fit are dropped.
+     */
+    public void flush() {
+        while (!putOverflow()) {
+            if (closed) {
+                dropped += waitingCount;
+                clearWaiting();
+                return;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NS);
+        }
+    }
+
+    /**
+     * Closes the ring, once the consumer has stopped draining it for good: from then on, the producer never waits for room,
+     * and drops the messages which don't fit.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * @return true if the ring has been closed by its consumer
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Puts as many waiting messages as possible in the ring, in order
+     *
+     * @return true if there are no more waiting messages
+     */
+    private boolean putOverflow() {
+        int mask = waiting.length - 1;
+        while (waitingHead != waitingTail) {
+            Message message = waiting[waitingHead];
+            if (isWaiting(message)) {
+                if (!tryPut(message)) {
+                    return false;
+                }
+                waitingByKind[kind(message)].remove(message.icaoAddress().value());
+                waitingCount--;
+            }
+            waiting[waitingHead] = null;
+            waitingHead = (waitingHead + 1) & mask;
+        }
+        return true;
+    }
+
+    /**
+     * @param message a message of the waiting array
+     * @return true if the message is still waiting, false if a newer message of the same aircraft and kind has replaced it
+     */
+    private boolean isWaiting(Message message) {
+        return waitingByKind[kind(message)].get(message.icaoAddress().value()) == message;
+    }
+
+    /**
+     * Adds a message at the end of the waiting array, which is first compacted if most of its messages have been replaced,
+     * or grown if it is full
+     *
+     * @param message the message
+     */
+    private void addWaiting(Message message) {
+        int mask = waiting.length - 1;
+        // one slot is always left free, so that the head and the tail are only equal when the array is empty
+        if (((waitingTail + 1) & mask) == waitingHead) {
+            if (2 * waitingCount <= waiting.length) {
+                compactWaiting();
+            } else {
+                growWaiting();
+            }
+            mask = waiting.length - 1;
+        }
+        waiting[waitingTail] = message;
+        waitingTail = (waitingTail + 1) & mask;
+    }
+
+    /**
+     * Removes the replaced messages from the waiting array, in place
+     */
+    private void compactWaiting() {
+        int mask = waiting.length - 1;
+        int tail = waitingHead;
+        for (int i = waitingHead; i != waitingTail; i = (i + 1) & mask) {
+            Message message = waiting[i];
+            waiting[i] = null;
+            if (isWaiting(message)) {
+                waiting[tail] = message;
+                tail = (tail + 1) & mask;
+            }
+        }
+        waitingTail = tail;
+    }
+
+    /**
+     * Doubles the length of the waiting array, whose messages are moved to its start
+     */
+    private void growWaiting() {
+        Message[] grown = new Message[2 * waiting.length];
+        int mask = waiting.length - 1;
+        int size = 0;
+        for (int i = waitingHead; i != waitingTail; i = (i + 1) & mask) {
+            grown[size++] = waiting[i];
+        }
+        waiting = grown;
+        waitingHead = 0;
+        waitingTail = size;
+    }
+
+    /**
+     * Forgets all the waiting messages
+     */
+    private void clearWaiting() {
+        for (IcaoAddressMap<Message> map : waitingByKind) {
+            map.removeIf(message -> true);
+        }
+        Arrays.fill(waiting, null);
+        waitingHead = 0;
+        waitingTail = 0;
+        waitingCount = 0;
+    }
+
+    /**
+     * Writes a message in the next slot of the ring if there is one
+     *
+     * @param message the message
+     * @return false if the ring is full
+     */
+    private boolean tryPut(Message message) {
+        long t = tail.get();
+        long size = t - head.get();
+        if (size > mask) {
+            return false;
+        }
+        slots.lazySet((int) t & mask, message);
+        // published after the slot, so that the consumer never sees the new tail before the message
+        tail.lazySet(t + 1);
+        if (size + 1 > highWaterMark) {
+            highWaterMark = size + 1;
+        }
+        return true;
+    }
+
+    /**
+     * @param message a message
+     * @return the kind of the message, a newer message of the same aircraft and kind making it obsolete
+     */
+    private static int kind(Message message) {
+        if (message instanceof AirbornePositionMessage position) {
+            return 2 + position.parity(); // the even and odd positions are both needed to decode a position
+        } else if (message instanceof AirborneVelocityMessage) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Removes the oldest message of the ring
+     *
+     * @return the oldest message, or null if the ring is empty
+     */
+    public Message poll() {
+        while (true) {
+            long h = head.get();
+            if (h == tail.get()) {
+                return null;
+            }
+            int slot = (int) h & mask;
+            Message message = slots.get(slot);
+            // fails if the producer has just dropped this message, in which case the slot may already hold a newer one
+            if (head.compareAndSet(h, h + 1)) {
+                // the producer may already have written a newer message in the slot, which must be kept
+                slots.compareAndSet(slot, message, null);
+                return message;
+            }
+        }
+    }
+
+    /**
+     * Removes the messages of the ring, oldest first, and passes them to the given consumer until the ring is empty
+     * or the time budget is spent
+     *
+     * @param consumer the consumer of the messages
+     * @param budgetNs the time budget, in nanoseconds
+     * @return the number of messages removed
+     */
+    public int drain(Consumer<? super Message> consumer, long budgetNs) {
+        long deadline = System.nanoTime() + budgetNs;
+        int drained = 0;
+        Message message;
+        while ((message = poll()) != null) {
+            consumer.accept(message);
+            drained++;
+            if (drained % BUDGET_CHECK_PERIOD == 0 && System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * @return the number of messages in the ring, without the ones waiting for room
+     */
+    public int size() {
+        // the head is read first, so that the size is never negative
+        long h = head.get();
+        return (int) (tail.get() - h);
+    }
+
+    /**
+     * @return the number of messages the ring can hold
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the number of messages dropped, or replaced by a newer one with the COALESCE policy
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the highest number of messages ever in the ring
+     */
+    public long highWaterMark() {
+        return highWaterMark;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageRing[policy=" + policy + ", size=" + size() + "/" + capacity() + ", highWaterMark=" + highWaterMark
+                + ", dropped=" + dropped + "]";
+    }
+}
@@ -0,0 +1,157 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.adsb.AircraftStateSetter;
+import ch.epfl.javions.adsb.CallSign;
+import ch.epfl.javions.aircraft.IcaoAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The state of an aircraft in plain fields, updated by an AircraftStateAccumulator outside of the JavaFX thread.
+ * The trajectory is built exactly as the one of ObservableAircraftState, but only the points which changed
+ * since the last delta are kept, so that its size doesn't grow with the time the aircraft is visible.
+ * <p>
+ * The state is only changed by the thread which updates the AircraftStateStore, which publishes it after each message
+ * as an immutable snapshot: the other threads only read the last snapshot, which is swapped atomically,
+ * so they never wait for the updating thread nor see the attributes of two different messages.
+ */
+final class PlainAircraftState implements AircraftStateSetter {
+    private final IcaoAddress icaoAddress;
+    private long lastMessageTimeStampNs;
+    private int category;
+    private CallSign callSign;
+    private GeoPos position;
+    private double altitude = Double.NaN;
+    private double velocity = Double.NaN;
+    private double trackOrHeading = Double.NaN;
+    private long previousTimestamp;
+    // the trajectory has trajectorySize points, the ones from trajectoryStart on being the changed points
+    private int trajectorySize;
+    private int trajectoryStart;
+    private final List<AirbornePos> changedPoints = new ArrayList<>();
+    private volatile AircraftSnapshot snapshot;
+
+    /**
+     * Constructs the state of an aircraft of which no message has been received yet
+     *
+     * @param icaoAddress the ICAO address of the aircraft
+     * @throws NullPointerException if the ICAO address is null
+     */
+    PlainAircraftState(IcaoAddress icaoAddress) {
+        this.icaoAddress = Objects.requireNonNull(icaoAddress);
+    }
+
+    /**
+     * @return the ICAO address of the aircraft
+     */
+    IcaoAddress icaoAddress() {
+        return icaoAddress;
+    }
+
+    /**
+     * @return the time stamp of the last message of the aircraft
+     */
+    long lastMessageTimeStampNs() {
+        return lastMessageTimeStampNs;
+    }
+
+    /**
+     * Replaces the snapshot of the state by one of its current attributes.
+     * Must only be called by the updating thread.
+     */
+    void publish() {
+        snapshot = new AircraftSnapshot(icaoAddress, lastMessageTimeStampNs, category, callSign, position, altitude,
+                velocity, trackOrHeading, trajectorySize);
+    }
+
+    /**
+     * Can be called by any thread.
+     *
+     * @return the last snapshot published, or null if there is none
+     */
+    AircraftSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the changes of the state since the last delta, then forgets them
+     *
+     * @return the delta of the state
+     */
+    AircraftStateDelta takeDelta() {
+        AircraftStateDelta delta = new AircraftStateDelta(icaoAddress, lastMessageTimeStampNs, category, callSign,
+                position, altitude, velocity, trackOrHeading, trajectoryStart, changedPoints);
+        changedPoints.clear();
+        trajectoryStart = trajectorySize;
+        return delta;
+    }
+
+    @Override
+    public void setLastMessageTimeStampNs(long timeStampNs) {
+        lastMessageTimeStampNs = timeStampNs;
+    }
+
+    @Override
+    public void setCategory(int category) {
+        this.category = category;
+    }
+
+    @Override
+    public void setCallSign(CallSign callSign) {
+        this.callSign = callSign;
+    }
+
+    @Override
+    public void setPosition(GeoPos position) {
+        this.position = Objects.requireNonNull(position);
+        if (!Double.isNaN(altitude)) {
+            addToTrajectory(new AirbornePos(position, altitude));
+        }
+        previousTimestamp = lastMessageTimeStampNs;
+    }
+
+    @Override
+    public void setAltitude(double altitude) {
+        this.altitude = altitude;
+        if (position == null) {
+            return;
+        }
+        if (trajectorySize == 0) {
+            addToTrajectory(new AirbornePos(position, altitude));
+            previousTimestamp = lastMessageTimeStampNs;
+        }
+        if (lastMessageTimeStampNs == previousTimestamp) {
+            // the last point is replaced, so it becomes a changed point if it wasn't already one
+            if (changedPoints.isEmpty()) {
+                trajectoryStart = trajectorySize - 1;
+                changedPoints.add(new AirbornePos(position, altitude));
+            } else {
+                changedPoints.set(changedPoints.size() - 1, new AirbornePos(position, altitude));
+            }
+        }
+    }
+
+    @Override
+    public void setVelocity(double velocity) {
+        this.velocity = velocity;
+    }
+
+    @Override
+    public void setTrackOrHeading(double trackOrHeading) {
+        this.trackOrHeading = trackOrHeading;
+    }
+
+    /**
+     * @param point the point to add at the end of the trajectory
+     */
+    private void addToTrajectory(AirbornePos point) {
+        changedPoints.add(point);
+        trajectorySize++;
+    }
+}
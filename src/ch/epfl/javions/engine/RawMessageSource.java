@@ -0,0 +1,21 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.adsb.CompactRawMessage;
+
+import java.io.IOException;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * A source of raw messages for the DecodingEngine, like the nextCompactMessage method of a demodulator or of a MessageReplayer.
+ * The messages are in compact form, so that they are parsed from their primitive fields without building a RawMessage.
+ */
+@FunctionalInterface
+public interface RawMessageSource {
+    /**
+     * @return the next raw message, or null if there are no more messages
+     * @throws IOException if the messages could not be read
+     */
+    CompactRawMessage nextMessage() throws IOException;
+}
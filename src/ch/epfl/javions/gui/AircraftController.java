@@ -3,9 +3,11 @@ package ch.epfl.javions.gui;
 import ch.epfl.javions.Units;
 import ch.epfl.javions.WebMercator;
 import ch.epfl.javions.adsb.CallSign;
+import ch.epfl.javions.engine.AirbornePos;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
 import javafx.beans.value.ObservableStringValue;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.*;
 import javafx.geometry.Point2D;
 import javafx.scene.Group;
@@ -114,10 +116,12 @@ public final class AircraftController {
     private SVGPath constructIcon(ObservableAircraftState state) {
         SVGPath iconSVG = new SVGPath();
         iconSVG.getStyleClass().add("aircraft"); // associate style class with icon node
-        AircraftIcon icon = Objects.isNull(state.aircraftData()) ?
+        // the aircraft data is read asynchronously from the database, so the icon changes once it is known
+        ObservableValue<AircraftIcon> icon = Bindings.createObjectBinding(() -> Objects.isNull(state.aircraftData()) ?
                 AircraftIcon.UNKNOWN :
-                AircraftIcon.iconFor(state.aircraftData().typeDesignator(), state.aircraftData().description(), state.getCategory(), state.aircraftData().wakeTurbulenceCategory());
-        iconSVG.setContent(icon.svgPath()); // set the icon's path to the icon's SVG path
+                AircraftIcon.iconFor(state.aircraftData().typeDesignator(), state.aircraftData().description(), state.getCategory(), state.aircraftData().wakeTurbulenceCategory()),
+                state.aircraftDataProperty(), state.categoryProperty());
+        iconSVG.contentProperty().bind(icon.map(AircraftIcon::svgPath)); // set the icon's path to the icon's SVG path
 
         // rotate the icon
         rotateIcon(iconSVG, icon, state);
@@ -135,16 +139,13 @@ public final class AircraftController {
      * If the icon does not support rotation, the rotation is set to 0 degrees.
      *
      * @param iconSVG the SVGPath object representing the icon to rotate
-     * @param icon    the AircraftIcon object associated with the icon
+     * @param icon    the AircraftIcon associated with the icon, which changes once the aircraft data is known
      * @param state   the ObservableAircraftState object representing the state of the aircraft
      */
-    private void rotateIcon(SVGPath iconSVG, AircraftIcon icon, ObservableAircraftState state) {
+    private void rotateIcon(SVGPath iconSVG, ObservableValue<AircraftIcon> icon, ObservableAircraftState state) {
         // set rotation based on track or heading if the icon can rotate else don't rotate
-        if (icon.canRotate()) {
-            iconSVG.rotateProperty().bind(state.trackOrHeadingProperty().map((val) -> Units.convertTo((Double) val, Units.Angle.DEGREE)));
-        } else {
-            iconSVG.setRotate(0);
-        }
+        iconSVG.rotateProperty().bind(Bindings.createDoubleBinding(() -> icon.getValue().canRotate() ?
+                Units.convertTo(state.getTrackOrHeading(), Units.Angle.DEGREE) : 0, icon, state.trackOrHeadingProperty()));
     }
 
     /**
@@ -203,26 +204,22 @@ public final class AircraftController {
      * Constructs the first line of the label for the specified aircraft state.
      *
      * @param state The observable aircraft state for which to construct the first line of the label.
-     *              If the aircraft data is not null, the first line of the label is the aircraft's registration
-     *              and won't change hence no bindings.
+     *              If the aircraft data is not null, the first line of the label is the aircraft's registration.
      *              If the aircraft data is null, the first line of the label is the aircraft's call sign or ICAO address
-     *              depending on whether the call sign is null or not. Hence, the first line of the label is bound to the call sign property.
+     *              depending on whether the call sign is null or not.
+     *              As the aircraft data is read asynchronously from the database, the line is bound to both properties.
      * @return The first line of the label as an observable string value.
      */
     private ObservableStringValue aircraftIdentificationLabelLine(ObservableAircraftState state) {
-        StringProperty labelFirstLine = new SimpleStringProperty();
-        if (Objects.nonNull(state.aircraftData())) {
-            labelFirstLine.set(state.aircraftData().registration().string());
-        } else {
-            labelFirstLine.bind(Bindings.createStringBinding(() -> {
-                if (Objects.nonNull(state.getCallSign())) {
-                    return state.getCallSign().string();
-                } else {
-                    return state.getIcaoAddress().string();
-                }
-            }, state.callSignProperty()));
-        }
-        return labelFirstLine;
+        return Bindings.createStringBinding(() -> {
+            if (Objects.nonNull(state.aircraftData())) {
+                return state.aircraftData().registration().string();
+            } else if (Objects.nonNull(state.getCallSign())) {
+                return state.getCallSign().string();
+            } else {
+                return state.getIcaoAddress().string();
+            }
+        }, state.aircraftDataProperty(), state.callSignProperty());
     }
 
     /**
@@ -291,7 +288,7 @@ public final class AircraftController {
         // if zoom level changes, redraw the trajectory
         mapParameters.zoomLevelProperty().addListener((observable1, oldValue1, newValue1) -> drawTrajectory(state, trajectory));
         // if the trajectory changes, redraw the trajectory
-        state.getTrajectory().addListener((ListChangeListener<ObservableAircraftState.AirbornePos>) c -> drawTrajectory(state, trajectory));
+        state.getTrajectory().addListener((ListChangeListener<AirbornePos>) c -> drawTrajectory(state, trajectory));
         // bind the layoutX and layoutY properties of the trajectory to the negation of the min x and min y properties of the map parameters
         trajectory.layoutXProperty().bind(mapParameters.minXProperty().negate());
         trajectory.layoutYProperty().bind(mapParameters.minYProperty().negate());
@@ -306,7 +303,7 @@ public final class AircraftController {
     private void drawTrajectory(ObservableAircraftState state, Group trajectory) {
         trajectory.getChildren().clear();
 
-        List<ObservableAircraftState.AirbornePos> positions = state.getTrajectory();
+        List<AirbornePos> positions = state.getTrajectory();
         if (positions.isEmpty()) {
             return;
         }
@@ -346,7 +343,7 @@ public final class AircraftController {
      * @param endY      The y coordinate of the end of the line.
      * @param line      The line to be coloured.
      */
-    private void colourTrajectory(int i, List<ObservableAircraftState.AirbornePos> positions, double x, double y,
+    private void colourTrajectory(int i, List<AirbornePos> positions, double x, double y,
                                   double endX, double endY, Line line) {
         double p1 = positions.get(i).altitude();
         double p2 = positions.get(i + 1).altitude();
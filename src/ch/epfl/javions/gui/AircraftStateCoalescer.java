@@ -0,0 +1,82 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.javions.engine.AircraftStateDelta;
+import ch.epfl.javions.engine.AircraftStateListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The subscriber of the GUI to the AircraftStateStore of the engine, which combines the deltas of each aircraft
+ * until the JavaFX thread takes them. Many messages of an aircraft are received within a frame, and each one would fire
+ * the listeners and bindings of its ObservableAircraftState if it was applied on the JavaFX thread: once coalesced,
+ * the JavaFX thread only applies one delta per aircraft which changed, so its work per frame depends on the number of aircraft
+ * instead of the number of messages.
+ * <p>
+ * The aircraft forgotten by the store are forwarded as well, the store being the only one to decide how long an aircraft lives.
+ * A removal drops the pending delta of the aircraft, so that the deltas taken after it are the ones of a new aircraft.
+ * <p>
+ * The changes are received on the thread of the store, and taken by the JavaFX thread once per frame, the two being synchronized.
+ *
+ * @see AircraftStateManager#updateWithDelta(AircraftStateDelta)
+ * @see AircraftStateManager#remove(IcaoAddress)
+ */
+public final class AircraftStateCoalescer implements AircraftStateListener {
+    private final Map<IcaoAddress, AircraftStateDelta> pendingDeltas = new LinkedHashMap<>();
+    private final Set<IcaoAddress> pendingRemovals = new LinkedHashSet<>();
+
+    @Override
+    public synchronized void aircraftUpdated(AircraftStateDelta delta) {
+        pendingDeltas.merge(delta.icaoAddress(), delta, AircraftStateDelta::followedBy);
+    }
+
+    @Override
+    public synchronized void aircraftRemoved(IcaoAddress icaoAddress) {
+        pendingDeltas.remove(icaoAddress);
+        pendingRemovals.add(icaoAddress);
+    }
+
+    /**
+     * Applies the changes of the aircraft since the last call to a manager: the aircraft forgotten are removed first,
+     * then at most one delta per aircraft is applied, in the order in which the aircraft first changed.
+     * Both are taken at once, and applied outside the lock so that the thread of the store is never blocked by the manager.
+     *
+     * @param manager the manager of the states observed by the GUI
+     */
+    public void drainTo(AircraftStateManager manager) {
+        List<IcaoAddress> removals;
+        List<AircraftStateDelta> deltas;
+        synchronized (this) {
+            removals = takeRemovals();
+            deltas = takeDeltas();
+        }
+        removals.forEach(manager::remove);
+        deltas.forEach(manager::updateWithDelta);
+    }
+
+    /**
+     * @return the deltas of the aircraft which changed since the last call, at most one per aircraft
+     */
+    synchronized List<AircraftStateDelta> takeDeltas() {
+        List<AircraftStateDelta> deltas = new ArrayList<>(pendingDeltas.values());
+        pendingDeltas.clear();
+        return deltas;
+    }
+
+    /**
+     * @return the ICAO addresses of the aircraft forgotten since the last call
+     */
+    synchronized List<IcaoAddress> takeRemovals() {
+        List<IcaoAddress> removals = new ArrayList<>(pendingRemovals);
+        pendingRemovals.clear();
+        return removals;
+    }
+}
@@ -2,16 +2,26 @@ package ch.epfl.javions.gui;
 
 import ch.epfl.javions.adsb.AircraftStateAccumulator;
 import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.aircraft.AircraftData;
 import ch.epfl.javions.aircraft.AircraftDatabase;
 import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.javions.aircraft.IcaoAddressMap;
+import ch.epfl.javions.engine.AircraftStateDelta;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableSet;
-import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author @franklintra (362694)
@@ -21,23 +31,54 @@ import java.util.Map;
  * It links the aircraft to their state accumulators, removes aircraft that have not been updated for more than 60 seconds,
  * and provides an unmodifiable observable set of aircraft states that is used by JavaFX.
  * This class is used to update and track the states of multiple aircraft based on received messages.
+ * The aircraft data is read from the database on a background executor, so that the first message of an aircraft never
+ * waits for the database file: the state is created without data, which is set once the lookup completes.
+ * The aircraft which appear while a lookup is running are looked up together by the next one, with a single read of the database.
+ * The states updated with the deltas of the engine are removed when its AircraftStateStore forgets them, and never by purge:
+ * the store is then the only one to decide how long an aircraft lives.
  */
 public final class AircraftStateManager {
     public final static double maxMessageAge = 60 * 1e9;
     private final AircraftDatabase database;
-    private final Map<IcaoAddress, AircraftStateAccumulator<ObservableAircraftState>> aircraftStateAccumulators;
+    private final Executor lookupExecutor;
+    private final Executor updateExecutor;
+    // the states whose data hasn't been looked up yet, and whether a lookup is scheduled to do it
+    private final Queue<ObservableAircraftState> pendingLookups = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean lookupScheduled = new AtomicBoolean();
+    // keyed by the bits of the ICAO addresses
+    private final IcaoAddressMap<AircraftStateAccumulator<ObservableAircraftState>> aircraftStateAccumulators;
     private final ObservableSet<ObservableAircraftState> aircraftStates = FXCollections.observableSet(new HashSet<>());
     private final ObservableSet<ObservableAircraftState> observableUnmodifiableAircraftStates = FXCollections.unmodifiableObservableSet(aircraftStates);
+    // the time stamp of the last message given to updateWithMessage, the deltas leaving it unchanged
     private long lastTimeStampNs;
 
     /**
      * Creates a new AircraftStateManager with the specified aircraft database.
+     * The database is read on a single background thread and the aircraft data is set on the JavaFX thread.
      *
      * @param aircraftDatabase the database of aircraft
      */
     public AircraftStateManager(AircraftDatabase aircraftDatabase) {
-        this.aircraftStateAccumulators = new HashMap<>();
-        this.database = aircraftDatabase;
+        this(aircraftDatabase, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "aircraft-database");
+            thread.setDaemon(true);
+            return thread;
+        }), Platform::runLater);
+    }
+
+    /**
+     * Creates a new AircraftStateManager with the specified aircraft database and executors.
+     *
+     * @param aircraftDatabase the database of aircraft
+     * @param lookupExecutor   the executor on which the database is read
+     * @param updateExecutor   the executor on which the aircraft data is set once read, which must be the thread observing the states
+     * @throws NullPointerException if one of the arguments is null
+     */
+    public AircraftStateManager(AircraftDatabase aircraftDatabase, Executor lookupExecutor, Executor updateExecutor) {
+        this.aircraftStateAccumulators = new IcaoAddressMap<>();
+        this.database = Objects.requireNonNull(aircraftDatabase);
+        this.lookupExecutor = Objects.requireNonNull(lookupExecutor);
+        this.updateExecutor = Objects.requireNonNull(updateExecutor);
     }
 
     /**
@@ -53,38 +94,111 @@ public final class AircraftStateManager {
      * Updates the state of the aircraft with the given message
      * and creates them when the first message is received.
      *
+     * The aircraft data of a new aircraft is looked up asynchronously, so this method never reads the database file.
+     *
      * @param message the message to update the state with
      */
-    public void updateWithMessage(Message message) throws IOException {
+    public void updateWithMessage(Message message) {
         lastTimeStampNs = message.timeStampNs();
-        IcaoAddress icaoAddress = message.icaoAddress();
-
-        aircraftStateAccumulators.putIfAbsent(icaoAddress,
-                new AircraftStateAccumulator<>(
-                        new ObservableAircraftState(icaoAddress, database.get(icaoAddress)))
-        );
-        aircraftStateAccumulators.get(icaoAddress).update(message);
+        AircraftStateAccumulator<ObservableAircraftState> accumulator = accumulatorOf(message.icaoAddress());
+        accumulator.update(message);
 
         // We only add the aircraft to the observableAircraftStates if it has a known position
-        if (aircraftStateAccumulators.get(icaoAddress).stateSetter().getPosition() != null) {
-            aircraftStates.add(aircraftStateAccumulators.get(icaoAddress).stateSetter());
+        if (accumulator.stateSetter().getPosition() != null) {
+            aircraftStates.add(accumulator.stateSetter());
         }
     }
 
     /**
-     * Removes all aircraft states that have not been updated for more than 60 seconds.
-     * This method is called in the AnimationTimer of the main JavaFX thread.
+     * Updates the state of an aircraft with the changes published by an AircraftStateCoalescer,
+     * and creates it when its first delta is received, as updateWithMessage does for the messages.
      *
-     * @see Main#start(Stage)
+     * @param delta the changes of the state of the aircraft
+     * @see AircraftStateCoalescer
      */
-    public void purge() {
-        aircraftStates.removeIf(state -> {
-            if (lastTimeStampNs - state.getLastMessageTimeStampNs() > maxMessageAge) {
-                // If the last message is too old: Remove the aircraft from the accumulator as well
-                aircraftStateAccumulators.remove(state.getIcaoAddress());
-                return true; // Remove the aircraft from the observableAircraftStates
+    public void updateWithDelta(AircraftStateDelta delta) {
+        ObservableAircraftState state = accumulatorOf(delta.icaoAddress()).stateSetter();
+        state.applyDelta(delta);
+        if (state.getPosition() != null) {
+            aircraftStates.add(state);
+        }
+    }
+
+    /**
+     * Returns the accumulator of an aircraft, which is created with its state the first time, and whose data
+     * is then looked up asynchronously
+     *
+     * @param icaoAddress the ICAO address of the aircraft
+     * @return the accumulator of the aircraft
+     */
+    private AircraftStateAccumulator<ObservableAircraftState> accumulatorOf(IcaoAddress icaoAddress) {
+        AircraftStateAccumulator<ObservableAircraftState> accumulator = aircraftStateAccumulators.get(icaoAddress.value());
+        if (accumulator == null) {
+            ObservableAircraftState state = new ObservableAircraftState(icaoAddress, null);
+            accumulator = new AircraftStateAccumulator<>(state);
+            aircraftStateAccumulators.put(icaoAddress.value(), accumulator);
+            pendingLookups.add(state);
+            if (lookupScheduled.compareAndSet(false, true)) {
+                lookupExecutor.execute(this::lookUpPendingAircraft);
             }
-            return false; // Do not remove the aircraft from the observableAircraftStates (it is still active)
-        });
+        }
+        return accumulator;
+    }
+
+    /**
+     * Looks up the data of all the aircraft which appeared since the last lookup, with a single batch lookup,
+     * then sets it on the update executor.
+     * If the database can't be read, the aircraft are simply displayed without their data.
+     */
+    private void lookUpPendingAircraft() {
+        // cleared before the queue is drained, so that the aircraft added meanwhile schedule another lookup
+        lookupScheduled.set(false);
+        List<ObservableAircraftState> states = new ArrayList<>();
+        for (ObservableAircraftState state; (state = pendingLookups.poll()) != null; ) {
+            states.add(state);
+        }
+        if (states.isEmpty()) {
+            return;
+        }
+        try {
+            Map<IcaoAddress, AircraftData> data = database.getAll(states.stream().map(ObservableAircraftState::getIcaoAddress).toList());
+            updateExecutor.execute(() -> states.forEach(state -> state.setAircraftData(data.get(state.getIcaoAddress()))));
+        } catch (IOException e) {
+            // the aircraft stay without data
+        }
+    }
+
+    /**
+     * Removes all aircraft states that have not been updated for more than 60 seconds before the last message
+     * given to updateWithMessage.
+     * The states updated with deltas are left to remove(IcaoAddress), so that an aircraft forgotten by the store
+     * and heard again can't have the delta of its new state applied to an old one.
+     */
+    public void purge() {
+        aircraftStates.removeIf(this::isOutdated);
+        // the aircraft whose position was never known are not in the observableAircraftStates, but they are removed as well
+        aircraftStateAccumulators.removeIf(accumulator -> isOutdated(accumulator.stateSetter()));
+    }
+
+    /**
+     * @param state the state of an aircraft
+     * @return true if the last message of the aircraft is too old
+     */
+    private boolean isOutdated(ObservableAircraftState state) {
+        return lastTimeStampNs - state.getLastMessageTimeStampNs() > maxMessageAge;
+    }
+
+    /**
+     * Removes the state of an aircraft, which the AircraftStateStore has forgotten. If the aircraft sends a message again,
+     * its next delta creates a new state, as for an aircraft never seen.
+     *
+     * @param icaoAddress the ICAO address of the aircraft
+     * @see AircraftStateCoalescer
+     */
+    public void remove(IcaoAddress icaoAddress) {
+        AircraftStateAccumulator<ObservableAircraftState> accumulator = aircraftStateAccumulators.remove(icaoAddress.value());
+        if (accumulator != null) {
+            aircraftStates.remove(accumulator.stateSetter());
+        }
     }
 }
@@ -5,7 +5,6 @@ import ch.epfl.javions.adsb.CallSign;
 import ch.epfl.javions.aircraft.AircraftData;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableSet;
@@ -88,10 +87,10 @@ public class AircraftTableController {
         // Text columns
         createTextColumn("OACI", ICAO_COLUMN_WIDTH, state -> new ReadOnlyStringWrapper(state.getIcaoAddress().string()));
         createTextColumn("Indicatif", CALLSIGN_COLUMN_WIDTH, state -> state.callSignProperty().map(CallSign::string));
-        createTextColumn("Immatriculation", REGISTRATION_COLUMN_WIDTH, state -> new ReadOnlyObjectWrapper<>(state.aircraftData()).map(ad -> ad.registration().string()));
-        createTextColumn("Modèle", MODEL_COLUMN_WIDTH, state -> new ReadOnlyObjectWrapper<>(state.aircraftData()).map(AircraftData::model));
-        createTextColumn("Type", TYPE_COLUMN_WIDTH, state -> new ReadOnlyObjectWrapper<>(state.aircraftData()).map(ad -> ad.typeDesignator().string()));
-        createTextColumn("Description", DESCRIPTION_COLUMN_WIDTH, state -> new ReadOnlyObjectWrapper<>(state.aircraftData()).map(ad -> ad.description().string()));
+        createTextColumn("Immatriculation", REGISTRATION_COLUMN_WIDTH, state -> state.aircraftDataProperty().map(ad -> ad.registration().string()));
+        createTextColumn("Modèle", MODEL_COLUMN_WIDTH, state -> state.aircraftDataProperty().map(AircraftData::model));
+        createTextColumn("Type", TYPE_COLUMN_WIDTH, state -> state.aircraftDataProperty().map(ad -> ad.typeDesignator().string()));
+        createTextColumn("Description", DESCRIPTION_COLUMN_WIDTH, state -> state.aircraftDataProperty().map(ad -> ad.description().string()));
 
         // Numeric columns
         createNumericColumn("Longitude (°)", 4, state -> state.positionProperty().map(position -> Units.convertTo(position.longitude(), Units.Angle.DEGREE)));
@@ -1,10 +1,13 @@
 package ch.epfl.javions.gui;
 
 import ch.epfl.javions.GeoPos;
+import ch.epfl.javions.Preconditions;
 import ch.epfl.javions.adsb.AircraftStateSetter;
 import ch.epfl.javions.adsb.CallSign;
 import ch.epfl.javions.aircraft.AircraftData;
 import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.javions.engine.AirbornePos;
+import ch.epfl.javions.engine.AircraftStateDelta;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -23,7 +26,7 @@ import java.util.Objects;
  */
 public final class ObservableAircraftState implements AircraftStateSetter {
     private final IcaoAddress icaoAddress;
-    private final AircraftData aircraftData;
+    private final ObjectProperty<AircraftData> aircraftData = new SimpleObjectProperty<>();
     private final LongProperty lastMessageTimeStampNs = new SimpleLongProperty();
     private final IntegerProperty category = new SimpleIntegerProperty();
     private final Property<CallSign> callSign = new SimpleObjectProperty<>();
@@ -37,6 +40,7 @@ public final class ObservableAircraftState implements AircraftStateSetter {
 
     /**
      * Constructs an ObservableAircraftState object with the given ICAO address and aircraft data.
+     * The aircraft data can be null and set later, when it has been read from the database.
      *
      * @param icaoAddress  the ICAO address of the aircraft
      * @param aircraftData the aircraft data
@@ -44,7 +48,7 @@ public final class ObservableAircraftState implements AircraftStateSetter {
      */
     public ObservableAircraftState(IcaoAddress icaoAddress, AircraftData aircraftData) {
         this.icaoAddress = icaoAddress;
-        this.aircraftData = aircraftData;
+        this.aircraftData.set(aircraftData);
     }
 
     /**
@@ -53,6 +57,25 @@ public final class ObservableAircraftState implements AircraftStateSetter {
      * @return the aircraft data
      */
     public AircraftData aircraftData() {
+        return aircraftData.get();
+    }
+
+    /**
+     * Sets the aircraft data, once it has been read from the database.
+     *
+     * @param aircraftData the aircraft data
+     */
+    public void setAircraftData(AircraftData aircraftData) {
+        this.aircraftData.set(aircraftData);
+    }
+
+    /**
+     * Returns the read-only property for the aircraft data, which is null until the data has been read from the database
+     * (and stays null if the aircraft isn't in the database).
+     *
+     * @return the aircraft data property
+     */
+    public ReadOnlyObjectProperty<AircraftData> aircraftDataProperty() {
         return aircraftData;
     }
 
@@ -180,6 +203,29 @@ public final class ObservableAircraftState implements AircraftStateSetter {
         }
     }
 
+    /**
+     * Applies the changes of a delta to the state: the attributes are set to the ones of the delta, which fires
+     * the listeners of those which changed, and the trajectory is changed at once.
+     *
+     * @param delta the delta of this aircraft
+     * @throws IllegalArgumentException if the delta is the one of another aircraft
+     */
+    void applyDelta(AircraftStateDelta delta) {
+        Preconditions.checkArgument(delta.icaoAddress().equals(icaoAddress));
+        lastMessageTimeStampNs.set(delta.lastMessageTimeStampNs());
+        category.set(delta.category());
+        callSign.setValue(delta.callSign());
+        position.setValue(delta.position());
+        altitude.set(delta.altitude());
+        velocity.set(delta.velocity());
+        trackOrHeading.set(delta.trackOrHeading());
+        int start = Math.min(delta.trajectoryStart(), trajectory.size());
+        if (start < trajectory.size()) {
+            trajectory.remove(start, trajectory.size());
+        }
+        trajectory.addAll(delta.trajectoryPoints());
+    }
+
     /**
      * Returns the velocity of the aircraft.
      *
@@ -289,15 +335,4 @@ public final class ObservableAircraftState implements AircraftStateSetter {
     public ReadOnlyDoubleProperty trackOrHeadingProperty() {
         return trackOrHeading;
     }
-
-    /**
-     * The AirbornePos record class
-     * Represents the position of the aircraft in the air
-     * (GeoPos + altitude)
-     *
-     * @param pos      the position of the aircraft
-     * @param altitude the altitude of the aircraft
-     */
-    public record AirbornePos(GeoPos pos, double altitude) {
-    }
 }
\ No newline at end of file
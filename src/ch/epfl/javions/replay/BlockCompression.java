@@ -0,0 +1,108 @@
+package ch.epfl.javions.replay;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The compression of the blocks of a recording. Each block is compressed on its own, so that it can be read without the others.
+ */
+public enum BlockCompression {
+    /**
+     * The blocks are stored as they are, which is the fastest to read
+     */
+    NONE {
+        @Override
+        byte[] compress(byte[] data) {
+            return data;
+        }
+
+        @Override
+        byte[] decompress(byte[] stored, int length) throws IOException {
+            if (stored.length != length) {
+                throw new IOException("Corrupted block");
+            }
+            return stored;
+        }
+    },
+    /**
+     * The blocks are compressed with Deflate, which takes a few times less space
+     */
+    DEFLATE {
+        @Override
+        byte[] compress(byte[] data) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                byte[] stored = new byte[(int) maxStoredLength(data.length)];
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == stored.length) {
+                        stored = Arrays.copyOf(stored, 2 * stored.length);
+                    }
+                    length += deflater.deflate(stored, length, stored.length - length);
+                }
+                return Arrays.copyOf(stored, length);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        byte[] decompress(byte[] stored, int length) throws IOException {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(stored);
+                byte[] data = new byte[length];
+                int inflated = 0;
+                while (inflated < length && !inflater.finished()) {
+                    int n = inflater.inflate(data, inflated, length - inflated);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    inflated += n;
+                }
+                // the end of the stream may only be read once the block is full, and nothing may follow it
+                if (inflated == length && !inflater.finished() && inflater.inflate(new byte[1]) != 0) {
+                    throw new IOException("Corrupted block");
+                }
+                if (inflated != length || !inflater.finished() || inflater.getRemaining() != 0) {
+                    throw new IOException("Corrupted block");
+                }
+                return data;
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted block", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    };
+
+    /**
+     * @param length the length of an encoded block
+     * @return the largest length of the block once stored, which is enough for incompressible data
+     */
+    static long maxStoredLength(int length) {
+        return length + length / 1000L + 64;
+    }
+
+    /**
+     * @param data the encoded block
+     * @return the block as it is stored in the file
+     */
+    abstract byte[] compress(byte[] data);
+
+    /**
+     * @param stored the block as it is stored in the file
+     * @param length the length of the encoded block, at most RecordingBlock.maxLength of its number of messages
+     * @return the encoded block
+     * @throws IOException if the block is corrupted
+     */
+    abstract byte[] decompress(byte[] stored, int length) throws IOException;
+}
@@ -0,0 +1,281 @@
+package ch.epfl.javions.replay;
+
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.adsb.CompactRawMessage;
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * Replays a file of recorded messages, made of records of a time stamp (a long) followed by the 14 bytes of a message,
+ * sorted by time stamp. The messages are returned at the given speed relative to their time stamps: 1 for real time,
+ * N to go N times faster, or MAX_SPEED to return them as fast as they can be read.
+ * <p>
+ * The replay can start at any time stamp of the file: as the records have a fixed size, the file is its own index,
+ * and the first record to replay is found by a binary search over the time stamps of the records.
+ * The recordings written by RecordingWriter are replayed as well: they are recognized by their magic number,
+ * and their index gives the block from which they are replayed.
+ * The pace is computed from the time at which the replay started, not from the previous message,
+ * so that the delays of the consumer don't accumulate.
+ * <p>
+ * The replayer also counts the messages returned and the time taken, to report the throughput of a replay.
+ */
+public final class MessageReplayer implements AutoCloseable {
+    /**
+     * The size of a record of the file: the time stamp followed by the message
+     */
+    public static final int RECORD_BYTES = Long.BYTES + RawMessage.LENGTH;
+    /**
+     * The speed at which the messages are returned as fast as they can be read
+     */
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+    private static final int BUFFER_RECORDS = 4096;
+    private final FileChannel channel;
+    private final RecordingReader recording; // null if the file is a flat file of records
+    private final long startTimeStampNs;
+    private Iterator<RawMessage> block = Collections.emptyIterator(); // the messages of the current block of the recording
+    private int nextBlock;
+    private final double speed;
+    private final LongSupplier clock;
+    private final LongConsumer sleeper;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_BYTES).flip();
+    private long position;
+    private long firstTimeStampNs = -1;
+    private long startNs;
+    private long lastNs;
+    private long messages;
+
+    /**
+     * Constructs a replayer of the whole file at the given speed
+     *
+     * @param file  the file of recorded messages, or a recording
+     * @param speed the speed of the replay, 1 for real time and MAX_SPEED for no pacing at all
+     * @throws IOException              if the file could not be opened
+     * @throws IllegalArgumentException if the speed isn't strictly positive
+     */
+    public MessageReplayer(Path file, double speed) throws IOException {
+        this(file, speed, 0);
+    }
+
+    /**
+     * Constructs a replayer at the given speed, which starts at the first message whose time stamp is at least the given one
+     *
+     * @param file             the file of recorded messages, or a recording
+     * @param speed            the speed of the replay, 1 for real time and MAX_SPEED for no pacing at all
+     * @param startTimeStampNs the time stamp from which the messages are replayed
+     * @throws IOException              if the file could not be read
+     * @throws IllegalArgumentException if the speed isn't strictly positive
+     */
+    public MessageReplayer(Path file, double speed, long startTimeStampNs) throws IOException {
+        this(file, speed, startTimeStampNs, System::nanoTime, LockSupport::parkNanos);
+    }
+
+    /**
+     * Constructs a replayer with the given clock, so that the pace can be tested
+     *
+     * @param file             the file of recorded messages
+     * @param speed            the speed of the replay
+     * @param startTimeStampNs the time stamp from which the messages are replayed
+     * @param clock            the clock, in nanoseconds
+     * @param sleeper          the function which waits for the given number of nanoseconds (or less)
+     * @throws IOException if the file could not be read
+     */
+    MessageReplayer(Path file, double speed, long startTimeStampNs, LongSupplier clock, LongConsumer sleeper) throws IOException {
+        Preconditions.checkArgument(speed > 0);
+        this.speed = speed;
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.startTimeStampNs = startTimeStampNs;
+        if (RecordingReader.isRecording(file)) {
+            this.channel = null;
+            this.recording = new RecordingReader(file);
+            this.nextBlock = recording.blockAt(startTimeStampNs);
+        } else {
+            this.recording = null;
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                this.position = firstRecordFrom(startTimeStampNs) * RECORD_BYTES;
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Finds the first record whose time stamp is at least the given one, with a binary search over the records
+     *
+     * @param timeStampNs the time stamp
+     * @return the index of the record, or the number of records if there is none
+     * @throws IOException if the file could not be read
+     */
+    private long firstRecordFrom(long timeStampNs) throws IOException {
+        long low = 0;
+        long high = channel.size() / RECORD_BYTES;
+        ByteBuffer timeStamp = ByteBuffer.allocate(Long.BYTES);
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            timeStamp.clear();
+            while (timeStamp.hasRemaining()) {
+                if (channel.read(timeStamp, middle * RECORD_BYTES + timeStamp.position()) < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+            if (timeStamp.getLong(0) < timeStampNs) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the next message of the file, once it is time to replay it
+     *
+     * @return the next message, or null if there are no more messages in the file
+     * @throws IOException if the file could not be read
+     */
+    public RawMessage nextMessage() throws IOException {
+        CompactRawMessage message = nextCompactMessage();
+        return message == null ? null : message.toRawMessage();
+    }
+
+    /**
+     * Returns the next message of the file in compact form, once it is time to replay it.
+     * The records of a flat file are read straight from the buffer into the two longs of the message.
+     *
+     * @return the next message, or null if there are no more messages in the file
+     * @throws IOException if the file could not be read
+     */
+    public CompactRawMessage nextCompactMessage() throws IOException {
+        CompactRawMessage message = recording == null ? nextRecord() : nextRecordedMessage();
+        if (message != null) {
+            pace(message.timeStampNs());
+            messages++;
+        }
+        return message;
+    }
+
+    /**
+     * @return the next record of the flat file, or null if there are no more records
+     * @throws IOException if the file could not be read
+     */
+    private CompactRawMessage nextRecord() throws IOException {
+        if (buffer.remaining() < RECORD_BYTES && !fill()) {
+            return null;
+        }
+        long timeStampNs = buffer.getLong();
+        long high = buffer.getLong();
+        // the 6 last bytes of the message, big-endian as the buffer
+        long low = (buffer.getShort() & 0xFFFFL) << Integer.SIZE | buffer.getInt() & 0xFFFF_FFFFL;
+        return new CompactRawMessage(timeStampNs, high, low);
+    }
+
+    /**
+     * @return the next message of the recording from the start time stamp, or null if there are no more messages
+     * @throws IOException if the recording could not be read
+     */
+    private CompactRawMessage nextRecordedMessage() throws IOException {
+        while (true) {
+            while (!block.hasNext()) {
+                if (nextBlock >= recording.blockCount()) {
+                    return null;
+                }
+                block = recording.readBlock(nextBlock++).iterator();
+            }
+            RawMessage message = block.next();
+            // the first block may start before the start time stamp
+            if (message.timeStampNs() >= startTimeStampNs) {
+                return CompactRawMessage.of(message);
+            }
+        }
+    }
+
+    /**
+     * Reads the next records of the file in the buffer
+     *
+     * @return false if there are no more complete records in the file
+     * @throws IOException if the file could not be read
+     */
+    private boolean fill() throws IOException {
+        buffer.compact();
+        int read;
+        while (buffer.hasRemaining() && (read = channel.read(buffer, position)) >= 0) {
+            position += read;
+        }
+        buffer.flip();
+        return buffer.remaining() >= RECORD_BYTES;
+    }
+
+    /**
+     * Waits until it is time to replay the message with the given time stamp
+     *
+     * @param timeStampNs the time stamp of the message
+     */
+    private void pace(long timeStampNs) {
+        long now = clock.getAsLong();
+        if (firstTimeStampNs < 0) {
+            firstTimeStampNs = timeStampNs;
+            startNs = now;
+        }
+        if (speed != MAX_SPEED) {
+            long dueNs = startNs + (long) ((timeStampNs - firstTimeStampNs) / speed);
+            // stops pacing once interrupted, so that the thread can finish
+            while (now - dueNs < 0 && !Thread.currentThread().isInterrupted()) {
+                sleeper.accept(dueNs - now);
+                now = clock.getAsLong();
+            }
+        }
+        lastNs = now;
+    }
+
+    /**
+     * @return the number of messages returned so far
+     */
+    public long messages() {
+        return messages;
+    }
+
+    /**
+     * @return the time elapsed between the first and the last message returned, in nanoseconds
+     */
+    public long elapsedNs() {
+        return messages == 0 ? 0 : lastNs - startNs;
+    }
+
+    /**
+     * @return the number of messages returned per second of replay, or 0 if less than two messages were returned
+     */
+    public double messagesPerSecond() {
+        long elapsedNs = elapsedNs();
+        return elapsedNs == 0 ? 0 : messages * 1e9 / elapsedNs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (recording == null) {
+            channel.close();
+        } else {
+            recording.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MessageReplayer[speed=" + (speed == MAX_SPEED ? "max" : speed + "x") + ", messages=" + messages + ", elapsedMs=" + elapsedNs() / 1_000_000
+                + ", messagesPerSecond=" + Math.round(messagesPerSecond()) + "]";
+    }
+}
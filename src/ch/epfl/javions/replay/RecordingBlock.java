@@ -0,0 +1,185 @@
+package ch.epfl.javions.replay;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * The encoding of a block of messages of a recording. The fields of the messages are stored by column,
+ * so that the similar bytes are next to each other when the block is compressed:
+ * <ol>
+ *     <li>the number of messages n, as a variable-length integer,</li>
+ *     <li>the time stamp of the first message, as a long, then the n - 1 differences between the time stamps of consecutive messages,
+ *     as variable-length integers (the messages are sorted by time stamp, so they are positive and small),</li>
+ *     <li>the dictionary of the distinct addresses of the block, its size as a variable-length integer then 3 bytes per address,</li>
+ *     <li>the n indices of the addresses of the messages in the dictionary, as variable-length integers,</li>
+ *     <li>the n first bytes of the messages (their DF and CA),</li>
+ *     <li>the n last 10 bytes of the messages (their ME and parity).</li>
+ * </ol>
+ * The variable-length integers are stored 7 bits per byte, least significant first, the highest bit being set on all the bytes but the last.
+ */
+final class RecordingBlock {
+    private static final int ADDRESS_START = 1;
+    private static final int ADDRESS_BYTES = 3;
+    private static final int PAYLOAD_START = ADDRESS_START + ADDRESS_BYTES;
+    private static final int PAYLOAD_BYTES = RawMessage.LENGTH - PAYLOAD_START;
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = (1 << VARINT_BITS) - 1;
+    private static final int VARINT_CONTINUATION = 1 << VARINT_BITS;
+    private static final int MAX_VARINT_BYTES = 5; // of an int
+    private static final int MAX_VARLONG_BYTES = 10;
+    // a message takes at least its first and last bytes, and at most a difference of time stamps, an address and its index as well
+    private static final int MIN_MESSAGE_BYTES = 1 + PAYLOAD_BYTES;
+    private static final int MAX_MESSAGE_BYTES = MAX_VARLONG_BYTES + ADDRESS_BYTES + MAX_VARINT_BYTES + MIN_MESSAGE_BYTES;
+
+    private RecordingBlock() {
+    }
+
+    /**
+     * @param count the number of messages of a block
+     * @return the largest length of the encoded block, which bounds the length read from the header of a block
+     */
+    static long maxLength(int count) {
+        return 2 * MAX_VARINT_BYTES + Long.BYTES + (long) count * MAX_MESSAGE_BYTES;
+    }
+
+    /**
+     * Encodes a block of messages
+     *
+     * @param messages the messages, sorted by time stamp, at least one
+     * @return the encoded block
+     */
+    static byte[] encode(List<RawMessage> messages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(messages.size() * RawMessage.LENGTH);
+        writeVarLong(out, messages.size());
+        long first = messages.get(0).timeStampNs();
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            out.write((int) (first >>> (i * Byte.SIZE)));
+        }
+        for (int i = 1; i < messages.size(); i++) {
+            writeVarLong(out, messages.get(i).timeStampNs() - messages.get(i - 1).timeStampNs());
+        }
+
+        Map<Integer, Integer> dictionary = new HashMap<>();
+        List<Integer> addresses = new ArrayList<>();
+        int[] indices = new int[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            int address = (int) messages.get(i).bytes().bytesInRange(ADDRESS_START, PAYLOAD_START);
+            indices[i] = dictionary.computeIfAbsent(address, a -> {
+                addresses.add(a);
+                return addresses.size() - 1;
+            });
+        }
+        writeVarLong(out, addresses.size());
+        for (int address : addresses) {
+            for (int i = ADDRESS_BYTES - 1; i >= 0; i--) {
+                out.write(address >>> (i * Byte.SIZE));
+            }
+        }
+        for (int index : indices) {
+            writeVarLong(out, index);
+        }
+
+        for (RawMessage message : messages) {
+            out.write(message.bytes().byteAt(0));
+        }
+        for (RawMessage message : messages) {
+            for (int i = PAYLOAD_START; i < RawMessage.LENGTH; i++) {
+                out.write(message.bytes().byteAt(i));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a block of messages
+     *
+     * @param data the encoded block
+     * @return the messages of the block
+     * @throws IOException if the block is corrupted
+     */
+    static List<RawMessage> decode(byte[] data) throws IOException {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data);
+            int count = Math.toIntExact(readVarLong(in));
+            if (count <= 0 || count > data.length / MIN_MESSAGE_BYTES) {
+                throw new IOException("Corrupted block");
+            }
+            long[] timeStamps = new long[count];
+            timeStamps[0] = in.getLong();
+            for (int i = 1; i < count; i++) {
+                timeStamps[i] = timeStamps[i - 1] + readVarLong(in);
+            }
+
+            int addressCount = Math.toIntExact(readVarLong(in));
+            if (addressCount <= 0 || addressCount > count) {
+                throw new IOException("Corrupted block");
+            }
+            byte[][] addresses = new byte[addressCount][ADDRESS_BYTES];
+            for (byte[] address : addresses) {
+                in.get(address);
+            }
+            byte[][] bytes = new byte[count][RawMessage.LENGTH];
+            for (byte[] message : bytes) {
+                System.arraycopy(addresses[Math.toIntExact(readVarLong(in))], 0, message, ADDRESS_START, ADDRESS_BYTES);
+            }
+            for (byte[] message : bytes) {
+                message[0] = in.get();
+            }
+            for (byte[] message : bytes) {
+                in.get(message, PAYLOAD_START, PAYLOAD_BYTES);
+            }
+            if (in.hasRemaining()) {
+                throw new IOException("Corrupted block");
+            }
+
+            List<RawMessage> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                messages.add(new RawMessage(timeStamps[i], new ByteString(bytes[i])));
+            }
+            return messages;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | ArithmeticException | IllegalArgumentException e) {
+            throw new IOException("Corrupted block", e);
+        }
+    }
+
+    /**
+     * @param out   the stream to write to
+     * @param value the positive value to write as a variable-length integer
+     */
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~VARINT_MASK) != 0) {
+            out.write((int) (value & VARINT_MASK) | VARINT_CONTINUATION);
+            value >>>= VARINT_BITS;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * @param in the buffer to read from
+     * @return the variable-length integer read
+     * @throws IOException if the integer is longer than a long
+     */
+    private static long readVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += VARINT_BITS) {
+            int b = in.get();
+            value |= (long) (b & VARINT_MASK) << shift;
+            if ((b & VARINT_CONTINUATION) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted block");
+    }
+}
@@ -0,0 +1,192 @@
+package ch.epfl.javions.replay;
+
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * Reads a recording written by RecordingWriter. The index of the blocks is read when the recording is opened,
+ * then the block which contains a time stamp is found by a binary search, and each block is read and decoded on its own.
+ * <p>
+ * The blocks are read with positional reads, so several threads can decode different blocks of the same reader at once.
+ */
+public final class RecordingReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final long[] firstTimeStamps;
+    private final long[] offsets;
+    private final int[] sizes;
+    private final long messageCount;
+
+    /**
+     * Opens a recording and reads its index
+     *
+     * @param file the file of the recording
+     * @throws IOException if the file could not be read or isn't a recording
+     */
+    public RecordingReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (!isRecording(channel) || size < Integer.BYTES + RecordingWriter.FOOTER_BYTES) {
+                throw new IOException("Not a recording: " + file);
+            }
+            ByteBuffer footer = read(size - RecordingWriter.FOOTER_BYTES, RecordingWriter.FOOTER_BYTES);
+            long indexOffset = footer.getLong();
+            int blockCount = footer.getInt();
+            if (footer.getInt() != RecordingWriter.MAGIC || blockCount < 0 || indexOffset < Integer.BYTES
+                    || indexOffset + (long) blockCount * RecordingWriter.INDEX_ENTRY_BYTES + RecordingWriter.FOOTER_BYTES != size) {
+                throw new IOException("Truncated recording: " + file);
+            }
+
+            ByteBuffer index = read(indexOffset, blockCount * RecordingWriter.INDEX_ENTRY_BYTES);
+            firstTimeStamps = new long[blockCount];
+            offsets = new long[blockCount];
+            sizes = new int[blockCount];
+            long count = 0;
+            for (int i = 0; i < blockCount; i++) {
+                firstTimeStamps[i] = index.getLong();
+                offsets[i] = index.getLong();
+                sizes[i] = index.getInt();
+                count += sizes[i];
+            }
+            messageCount = count;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param file a file
+     * @return true if the file starts with the magic number of the recordings
+     * @throws IOException if the file could not be read
+     */
+    public static boolean isRecording(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return isRecording(channel);
+        }
+    }
+
+    /**
+     * @param channel the channel of a file
+     * @return true if the file starts with the magic number of the recordings
+     * @throws IOException if the file could not be read
+     */
+    private static boolean isRecording(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+        while (magic.hasRemaining()) {
+            if (channel.read(magic, magic.position()) < 0) {
+                return false;
+            }
+        }
+        return magic.getInt(0) == RecordingWriter.MAGIC;
+    }
+
+    /**
+     * Reads bytes of the file at the given offset, without changing the position of the channel
+     *
+     * @param offset the offset of the bytes
+     * @param length the number of bytes
+     * @return a buffer with the bytes
+     * @throws IOException if the file could not be read or is too short
+     */
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of recording");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * @return the number of blocks of the recording
+     */
+    public int blockCount() {
+        return offsets.length;
+    }
+
+    /**
+     * @return the number of messages of the recording
+     */
+    public long messageCount() {
+        return messageCount;
+    }
+
+    /**
+     * @param block the index of a block
+     * @return the time stamp of the first message of the block
+     * @throws IndexOutOfBoundsException if the index isn't the one of a block
+     */
+    public long firstTimeStampNs(int block) {
+        Objects.checkIndex(block, offsets.length);
+        return firstTimeStamps[block];
+    }
+
+    /**
+     * Finds the block from which the messages of the given time stamp have to be read, with a binary search over the index
+     *
+     * @param timeStampNs a time stamp
+     * @return the index of the last block whose first message is older than the time stamp (the first block if there is none),
+     * or blockCount() if the recording is empty
+     */
+    public int blockAt(long timeStampNs) {
+        if (offsets.length == 0) {
+            return 0;
+        }
+        int low = 0;
+        int high = offsets.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (firstTimeStamps[middle] < timeStampNs) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Reads and decodes a block
+     *
+     * @param block the index of the block
+     * @return the messages of the block, sorted by time stamp
+     * @throws IOException               if the file could not be read or the block is corrupted
+     * @throws IndexOutOfBoundsException if the index isn't the one of a block
+     */
+    public List<RawMessage> readBlock(int block) throws IOException {
+        Objects.checkIndex(block, offsets.length);
+        ByteBuffer header = read(offsets[block], RecordingWriter.BLOCK_HEADER_BYTES);
+        int compression = header.get();
+        int length = header.getInt();
+        int storedLength = header.getInt();
+        // checked before anything is allocated, a corrupted length being up to 2 GiB
+        if (compression < 0 || compression >= BlockCompression.values().length || sizes[block] <= 0
+                || length < 0 || length > RecordingBlock.maxLength(sizes[block])
+                || storedLength < 0 || storedLength > BlockCompression.maxStoredLength(length)) {
+            throw new IOException("Corrupted block " + block);
+        }
+        byte[] stored = read(offsets[block] + RecordingWriter.BLOCK_HEADER_BYTES, storedLength).array();
+        List<RawMessage> messages = RecordingBlock.decode(BlockCompression.values()[compression].decompress(stored, length));
+        if (messages.size() != sizes[block]) {
+            throw new IOException("Corrupted block " + block);
+        }
+        return messages;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
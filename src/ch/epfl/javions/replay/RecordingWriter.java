@@ -0,0 +1,176 @@
+package ch.epfl.javions.replay;
+
+import ch.epfl.javions.Preconditions;
+import ch.epfl.javions.adsb.RawMessage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * Writes a recording of messages in the block format, which takes a fraction of the size of a flat file of messages
+ * and can be read from any time stamp. The file is made of, in order:
+ * <ol>
+ *     <li>the magic number, an int,</li>
+ *     <li>the blocks of at most blockSize messages, each one made of its compression (a byte), the length of the block once
+ *     decoded and the length stored (two ints), then the block as encoded by RecordingBlock and compressed,</li>
+ *     <li>the index of the blocks, made of the time stamp of the first message of each block (a long), its offset in the file
+ *     (a long) and its number of messages (an int),</li>
+ *     <li>the footer, made of the offset of the index (a long), the number of blocks (an int) and the magic number again.</li>
+ * </ol>
+ * As the index is at the end of the file, the recording can only be read once it has been closed.
+ * All the numbers are big-endian.
+ */
+public final class RecordingWriter implements AutoCloseable {
+    /**
+     * The default number of messages in a block, a few seconds of messages of a busy receiver
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+    static final int MAGIC = 0x4A56_5231; // "JVR1"
+    static final int BLOCK_HEADER_BYTES = Byte.BYTES + 2 * Integer.BYTES;
+    static final int INDEX_ENTRY_BYTES = 2 * Long.BYTES + Integer.BYTES;
+    static final int FOOTER_BYTES = Long.BYTES + 2 * Integer.BYTES;
+    private final DataOutputStream out;
+    private final BlockCompression compression;
+    private final int blockSize;
+    private final List<RawMessage> block = new ArrayList<>();
+    private final List<long[]> index = new ArrayList<>(); // the first time stamp, offset and size of each block
+    private long offset;
+    private long lastTimeStampNs;
+    private boolean closed;
+
+    /**
+     * Creates a recording with the default block size
+     *
+     * @param file        the file of the recording, replaced if it exists
+     * @param compression the compression of the blocks
+     * @throws IOException if the file could not be created
+     */
+    public RecordingWriter(Path file, BlockCompression compression) throws IOException {
+        this(file, compression, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a recording
+     *
+     * @param file        the file of the recording, replaced if it exists
+     * @param compression the compression of the blocks
+     * @param blockSize   the maximum number of messages in a block
+     * @throws IOException              if the file could not be created
+     * @throws IllegalArgumentException if the block size isn't strictly positive
+     */
+    public RecordingWriter(Path file, BlockCompression compression, int blockSize) throws IOException {
+        Preconditions.checkArgument(blockSize > 0);
+        this.compression = Objects.requireNonNull(compression);
+        this.blockSize = blockSize;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeInt(MAGIC);
+        offset = Integer.BYTES;
+    }
+
+    /**
+     * Converts a flat file of messages, as read by MessageReplayer, to a recording
+     *
+     * @param messagesFile  the flat file of messages
+     * @param recordingFile the file of the recording, replaced if it exists
+     * @param compression   the compression of the blocks
+     * @throws IOException if one of the files could not be read or written
+     */
+    public static void convert(Path messagesFile, Path recordingFile, BlockCompression compression) throws IOException {
+        try (MessageReplayer replayer = new MessageReplayer(messagesFile, MessageReplayer.MAX_SPEED);
+             RecordingWriter writer = new RecordingWriter(recordingFile, compression)) {
+            RawMessage message;
+            while ((message = replayer.nextMessage()) != null) {
+                writer.write(message);
+            }
+        }
+    }
+
+    /**
+     * Converts a flat file of messages to a recording compressed with Deflate.
+     * The arguments are the flat file and the recording file.
+     *
+     * @param args the command line arguments
+     * @throws IOException if one of the files could not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: RecordingWriter <messages.bin> <recording>");
+            System.exit(1);
+        }
+        convert(Path.of(args[0]), Path.of(args[1]), BlockCompression.DEFLATE);
+        System.out.println(Files.size(Path.of(args[0])) + " bytes converted to " + Files.size(Path.of(args[1])) + " bytes");
+    }
+
+    /**
+     * Adds a message to the recording
+     *
+     * @param message the message, whose time stamp can't be smaller than the one of the previous message
+     * @throws IOException              if the file could not be written
+     * @throws IllegalArgumentException if the message is older than the previous one
+     * @throws IllegalStateException    if the recording has been closed
+     */
+    public void write(RawMessage message) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The recording is closed");
+        }
+        Preconditions.checkArgument(message.timeStampNs() >= lastTimeStampNs);
+        lastTimeStampNs = message.timeStampNs();
+        block.add(message);
+        if (block.size() == blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Encodes, compresses and writes the current block, then empties it
+     *
+     * @throws IOException if the file could not be written
+     */
+    private void writeBlock() throws IOException {
+        byte[] data = RecordingBlock.encode(block);
+        byte[] stored = compression.compress(data);
+        index.add(new long[]{block.get(0).timeStampNs(), offset, block.size()});
+        out.writeByte(compression.ordinal());
+        out.writeInt(data.length);
+        out.writeInt(stored.length);
+        out.write(stored);
+        offset += BLOCK_HEADER_BYTES + stored.length;
+        block.clear();
+    }
+
+    /**
+     * Writes the last block and the index, then closes the file
+     *
+     * @throws IOException if the file could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (out) {
+            if (!block.isEmpty()) {
+                writeBlock();
+            }
+            long indexOffset = offset;
+            for (long[] entry : index) {
+                out.writeLong(entry[0]);
+                out.writeLong(entry[1]);
+                out.writeInt((int) entry[2]);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(index.size());
+            out.writeInt(MAGIC);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ch.epfl.javions.replay;
+
+import ch.epfl.javions.aircraft.AircraftData;
+import ch.epfl.javions.aircraft.AircraftDatabase;
+import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.javions.engine.DecodingEngine;
+import ch.epfl.javions.engine.MessageRing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author @franklintra (362694)
+ * @project Javions
+ * <p>
+ * Replays a file of recorded messages without the GUI, through the DecodingEngine, and reports the throughput of the replay
+ * and the number of aircraft seen, of which the data is then read from the database in a single batch.
+ * At MAX_SPEED, it measures how fast a whole recording can be processed.
+ * <p>
+ * Usage: {@code Replay <messages.bin> <aircraft.zip> [<speed>|max] [<start time stamp in ns>]}
+ */
+public final class Replay {
+    private Replay() {
+    }
+
+    /**
+     * Replays a file of recorded messages
+     *
+     * @param args the file of messages, the aircraft database, then optionally the speed and the time stamp to start from
+     * @throws IOException if one of the files could not be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Usage: Replay <messages.bin> <aircraft.zip> [<speed>|max] [<start time stamp in ns>]");
+            System.exit(1);
+        }
+        double speed = args.length < 3 || args[2].equals("max") ? MessageReplayer.MAX_SPEED : Double.parseDouble(args[2]);
+        long startTimeStampNs = args.length < 4 ? 0 : Long.parseLong(args[3]);
+
+        DecodingEngine engine = new DecodingEngine(MessageRing.OverflowPolicy.BLOCK);
+        Set<IcaoAddress> aircraft = ConcurrentHashMap.newKeySet();
+        engine.store().addListener(delta -> aircraft.add(delta.icaoAddress()));
+        try (MessageReplayer replayer = new MessageReplayer(Path.of(args[0]), speed, startTimeStampNs)) {
+            engine.run(replayer::nextCompactMessage);
+            System.out.println(replayer + ", " + engine);
+        }
+        Map<IcaoAddress, AircraftData> data = new AircraftDatabase(args[1]).getAll(aircraft);
+        System.out.println(aircraft.size() + " aircraft seen, " + data.size() + " of them in the database");
+    }
+}
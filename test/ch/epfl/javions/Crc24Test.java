@@ -1,11 +1,16 @@
 package ch.epfl.javions;
 
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.HexFormat;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SuppressWarnings("unused")
 class Crc24Test {
@@ -63,4 +68,67 @@ class Crc24Test {
             assertEquals(0, crc24.crc(m));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void crc24UpdateGivesSameCrcAsCrc() {
+        var crc24 = new Crc24(Crc24.GENERATOR);
+        for (var m : ADSB_MESSAGES) {
+            var bytes = HEX_FORMAT.parseHex(m);
+            var crc = 0;
+            for (var i = 0; i < bytes.length; i += 1) {
+                assertEquals(crc24.crc(Arrays.copyOf(bytes, i)), crc);
+                crc = crc24.update(crc, bytes[i]);
+            }
+            assertEquals(0, crc);
+        }
+    }
+
+    private static int bytewiseCrc(Crc24 crc24, byte[] bytes, int offset, int length) {
+        var crc = 0;
+        for (var i = offset; i < offset + length; i += 1)
+            crc = crc24.update(crc, bytes[i]);
+        return crc;
+    }
+
+    @Test
+    void crc24CrcOfRangeWorksOnRandomBytes() {
+        var rng = TestRandomizer.newRandom();
+        var crc24 = new Crc24(Crc24.GENERATOR);
+        for (var i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            var bytes = new byte[rng.nextInt(1, 100)];
+            rng.nextBytes(bytes);
+            var offset = rng.nextInt(bytes.length);
+            var length = rng.nextInt(bytes.length - offset + 1);
+            assertEquals(bytewiseCrc(crc24, bytes, 0, bytes.length), crc24.crc(bytes));
+            assertEquals(bytewiseCrc(crc24, bytes, offset, length), crc24.crc(bytes, offset, length));
+            assertEquals(crc24.crc(bytes), crc24.update(crc24.crc(bytes, 0, offset), bytes, offset, bytes.length - offset));
+        }
+    }
+
+    @Test
+    void crc24CrcOfRangeThrowsIfRangeIsInvalid() {
+        var crc24 = new Crc24(Crc24.GENERATOR);
+        var bytes = new byte[14];
+        assertThrows(IndexOutOfBoundsException.class, () -> crc24.crc(bytes, -1, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> crc24.crc(bytes, 10, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> crc24.crc(bytes, 0, -1));
+    }
+
+    @Test
+    void crc24CrcOfByteBufferWorksForAllKindsOfBuffers() {
+        var crc24 = new Crc24(Crc24.GENERATOR);
+        for (var m : ADSB_MESSAGES) {
+            var bytes = HEX_FORMAT.parseHex("CAFE" + m);
+            var expected = crc24.crc(bytes, 2, bytes.length - 2);
+            var direct = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+            var buffers = List.of(ByteBuffer.wrap(bytes), ByteBuffer.wrap(bytes).slice(1, bytes.length - 1),
+                    direct, direct.duplicate().order(ByteOrder.LITTLE_ENDIAN), ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+            for (var buffer : buffers) {
+                buffer.position(buffer.capacity() - m.length() / 2);
+                assertEquals(expected, crc24.crc(buffer));
+                assertEquals(buffer.capacity() - m.length() / 2, buffer.position());
+            }
+            assertEquals(0, crc24.crc(ByteBuffer.wrap(bytes, 2, bytes.length - 2)));
+        }
+    }
+}
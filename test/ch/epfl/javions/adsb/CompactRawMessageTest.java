@@ -0,0 +1,68 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class CompactRawMessageTest {
+    private static final List<String> VALID_MESSAGES = List.of(
+            "8D392AE499107FB5C00439035DB8",
+            "8D4B17E5F8210002004BB8B1F1AC",
+            "8D4D222860B985F7F53FAB33CE76",
+            "8F01024C99256F1F78048C290D2D",
+            "8D02A19558B505063ECC6C520E68");
+
+    @Test
+    void compactRawMessageConstructorThrowsWithInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new CompactRawMessage(-1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CompactRawMessage(0, 0, 1L << 48));
+    }
+
+    @Test
+    void compactRawMessageOfReturnsNullForInvalidCrc() {
+        var bytes = HexFormat.of().parseHex(VALID_MESSAGES.get(0));
+        bytes[5] ^= 1;
+        assertNull(CompactRawMessage.of(0, bytes, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> CompactRawMessage.of(0, new byte[20], 7));
+
+        // the CRC of the messages already validated isn't checked again
+        var unchecked = CompactRawMessage.ofValid(0, bytes, 0);
+        assertArrayEquals(bytes, HexFormat.of().parseHex(unchecked.toRawMessage().bytes().toString()));
+        assertThrows(IndexOutOfBoundsException.class, () -> CompactRawMessage.ofValid(0, new byte[20], 7));
+    }
+
+    @Test
+    void compactRawMessageReadsMessageInsideLargerArray() {
+        for (var m : VALID_MESSAGES) {
+            var bytes = HexFormat.of().parseHex("0102" + m + "0304");
+            var raw = RawMessage.of(100, HexFormat.of().parseHex(m));
+            assertNotNull(raw);
+            var compact = CompactRawMessage.of(100, bytes, 2);
+            assertNotNull(compact);
+            assertEquals(CompactRawMessage.of(raw), compact);
+            assertEquals(raw, compact.toRawMessage());
+        }
+    }
+
+    @Test
+    void compactRawMessageAccessorsReturnSameValuesAsRawMessage() {
+        var count = 0;
+        for (var m : VALID_MESSAGES) {
+            var raw = new RawMessage(100, ByteString.ofHexadecimalString(m));
+            var compact = CompactRawMessage.of(raw);
+            assertEquals(raw.downLinkFormat(), compact.downLinkFormat());
+            assertEquals(raw.icaoAddress().string(), HexFormat.of().withUpperCase().toHexDigits(compact.icaoAddress()).substring(2));
+            assertEquals(raw.payload(), compact.payload());
+            assertEquals(raw.typeCode(), compact.typeCode());
+            assertEquals(raw.bytes().bytesInRange(11, 14), compact.parity());
+            assertEquals(raw, compact.toRawMessage());
+            count += 1;
+        }
+        assertEquals(VALID_MESSAGES.size(), count);
+    }
+}
@@ -107,4 +107,21 @@ class MessageParserTest {
             assertNull(message);
         }
     }
+
+    @Test
+    void messageParserParsesCompactMessagesAsRawMessages() {
+        var variants = new ArrayList<String>();
+        variants.addAll(rawMessageWithTypeCodes("8D3991E10B0464B1CD43206F07E8", 0, 1, 2, 3, 4, 5));
+        variants.addAll(rawMessageWithTypeCodes("8D406666480D1652395CBE325E1D", 9, 12, 18, 19, 20, 22, 23));
+        variants.add("8D485020994409940838175B284F");
+        var parsed = 0;
+        for (var variant : variants) {
+            var raw = RawMessage.of(100, HexFormat.of().parseHex(variant));
+            var compact = CompactRawMessage.of(raw);
+            assertEquals(MessageParser.parse(raw), MessageParser.parse(compact));
+            if (MessageParser.parse(compact) != null)
+                parsed += 1;
+        }
+        assertTrue(parsed > 5);
+    }
 }
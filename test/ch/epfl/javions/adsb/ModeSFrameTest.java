@@ -0,0 +1,45 @@
+package ch.epfl.javions.adsb;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.aircraft.IcaoAddress;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class ModeSFrameTest {
+    private static final ByteString ADSB = ByteString.ofHexadecimalString("8D392AE499107FB5C00439035DB8");
+    private static final ByteString ALL_CALL_REPLY = ByteString.ofHexadecimalString("5D4B1A5F9C2F1A");
+    private static final IcaoAddress ADDRESS = new IcaoAddress("4B1A5F");
+
+    @Test
+    void modeSFrameConstructorThrowsWithInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ModeSFrame(-1, ALL_CALL_REPLY, ADDRESS));
+        assertThrows(IllegalArgumentException.class, () -> new ModeSFrame(0, new ByteString(new byte[0]), ADDRESS));
+        // a DF 17 frame must be long and a DF 11 one short
+        assertThrows(IllegalArgumentException.class, () -> new ModeSFrame(0, ByteString.ofHexadecimalString("8D392AE499107F"), ADDRESS));
+        assertThrows(IllegalArgumentException.class, () -> new ModeSFrame(0, ByteString.ofHexadecimalString("5D4B1A5F9C2F1A000000000000"), ADDRESS));
+        assertThrows(NullPointerException.class, () -> new ModeSFrame(0, ALL_CALL_REPLY, null));
+    }
+
+    @Test
+    void modeSFrameLengthDependsOnDownlinkFormat() {
+        for (var df = 0; df < 16; df += 1)
+            assertEquals(ModeSFrame.SHORT_LENGTH, ModeSFrame.length(df));
+        for (var df = 16; df < 32; df += 1)
+            assertEquals(ModeSFrame.LONG_LENGTH, ModeSFrame.length(df));
+    }
+
+    @Test
+    void modeSFrameAccessorsWork() {
+        var reply = new ModeSFrame(100, ALL_CALL_REPLY, ADDRESS);
+        assertEquals(11, reply.downLinkFormat());
+        assertFalse(reply.isLong());
+        assertNull(reply.toRawMessage());
+
+        var squitter = new ModeSFrame(100, ADSB, new IcaoAddress("392AE4"));
+        assertEquals(17, squitter.downLinkFormat());
+        assertTrue(squitter.isLong());
+        assertEquals(new RawMessage(100, ADSB), squitter.toRawMessage());
+    }
+}
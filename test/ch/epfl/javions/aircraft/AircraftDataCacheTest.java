@@ -0,0 +1,88 @@
+package ch.epfl.javions.aircraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class AircraftDataCacheTest {
+    private static final AircraftData DATA = new AircraftData(new AircraftRegistration("HB-JCN"),
+            new AircraftTypeDesignator("BCS3"), "AIRBUS A220-300", new AircraftDescription("L2J"), WakeTurbulenceCategory.MEDIUM);
+
+    @Test
+    void aircraftDataCacheEvictsLeastRecentlyUsedAircraft() {
+        var cache = new AircraftDataCache(2, 0);
+        var a = new IcaoAddress("4B1814");
+        var b = new IcaoAddress("4B1815");
+        var c = new IcaoAddress("4B1816");
+        cache.put(a, DATA, 0);
+        cache.put(b, DATA, 0);
+        assertNotNull(cache.get(a, 0));
+        cache.put(c, DATA, 0);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+        assertNull(cache.get(b, 0));
+        assertEquals(DATA, cache.get(a, 0).data());
+        assertEquals(DATA, cache.get(c, 0).data());
+        assertEquals(3, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void aircraftDataCacheForgetsMissingAircraftAfterTheirTtl() {
+        var cache = new AircraftDataCache(10, 100);
+        var missing = new IcaoAddress("ABCDEF");
+        var known = new IcaoAddress("4B1814");
+        cache.put(missing, null, 1000);
+        cache.put(known, DATA, 1000);
+
+        var entry = cache.get(missing, 1099);
+        assertNotNull(entry);
+        assertNull(entry.data());
+        assertNull(cache.get(missing, 1100));
+        assertEquals(DATA, cache.get(known, 1_000_000).data());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void aircraftDataCacheOfSizeZeroIsDisabled() {
+        var cache = new AircraftDataCache(0, 100);
+        cache.put(new IcaoAddress("4B1814"), DATA, 0);
+        assertNull(cache.get(new IcaoAddress("4B1814"), 0));
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new AircraftDataCache(-1, 0));
+    }
+
+    @Test
+    void aircraftDatabaseOnlyReadsFileOnCacheMisses() throws IOException {
+        var zipFile = Files.createTempDirectory("javions").resolve("aircraft.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            zip.putNextEntry(new ZipEntry("14.csv"));
+            zip.write("4B1814,HB-JCN,BCS3,AIRBUS A220-300,L2J,M".getBytes(UTF_8));
+            zip.closeEntry();
+        }
+        var now = new long[]{0};
+        var database = new AircraftDatabase(zipFile.toString(), 10, Duration.ofNanos(100), () -> now[0]);
+        assertEquals(DATA, database.get(new IcaoAddress("4B1814")));
+        assertNull(database.get(new IcaoAddress("ABCD14")));
+
+        // once the file is gone, the cached aircraft are still found, until the negative entry expires
+        Files.delete(zipFile);
+        assertEquals(DATA, database.get(new IcaoAddress("4B1814")));
+        assertNull(database.get(new IcaoAddress("ABCD14")));
+        now[0] = 100;
+        assertThrows(IOException.class, () -> database.get(new IcaoAddress("ABCD14")));
+        assertEquals(DATA, database.get(new IcaoAddress("4B1814")));
+
+        assertEquals(3, database.cache().hits());
+        assertEquals(3, database.cache().misses());
+    }
+}
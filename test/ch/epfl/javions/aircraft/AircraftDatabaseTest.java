@@ -4,6 +4,10 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.*;
@@ -77,4 +81,28 @@ class AircraftDatabaseTest {
         assertEquals(new AircraftDescription(""), aircraftData.description());
         assertEquals(WakeTurbulenceCategory.UNKNOWN, aircraftData.wakeTurbulenceCategory());
     }
-}
\ No newline at end of file
+
+    @Test
+    void aircraftDatabaseGetAllReturnsAircraftOfAllEntries() throws IOException {
+        var zipFile = Files.createTempDirectory("javions").resolve("aircraft.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            zip.putNextEntry(new ZipEntry("14.csv"));
+            zip.write("0A0014,HB-ABC,,,,\n4B1814,HB-JCN,BCS3,AIRBUS A220-300,L2J,M\n4B2A14,HB-JNA,B77W,BOEING 777-300ER,L2J,H".getBytes(UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("AB.csv"));
+            zip.write("0086AB,ZS-CNA,B737,BOEING 737-800,L2J,M".getBytes(UTF_8));
+            zip.closeEntry();
+        }
+        var database = new AircraftDatabase(zipFile.toString());
+        var addresses = List.of("4B2A14", "0086AB", "4B1814", "4B1914", "4B2A14", "FFFF14", "000000").stream()
+                .map(IcaoAddress::new)
+                .toList();
+        var all = database.getAll(addresses);
+        assertEquals(3, all.size());
+        for (var address : addresses)
+            assertEquals(database.get(address), all.get(address));
+        assertEquals(new AircraftRegistration("HB-JNA"), all.get(new IcaoAddress("4B2A14")).registration());
+        assertEquals(new AircraftRegistration("ZS-CNA"), all.get(new IcaoAddress("0086AB")).registration());
+        assertTrue(database.getAll(List.of()).isEmpty());
+    }
+}
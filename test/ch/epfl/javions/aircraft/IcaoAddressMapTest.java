@@ -0,0 +1,55 @@
+package ch.epfl.javions.aircraft;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class IcaoAddressMapTest {
+    @Test
+    void icaoAddressMapConstructorThrowsWithNegativeSize() {
+        assertThrows(IllegalArgumentException.class, () -> new IcaoAddressMap<String>(-1));
+    }
+
+    @Test
+    void icaoAddressMapPutThrowsWithInvalidArguments() {
+        var map = new IcaoAddressMap<String>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(1 << 24, "A"));
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, "A"));
+        assertThrows(NullPointerException.class, () -> map.put(0, null));
+    }
+
+    @Test
+    void icaoAddressMapWorksLikeHashMap() {
+        var rng = TestRandomizer.newRandom();
+        var map = new IcaoAddressMap<Integer>();
+        var expected = new HashMap<Integer, Integer>();
+        for (var i = 0; i < 100 * TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            // few distinct addresses sharing their highest bits, so that the probe sequences collide and wrap around
+            var address = 0x3C0000 | rng.nextInt(3000);
+            switch (rng.nextInt(3)) {
+                case 0 -> assertEquals(expected.put(address, i), map.put(address, i));
+                case 1 -> assertEquals(expected.remove(address), map.remove(address));
+                default -> assertEquals(expected.get(address), map.get(address));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (var address = 0x3C0000; address < 0x3C0000 + 3000; address += 1)
+            assertEquals(expected.get(address), map.get(address));
+    }
+
+    @Test
+    void icaoAddressMapRemoveIfRemovesMatchingValuesOnly() {
+        var map = new IcaoAddressMap<Integer>(4);
+        for (var address = 0; address < 5000; address += 1)
+            map.put(address * 7, address);
+        assertTrue(map.removeIf(v -> v % 3 == 0));
+        assertFalse(map.removeIf(v -> v % 3 == 0));
+        assertEquals(5000 - 1667, map.size());
+        for (var address = 0; address < 5000; address += 1)
+            assertEquals(address % 3 == 0 ? null : address, map.get(address * 7));
+    }
+}
@@ -0,0 +1,58 @@
+package ch.epfl.javions.aircraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class IcaoAddressTableTest {
+    @Test
+    void icaoAddressTableConstructorThrowsWithNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new IcaoAddressTable(0));
+    }
+
+    @Test
+    void icaoAddressTableReturnsCanonicalInstances() {
+        var table = new IcaoAddressTable();
+        var addresses = new IcaoAddress[1 << 14];
+        for (var i = 0; i < addresses.length; i += 1)
+            addresses[i] = table.get(i * 1021);
+        for (var i = 0; i < addresses.length; i += 1) {
+            assertSame(addresses[i], table.get(i * 1021));
+            assertEquals(i * 1021, addresses[i].value());
+        }
+    }
+
+    @Test
+    void icaoAddressTableReturnsSameInstanceFromSeveralThreads() {
+        var table = new IcaoAddressTable();
+        var addresses = IntStream.range(0, 1 << 16).parallel()
+                .mapToObj(i -> table.get(0xABC000 | i % 4096))
+                .toList();
+        for (var address : addresses)
+            assertSame(table.get(address.value()), address);
+        assertEquals(4096, table.size());
+    }
+
+    @Test
+    void icaoAddressTableStopsGrowingOnceFull() {
+        var table = new IcaoAddressTable(3000);
+        var cached = new IcaoAddress[3000];
+        for (var i = 0; i < cached.length; i += 1)
+            cached[i] = table.get(i * 5);
+        assertEquals(3000, table.size());
+
+        // the addresses which aren't in the full table are equal but never cached
+        for (var i = 0; i < 10_000; i += 1) {
+            var address = table.get(1 + i * 5);
+            assertEquals(1 + i * 5, address.value());
+            assertNotSame(address, table.get(1 + i * 5));
+            assertEquals(address, table.get(1 + i * 5));
+        }
+        assertEquals(3000, table.size());
+        for (var i = 0; i < cached.length; i += 1)
+            assertSame(cached[i], table.get(i * 5));
+    }
+}
@@ -2,8 +2,7 @@ package ch.epfl.javions.aircraft;
 
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 @SuppressWarnings("unused")
 class IcaoAddressTest {
@@ -27,4 +26,32 @@ class IcaoAddressTest {
             new IcaoAddress("ABCDEF");
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void icaoAddressOfReturnsEqualInstances() {
+        // the same instances as long as the cache shared by the tests isn't full, see IcaoAddressTableTest
+        var addresses = new IcaoAddress[1 << 14];
+        for (var i = 0; i < addresses.length; i += 1)
+            addresses[i] = IcaoAddress.of(i * 1021);
+        for (var i = 0; i < addresses.length; i += 1) {
+            assertEquals(addresses[i], IcaoAddress.of(i * 1021));
+            assertEquals(i * 1021, addresses[i].value());
+        }
+    }
+
+    @Test
+    void icaoAddressOfThrowsWithMoreThan24Bits() {
+        assertThrows(IllegalArgumentException.class, () -> IcaoAddress.of(1 << 24));
+        assertThrows(IllegalArgumentException.class, () -> IcaoAddress.of(-1));
+    }
+
+    @Test
+    void icaoAddressStringAndValueAgree() {
+        assertEquals("00ABC3", IcaoAddress.of(0x00ABC3).string());
+        assertEquals(0x4B1A5F, new IcaoAddress("4B1A5F").value());
+        assertEquals(new IcaoAddress("00ABC3"), IcaoAddress.of(0x00ABC3));
+        assertEquals(new IcaoAddress("00ABC3").hashCode(), IcaoAddress.of(0x00ABC3).hashCode());
+        assertNotEquals(new IcaoAddress("00ABC3"), IcaoAddress.of(0x00ABC4));
+        assertEquals("IcaoAddress[string=00ABC3]", IcaoAddress.of(0x00ABC3).toString());
+    }
+}
@@ -0,0 +1,119 @@
+package ch.epfl.javions.aircraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class IndexedAircraftDatabaseTest {
+    // the lines of the entries of the zip file, named by the last two digits of the addresses and sorted
+    private static final List<List<String>> ENTRIES = List.of(
+            List.of("0086AB,ZS-CNA,B737,BOEING 737-800,L2J,M",
+                    "4B18AB,HB-JNA,B77W,BOEING 777-300ER,L2J,H"),
+            List.of("4B1814,HB-JCN,BCS3,AIRBUS A220-300,L2J,M",
+                    "A01814,HB-ABC,,,,"),
+            List.of("AAAAAA,N787BK,,,,"));
+
+    private static Path zipDatabase(Path directory) throws IOException {
+        return zipDatabase(directory, ENTRIES);
+    }
+
+    private static Path zipDatabase(Path directory, List<List<String>> entries) throws IOException {
+        var zipFile = directory.resolve("aircraft.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            for (var lines : entries) {
+                zip.putNextEntry(new ZipEntry(lines.get(0).substring(4, 6) + ".csv"));
+                zip.write(String.join("\n", lines).getBytes(UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return zipFile;
+    }
+
+    @Test
+    void indexedAircraftDatabaseReturnsSameDataAsZipFile() throws IOException {
+        var zipFile = zipDatabase(Files.createTempDirectory("javions"));
+        var zipDatabase = new AircraftDatabase(zipFile.toString());
+        var expected = ENTRIES.stream()
+                .flatMap(List::stream)
+                .map(line -> new IcaoAddress(line.substring(0, IcaoAddress.LENGTH)))
+                .toList();
+        var expectedData = new ArrayList<AircraftData>();
+        for (var address : expected)
+            expectedData.add(zipDatabase.get(address));
+
+        var indexFile = IndexedAircraftDatabase.indexFor(zipFile);
+        IndexedAircraftDatabase.convert(zipFile, indexFile);
+        var indexed = IndexedAircraftDatabase.open(indexFile);
+        assertEquals(expected.size(), indexed.size());
+        for (var i = 0; i < expected.size(); i += 1) {
+            assertNotNull(expectedData.get(i));
+            assertEquals(expectedData.get(i), indexed.get(expected.get(i)));
+        }
+        assertNull(indexed.get(new IcaoAddress("000000")));
+        assertNull(indexed.get(new IcaoAddress("4B1815")));
+        assertNull(indexed.get(new IcaoAddress("FFFFFF")));
+
+        // the database uses the index once it is next to the zip file, even if the zip file is gone
+        Files.delete(zipFile);
+        var database = new AircraftDatabase(zipFile.toString());
+        for (var i = 0; i < expected.size(); i += 1)
+            assertEquals(expectedData.get(i), database.get(expected.get(i)));
+    }
+
+    @Test
+    void indexedAircraftDatabaseIsFoundNextToZipFile() {
+        assertEquals(Path.of("resources", "aircraft.idx"), IndexedAircraftDatabase.indexFor(Path.of("resources", "aircraft.zip")));
+    }
+
+    @Test
+    void indexedAircraftDatabaseRejectsOtherFiles() throws IOException {
+        var directory = Files.createTempDirectory("javions");
+        var zipFile = zipDatabase(directory);
+        assertThrows(IOException.class, () -> IndexedAircraftDatabase.open(zipFile));
+
+        var indexFile = directory.resolve("truncated.idx");
+        IndexedAircraftDatabase.convert(zipFile, indexFile);
+        var bytes = Files.readAllBytes(indexFile);
+        Files.write(indexFile, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> IndexedAircraftDatabase.open(indexFile));
+
+        // a database whose index can't be read falls back to its zip file
+        Files.write(IndexedAircraftDatabase.indexFor(zipFile), new byte[]{1, 2, 3});
+        var database = new AircraftDatabase(zipFile.toString());
+        assertEquals(new AircraftRegistration("HB-JCN"), database.get(new IcaoAddress("4B1814")).registration());
+    }
+
+    @Test
+    void indexedAircraftDatabaseIsNotUsedOnceZipFileIsReplaced() throws IOException {
+        var directory = Files.createTempDirectory("javions");
+        var zipFile = zipDatabase(directory);
+        var indexFile = IndexedAircraftDatabase.indexFor(zipFile);
+        IndexedAircraftDatabase.convert(zipFile, indexFile);
+        assertDoesNotThrow(() -> IndexedAircraftDatabase.open(indexFile, zipFile));
+
+        // the zip file is replaced without converting it again
+        zipDatabase(directory, List.of(List.of("4B1814,HB-JCA,BCS3,AIRBUS A220-300,L2J,M")));
+        var modified = Files.getLastModifiedTime(indexFile).toMillis() + 1000;
+        Files.setLastModifiedTime(zipFile, FileTime.fromMillis(modified));
+        assertThrows(IOException.class, () -> IndexedAircraftDatabase.open(indexFile, zipFile));
+        var database = new AircraftDatabase(zipFile.toString());
+        assertEquals(new AircraftRegistration("HB-JCA"), database.get(new IcaoAddress("4B1814")).registration());
+        assertNull(database.get(new IcaoAddress("4B18AB")));
+
+        // once converted again, the index is used
+        IndexedAircraftDatabase.convert(zipFile, indexFile);
+        assertEquals(1, IndexedAircraftDatabase.open(indexFile, zipFile).size());
+    }
+}
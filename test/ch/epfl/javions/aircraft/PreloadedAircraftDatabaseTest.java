@@ -0,0 +1,117 @@
+package ch.epfl.javions.aircraft;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class PreloadedAircraftDatabaseTest {
+    private static final String[] TYPES = {"A320,AIRBUS A-320,L2J,M", "B77W,BOEING 777-300ER,L2J,H", "C172,CESSNA 172,L1P,L", ",,,"};
+
+    private static Path randomZipDatabase(int count) throws IOException {
+        var rng = TestRandomizer.newRandom();
+        // the lines of each entry, sorted by address
+        var entries = new TreeMap<String, TreeMap<String, String>>();
+        for (var i = 0; i < count; i += 1) {
+            var address = HexFormat.of().withUpperCase().toHexDigits(rng.nextInt(1 << 24)).substring(2);
+            var line = address + ",HB-" + (char) ('A' + rng.nextInt(26)) + i + "," + TYPES[rng.nextInt(TYPES.length)];
+            entries.computeIfAbsent(address.substring(4), e -> new TreeMap<>()).put(address, line);
+        }
+        var zipFile = Files.createTempDirectory("javions").resolve("aircraft.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            for (var entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey() + ".csv"));
+                zip.write(String.join("\n", entry.getValue().values()).getBytes(UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return zipFile;
+    }
+
+    @Test
+    void preloadedAircraftDatabaseReturnsSameDataAsZipFile() throws IOException {
+        var zipFile = randomZipDatabase(2000);
+        var zipDatabase = new AircraftDatabase(zipFile.toString(), 0, AircraftDatabase.DEFAULT_NEGATIVE_TTL);
+        var preloaded = PreloadedAircraftDatabase.load(zipFile);
+        assertTrue(preloaded.size() > 1900);
+        assertTrue(preloaded.residentBytes() > 0);
+
+        var rng = TestRandomizer.newRandom();
+        var found = 0;
+        for (var i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            // half of the addresses are in the database
+            var address = i % 2 == 0
+                    ? new IcaoAddress(HexFormat.of().withUpperCase().toHexDigits(rng.nextInt(1 << 24)).substring(2))
+                    : randomAddressOf(zipFile, rng.nextInt(256));
+            if (address == null)
+                continue;
+            var expected = zipDatabase.get(address);
+            assertEquals(expected, preloaded.get(address));
+            if (expected != null)
+                found += 1;
+        }
+        assertTrue(found > 0);
+    }
+
+    private static IcaoAddress randomAddressOf(Path zipFile, int entry) throws IOException {
+        try (var zip = new ZipFile(zipFile.toFile())) {
+            var zipEntry = zip.getEntry(HexFormat.of().withUpperCase().toHexDigits((byte) entry) + ".csv");
+            if (zipEntry == null)
+                return null;
+            var line = new String(zip.getInputStream(zipEntry).readAllBytes(), UTF_8).lines().findFirst().orElseThrow();
+            return new IcaoAddress(line.substring(0, IcaoAddress.LENGTH));
+        }
+    }
+
+    @Test
+    void aircraftDatabaseUsesPreloadedDatabase() throws IOException {
+        var zipFile = randomZipDatabase(100);
+        var database = new AircraftDatabase(zipFile.toString(), 0, AircraftDatabase.DEFAULT_NEGATIVE_TTL);
+        var addresses = new ArrayList<IcaoAddress>();
+        var expected = new ArrayList<AircraftData>();
+        for (var i = 0; i < 256; i += 1) {
+            var address = randomAddressOf(zipFile, i);
+            if (address != null) {
+                addresses.add(address);
+                expected.add(database.get(address));
+            }
+        }
+        assertEquals(100, database.preload().size(), 2);
+
+        // once preloaded, the zip file is never read again
+        Files.delete(zipFile);
+        for (var i = 0; i < addresses.size(); i += 1)
+            assertEquals(expected.get(i), database.get(addresses.get(i)));
+        assertNull(database.get(new IcaoAddress("000000")));
+    }
+
+    @Test
+    void preloadedAircraftDatabaseSkipsMalformedLines() throws IOException {
+        var zipFile = Files.createTempDirectory("javions").resolve("aircraft.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            zip.putNextEntry(new ZipEntry("14.csv"));
+            // an empty registration, a missing field, and a line too short to have an address
+            zip.write(String.join("\n", "4B1814,HB-JCN,BCS3,AIRBUS A220-300,L2J,M", "4B1914,,BCS3,AIRBUS A220-300,L2J,M",
+                    "4B1A14,HB-JCO,BCS3,AIRBUS A220-300,L2J", "4B1B", "4B1C14,HB-JCP,BCS3,AIRBUS A220-300,L2J,M").getBytes(UTF_8));
+            zip.closeEntry();
+        }
+        var preloaded = PreloadedAircraftDatabase.load(zipFile);
+        assertEquals(2, preloaded.size());
+        assertEquals(3, preloaded.malformedLines());
+        assertEquals(new AircraftRegistration("HB-JCN"), preloaded.get(new IcaoAddress("4B1814")).registration());
+        assertEquals(new AircraftRegistration("HB-JCP"), preloaded.get(new IcaoAddress("4B1C14")).registration());
+        assertNull(preloaded.get(new IcaoAddress("4B1914")));
+    }
+}
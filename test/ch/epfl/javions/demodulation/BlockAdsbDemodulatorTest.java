@@ -0,0 +1,124 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.adsb.CompactRawMessage;
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.test.TestRandomizer;
+import ch.epfl.test.TestSamples;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class BlockAdsbDemodulatorTest {
+    private static List<RawMessage> referenceMessages(byte[] samples) throws IOException {
+        var demodulator = new AdsbDemodulator(new ByteArrayInputStream(samples));
+        var messages = new ArrayList<RawMessage>();
+        RawMessage message;
+        while ((message = demodulator.nextMessage()) != null)
+            messages.add(message);
+        return messages;
+    }
+
+    private static List<RawMessage> blockMessages(byte[] samples) throws IOException {
+        return messages(new BlockAdsbDemodulator(new ByteArrayInputStream(samples)));
+    }
+
+    private static List<RawMessage> messages(BlockAdsbDemodulator demodulator) throws IOException {
+        var messages = new ArrayList<RawMessage>();
+        RawMessage message;
+        while ((message = demodulator.nextMessage()) != null)
+            messages.add(message);
+        return messages;
+    }
+
+    @Test
+    void blockAdsbDemodulatorNextMessageReturnsNullForEmptyStream() throws IOException {
+        var demodulator = new BlockAdsbDemodulator(InputStream.nullInputStream());
+        assertNull(demodulator.nextMessage());
+        assertNull(demodulator.nextMessage());
+    }
+
+    @Test
+    void blockAdsbDemodulatorNextMessageReturnsNullForRandomSamples() throws IOException {
+        var samples = new byte[1 << 19];
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < samples.length; i += 2) {
+            var sample = rng.nextInt(1 << 12);
+            samples[i] = (byte) (sample & 0xFF);
+            samples[i + 1] = (byte) ((sample >> 8) & 0xFF);
+        }
+        var demodulator = new BlockAdsbDemodulator(new ByteArrayInputStream(samples));
+        assertNull(demodulator.nextMessage());
+    }
+
+    @Test
+    void blockAdsbDemodulatorNextMessageWorksOnSamples() throws IOException {
+        var messages = blockMessages(TestSamples.samples());
+        assertEquals(1, messages.size());
+        assertEquals(referenceMessages(TestSamples.samples()), messages);
+    }
+
+    @Test
+    void blockAdsbDemodulatorReturnsSameMessagesAsAdsbDemodulator() throws IOException {
+        var samples = TestSamples.longSamples();
+        var expected = referenceMessages(samples);
+        assertTrue(expected.size() > 100);
+        assertEquals(expected, blockMessages(samples));
+    }
+
+    @Test
+    void blockAdsbDemodulatorCompactMessagesAreSameAsMessages() throws IOException {
+        var samples = TestSamples.longSamples();
+        var expected = blockMessages(samples);
+        var demodulator = new BlockAdsbDemodulator(new ByteArrayInputStream(samples));
+        var compact = new ArrayList<RawMessage>();
+        CompactRawMessage message;
+        while ((message = demodulator.nextCompactMessage()) != null)
+            compact.add(message.toRawMessage());
+        assertEquals(expected, compact);
+    }
+
+    @Test
+    void blockAdsbDemodulatorReturnsSameMessagesFromMappedFile() throws IOException {
+        var samples = TestSamples.longSamples();
+        var path = Files.createTempFile("samples", ".bin");
+        try (var channel = FileChannel.open(Files.write(path, samples))) {
+            assertEquals(blockMessages(samples), messages(new BlockAdsbDemodulator(channel)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void blockAdsbDemodulatorStatisticsCountEveryStage() throws IOException {
+        var samples = TestSamples.longSamples();
+        var demodulator = new BlockAdsbDemodulator(new ByteArrayInputStream(samples));
+        var messages = messages(demodulator);
+        var statistics = demodulator.statistics();
+
+        assertEquals(messages.size(), statistics.messages());
+        var rejected = 0L;
+        for (var i = 0; i < DemodulationStatistics.PARITY_BYTES; i += 1)
+            rejected += statistics.rejectedAtParityByte(i);
+        assertEquals(statistics.candidates(), rejected + statistics.messages());
+        // every position is tested once, except the ones skipped after each message
+        var expectedPositions = 0L;
+        var nextPosition = 0L;
+        for (var message : messages) {
+            var position = message.timeStampNs() / 100;
+            expectedPositions += position - nextPosition + 1;
+            nextPosition = position + 1200;
+        }
+        var lastPosition = samples.length / 4 - 1200; // the last position followed by a whole message
+        expectedPositions += Math.max(0, lastPosition - nextPosition + 1);
+        assertEquals(expectedPositions, statistics.positions());
+    }
+}
@@ -0,0 +1,114 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.Crc24;
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.test.TestRandomizer;
+import ch.epfl.test.TestSamples;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class ErrorCorrectionTest {
+    private static final Crc24 CRC = new Crc24(Crc24.GENERATOR);
+    private static final int MESSAGE_BITS = RawMessage.LENGTH * Byte.SIZE;
+    private static final List<String> ADSB_MESSAGES = List.of(
+            "8D392AE499107FB5C00439035DB8",
+            "8D39DD4158B511FDC118E1A835FE",
+            "8D346083F8230006004BB862B42C",
+            "8D506CA358B982DBAD9595A23761",
+            "8D3CDD2158AF85CA4125E4620E46");
+
+    private static void flip(byte[] bytes, int bit) {
+        bytes[bit / Byte.SIZE] ^= (byte) (0x80 >>> (bit % Byte.SIZE));
+    }
+
+    @Test
+    void errorCorrectionRepairsEverySingleBitErrorOutsideOfDownlinkFormat() {
+        for (var m : ADSB_MESSAGES) {
+            var valid = HexFormat.of().parseHex(m);
+            for (var bit = 5; bit < MESSAGE_BITS; bit += 1) {
+                var bytes = valid.clone();
+                flip(bytes, bit);
+                assertEquals(0, ErrorCorrection.NONE.correct(bytes.clone(), CRC.crc(bytes)));
+                assertEquals(1, ErrorCorrection.SINGLE_BIT.correct(bytes, CRC.crc(bytes)));
+                assertArrayEquals(valid, bytes);
+            }
+        }
+    }
+
+    @Test
+    void errorCorrectionNeverRepairsDownlinkFormat() {
+        var valid = HexFormat.of().parseHex(ADSB_MESSAGES.get(0));
+        for (var bit = 0; bit < 5; bit += 1) {
+            var bytes = valid.clone();
+            flip(bytes, bit);
+            assertEquals(0, ErrorCorrection.SINGLE_BIT.correct(bytes, CRC.crc(bytes)));
+        }
+    }
+
+    @Test
+    void errorCorrectionRepairsTwoBitErrors() {
+        var rng = TestRandomizer.newRandom();
+        for (var m : ADSB_MESSAGES) {
+            var valid = HexFormat.of().parseHex(m);
+            for (var i = 0; i < TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+                var first = rng.nextInt(5, MESSAGE_BITS - 1);
+                var second = rng.nextInt(first + 1, MESSAGE_BITS);
+                var bytes = valid.clone();
+                flip(bytes, first);
+                flip(bytes, second);
+                assertEquals(0, ErrorCorrection.SINGLE_BIT.correct(bytes.clone(), CRC.crc(bytes)));
+                assertEquals(2, ErrorCorrection.TWO_BITS.correct(bytes, CRC.crc(bytes)));
+                assertArrayEquals(valid, bytes);
+            }
+        }
+    }
+
+    @Test
+    void messageScannerRecoversMessageWithOneWrongBit() throws IOException {
+        var samples = TestSamples.samples();
+        var batchSize = (samples.length / 4 + 7) / 8 * 8;
+        var power = new int[batchSize];
+        new FusedPowerComputer(new ByteArrayInputStream(samples), batchSize).readBatch(power);
+        var to = power.length - MessageScanner.WINDOW_SIZE;
+        var expected = new MessageScanner(ErrorCorrection.NONE).nextMessage(power, 0, to, 0, 0);
+        assertNotNull(expected);
+
+        // swapping the two halves of the pulse of a bit of the ME field flips it
+        var position = (int) (expected.timeStampNs() / MessageScanner.SAMPLE_DURATION_NS);
+        var index = position + 80 + 10 * 60;
+        assertNotEquals(power[index], power[index + 5]);
+        var p = power[index];
+        power[index] = power[index + 5];
+        power[index + 5] = p;
+
+        assertNull(new MessageScanner(ErrorCorrection.NONE).nextMessage(power, position, position + 1, 0, 0));
+        var scanner = new MessageScanner(ErrorCorrection.SINGLE_BIT);
+        assertEquals(expected, scanner.nextMessage(power, position, position + 1, 0, 0));
+        assertEquals(1, scanner.statistics().recovered(1));
+        assertEquals(1, scanner.statistics().messages());
+    }
+
+    @Test
+    void demodulatorsReturnSameMessagesWithErrorCorrection() throws IOException {
+        var samples = TestSamples.longSamples();
+        var block = new BlockAdsbDemodulator(new ByteArrayInputStream(samples), ErrorCorrection.TWO_BITS);
+        var parallel = new ParallelAdsbDemodulator(new ByteArrayInputStream(samples),
+                ForkJoinPool.commonPool(), 4321, ErrorCorrection.TWO_BITS);
+        RawMessage message;
+        var count = 0;
+        do {
+            message = block.nextMessage();
+            assertEquals(message, parallel.nextMessage());
+            count += 1;
+        } while (message != null);
+        assertTrue(count > 100);
+    }
+}
@@ -0,0 +1,81 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.test.TestRandomizer;
+import ch.epfl.test.TestSamples;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class FusedPowerComputerTest {
+    private static int[] allPowers(PowerSource computer, int batchSize) throws IOException {
+        var powers = new int[0];
+        var batch = new int[batchSize];
+        int read;
+        while ((read = computer.readBatch(batch)) > 0) {
+            var count = powers.length;
+            powers = Arrays.copyOf(powers, count + read);
+            System.arraycopy(batch, 0, powers, count, read);
+        }
+        return powers;
+    }
+
+    private static void assertSamePowers(byte[] bytes, int batchSize) throws IOException {
+        var expected = allPowers(new PowerComputer(new ByteArrayInputStream(bytes), batchSize), batchSize);
+        var actual = allPowers(new FusedPowerComputer(new ByteArrayInputStream(bytes), batchSize), batchSize);
+        assertArrayEquals(expected, actual);
+
+        var path = Files.createTempFile("samples", ".bin");
+        try (var channel = FileChannel.open(Files.write(path, bytes))) {
+            var mapped = allPowers(new FusedPowerComputer(channel, batchSize), batchSize);
+            assertArrayEquals(expected, mapped);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void fusedPowerComputerConstructorThrowsWithInvalidArguments() {
+        var stream = InputStream.nullInputStream();
+        assertThrows(IllegalArgumentException.class, () -> new FusedPowerComputer(stream, 0));
+        assertThrows(IllegalArgumentException.class, () -> new FusedPowerComputer(stream, 7));
+        assertThrows(NullPointerException.class, () -> new FusedPowerComputer((InputStream) null, 8));
+        assertThrows(NullPointerException.class, () -> new FusedPowerComputer((FileChannel) null, 8));
+    }
+
+    @Test
+    void fusedPowerComputerReadBatchThrowsOnInvalidBatchSize() {
+        var computer = new FusedPowerComputer(InputStream.nullInputStream(), 8);
+        assertThrows(IllegalArgumentException.class, () -> computer.readBatch(new int[16]));
+    }
+
+    @Test
+    void fusedPowerComputerReturnsZeroForEmptyStream() throws IOException {
+        var computer = new FusedPowerComputer(InputStream.nullInputStream(), 8);
+        assertEquals(0, computer.readBatch(new int[8]));
+    }
+
+    @Test
+    void fusedPowerComputerComputesSamePowersAsPowerComputerOnSamples() throws IOException {
+        var samples = TestSamples.samples();
+        for (var batchSize = 8; batchSize <= 1 << 16; batchSize *= 4)
+            assertSamePowers(samples, batchSize);
+    }
+
+    @Test
+    void fusedPowerComputerComputesSamePowersAsPowerComputerOnRandomBytes() throws IOException {
+        var rng = TestRandomizer.newRandom();
+        // random bytes also contain samples outside of the 12 bits range, and the length is not a multiple of a power sample
+        var bytes = new byte[(1 << 15) + 7];
+        rng.nextBytes(bytes);
+        for (var batchSize : new int[]{8, 16, 1024, 1 << 12, 1 << 16})
+            assertSamePowers(bytes, batchSize);
+    }
+}
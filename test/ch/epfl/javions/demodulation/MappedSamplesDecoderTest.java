@@ -0,0 +1,102 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class MappedSamplesDecoderTest {
+    private static final int SAMPLES_COUNT = 1 << 12;
+
+    private static byte[] randomSampleBytes() {
+        var rng = TestRandomizer.newRandom();
+        // an odd number of bytes, so that the file ends with half a sample
+        var bytes = new byte[SAMPLES_COUNT * Short.BYTES + 1];
+        for (int i = 0; i < bytes.length - 1; i += 2) {
+            var sample = rng.nextInt(1 << 12);
+            bytes[i] = (byte) (sample & 0xFF);
+            bytes[i + 1] = (byte) ((sample >> 8) & 0xFF);
+        }
+        return bytes;
+    }
+
+    private static Path temporaryFile(byte[] bytes) throws IOException {
+        var path = Files.createTempFile("samples", ".bin");
+        path.toFile().deleteOnExit();
+        return Files.write(path, bytes);
+    }
+
+    private static short[] decodeAll(SamplesSource decoder, int batchSize) throws IOException {
+        var samples = new short[SAMPLES_COUNT + batchSize];
+        var batch = new short[batchSize];
+        int count = 0, read;
+        while ((read = decoder.readBatch(batch)) > 0) {
+            System.arraycopy(batch, 0, samples, count, read);
+            count += read;
+        }
+        return Arrays.copyOf(samples, count);
+    }
+
+    @Test
+    void mappedSamplesDecoderConstructorThrowsWithInvalidArguments() throws IOException {
+        try (var channel = FileChannel.open(temporaryFile(new byte[0]))) {
+            assertThrows(IllegalArgumentException.class, () -> new MappedSamplesDecoder(channel, 0));
+            assertThrows(IllegalArgumentException.class, () -> new MappedSamplesDecoder(channel, -1));
+            assertThrows(IllegalArgumentException.class, () -> new MappedSamplesDecoder(channel, 1, 0));
+        }
+        assertThrows(NullPointerException.class, () -> new MappedSamplesDecoder(null, 1));
+    }
+
+    @Test
+    void mappedSamplesDecoderReadBatchThrowsOnInvalidBatchSize() throws IOException {
+        try (var channel = FileChannel.open(temporaryFile(randomSampleBytes()))) {
+            var decoder = new MappedSamplesDecoder(channel, 1024);
+            assertThrows(IllegalArgumentException.class, () -> decoder.readBatch(new short[1023]));
+        }
+    }
+
+    @Test
+    void mappedSamplesDecoderReturnsZeroForEmptyFile() throws IOException {
+        try (var channel = FileChannel.open(temporaryFile(new byte[0]))) {
+            var decoder = new MappedSamplesDecoder(channel, 16);
+            assertEquals(0, decoder.readBatch(new short[16]));
+            assertEquals(0, decoder.readBatch(new short[16]));
+        }
+    }
+
+    @Test
+    void mappedSamplesDecoderReturnsSameSamplesAsSamplesDecoder() throws IOException {
+        var bytes = randomSampleBytes();
+        var path = temporaryFile(bytes);
+        for (var batchSize : new int[]{1, 7, 1000, SAMPLES_COUNT, 2 * SAMPLES_COUNT}) {
+            var expected = decodeAll(new SamplesDecoder(new ByteArrayInputStream(bytes), batchSize), batchSize);
+            assertEquals(SAMPLES_COUNT, expected.length);
+            // small windows force the file to be remapped many times, and sometimes in the middle of a batch
+            for (var windowSize : new long[]{1, 3, 1000, 4097, 1L << 30}) {
+                try (var channel = FileChannel.open(path)) {
+                    var decoder = new MappedSamplesDecoder(channel, batchSize, windowSize);
+                    assertArrayEquals(expected, decodeAll(decoder, batchSize));
+                }
+            }
+        }
+    }
+
+    @Test
+    void mappedSamplesDecoderStartsAtChannelPosition() throws IOException {
+        var bytes = randomSampleBytes();
+        var skipped = 100 * Short.BYTES;
+        var expected = decodeAll(new SamplesDecoder(new ByteArrayInputStream(bytes, skipped, bytes.length), 64), 64);
+        try (var channel = FileChannel.open(temporaryFile(bytes))) {
+            channel.position(skipped);
+            assertArrayEquals(expected, decodeAll(new MappedSamplesDecoder(channel, 64), 64));
+        }
+    }
+}
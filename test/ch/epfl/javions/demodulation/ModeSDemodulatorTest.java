@@ -0,0 +1,134 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.Crc24;
+import ch.epfl.javions.adsb.ModeSFrame;
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.test.TestSamples;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class ModeSDemodulatorTest {
+    private static final Crc24 CRC = new Crc24(Crc24.GENERATOR);
+    private static final int POSITION = 100;
+    private static final int ADDRESS = 0x4B1A5F;
+
+    // the power samples of a frame starting at POSITION, with a perfect preamble and perfect pulses
+    private static int[] power(byte[] frame) {
+        var power = new int[POSITION + 2 * MessageScanner.WINDOW_SIZE];
+        for (var offset : new int[]{0, 10, 35, 45})
+            power[POSITION + offset] = 100;
+        for (var bit = 0; bit < frame.length * Byte.SIZE; bit += 1) {
+            var one = (frame[bit / Byte.SIZE] >>> (7 - bit % Byte.SIZE) & 1) == 1;
+            power[POSITION + 80 + 10 * bit + (one ? 0 : 5)] = 100;
+        }
+        return power;
+    }
+
+    // a short frame whose parity is the CRC of its data xored with the given value
+    private static byte[] shortFrame(String data, int xor) {
+        var frame = Arrays.copyOf(HexFormat.of().parseHex(data), ModeSFrame.SHORT_LENGTH);
+        var parity = CRC.crc(Arrays.copyOf(frame, 4)) ^ xor;
+        for (var i = 0; i < 3; i += 1)
+            frame[4 + i] = (byte) (parity >>> 8 * (2 - i));
+        return frame;
+    }
+
+    private static RecentAddresses recentAddresses(int... addresses) {
+        var recent = new RecentAddresses();
+        for (var address : addresses)
+            recent.add(address, 0);
+        return recent;
+    }
+
+    private static ModeSFrame scan(int[] power, RecentAddresses knownAddresses) {
+        var scanner = new MessageScanner(PreambleDetector.best(1 << 4 | 1 << 11), ErrorCorrection.NONE);
+        return scanner.nextFrame(power, 0, power.length - MessageScanner.WINDOW_SIZE, 0, 0, knownAddresses);
+    }
+
+    @Test
+    void modeSDemodulatorConstructorThrowsWithUnsupportedFormats() {
+        var stream = new ByteArrayInputStream(new byte[0]);
+        assertThrows(IllegalArgumentException.class, () -> new ModeSDemodulator(stream, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> new ModeSDemodulator(stream, Set.of(17, 19)));
+        assertThrows(IllegalArgumentException.class, () -> new ModeSDemodulator(stream, Set.of(-1)));
+    }
+
+    @Test
+    void messageScannerFindsAllCallReply() {
+        var frame = shortFrame("5D4B1A5F", 0x23); // the parity of a DF 11 frame may contain an interrogator code
+        var knownAddresses = recentAddresses();
+        var found = scan(power(frame), knownAddresses);
+        assertNotNull(found);
+        assertEquals(POSITION * MessageScanner.SAMPLE_DURATION_NS, found.timeStampNs());
+        assertEquals(new ByteString(frame), found.bytes());
+        assertEquals(new IcaoAddress("4B1A5F"), found.icaoAddress());
+        assertEquals(1, knownAddresses.size());
+        assertTrue(knownAddresses.contains(ADDRESS, POSITION));
+    }
+
+    @Test
+    void messageScannerFindsSurveillanceReplyOfKnownAddressOnly() {
+        var frame = shortFrame("20001838", ADDRESS); // DF 4, the address is xored with the parity
+        assertNull(scan(power(frame), recentAddresses()));
+
+        var found = scan(power(frame), recentAddresses(ADDRESS));
+        assertNotNull(found);
+        assertEquals(4, found.downLinkFormat());
+        assertEquals(new IcaoAddress("4B1A5F"), found.icaoAddress());
+
+        frame[2] ^= 1;
+        assertNull(scan(power(frame), recentAddresses(ADDRESS)));
+    }
+
+    @Test
+    void messageScannerRejectsSurveillanceReplyOfAddressNotSeenRecently() {
+        var frame = shortFrame("20001838", ADDRESS);
+        var knownAddresses = new RecentAddresses(POSITION - 1);
+        knownAddresses.add(ADDRESS, 0);
+        assertNull(scan(power(frame), knownAddresses));
+        knownAddresses.add(ADDRESS, 1);
+        assertNotNull(scan(power(frame), knownAddresses));
+    }
+
+    @Test
+    void modeSDemodulatorFindsSameAdsbMessagesAsBlockDemodulator() throws IOException {
+        var samples = TestSamples.longSamples();
+        var block = new BlockAdsbDemodulator(new ByteArrayInputStream(samples));
+        var modeS = new ModeSDemodulator(new ByteArrayInputStream(samples), Set.of(17));
+        RawMessage message;
+        var count = 0;
+        do {
+            message = block.nextMessage();
+            var frame = modeS.nextFrame();
+            assertEquals(message, frame == null ? null : frame.toRawMessage());
+            count += 1;
+        } while (message != null);
+        assertTrue(count > 100);
+    }
+
+    @Test
+    void modeSDemodulatorOnlyReturnsValidFramesOfWantedFormats() throws IOException {
+        var samples = TestSamples.longSamples();
+        var formats = Set.of(4, 11, 17);
+        var modeS = new ModeSDemodulator(new ByteArrayInputStream(samples), formats);
+        var lastTimeStamp = -1L;
+        for (var frame = modeS.nextFrame(); frame != null; frame = modeS.nextFrame()) {
+            assertTrue(formats.contains(frame.downLinkFormat()));
+            assertTrue(frame.timeStampNs() > lastTimeStamp);
+            lastTimeStamp = frame.timeStampNs();
+            if (frame.downLinkFormat() == 17)
+                assertEquals(0, CRC.crc(HexFormat.of().parseHex(frame.bytes().toString())));
+        }
+        assertTrue(modeS.statistics().messages() > 100);
+    }
+}
@@ -0,0 +1,68 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.test.TestSamples;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class ParallelAdsbDemodulatorTest {
+    private static List<RawMessage> referenceMessages(byte[] samples) throws IOException {
+        var demodulator = new AdsbDemodulator(new ByteArrayInputStream(samples));
+        var messages = new ArrayList<RawMessage>();
+        RawMessage message;
+        while ((message = demodulator.nextMessage()) != null)
+            messages.add(message);
+        return messages;
+    }
+
+    private static List<RawMessage> parallelMessages(byte[] samples, ForkJoinPool pool, int chunkSize) throws IOException {
+        var demodulator = new ParallelAdsbDemodulator(new ByteArrayInputStream(samples), pool, chunkSize);
+        var messages = new ArrayList<RawMessage>();
+        RawMessage message;
+        while ((message = demodulator.nextMessage()) != null)
+            messages.add(message);
+        return messages;
+    }
+
+    @Test
+    void parallelAdsbDemodulatorConstructorThrowsWithInvalidChunkSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParallelAdsbDemodulator(InputStream.nullInputStream(), ForkJoinPool.commonPool(), 0));
+    }
+
+    @Test
+    void parallelAdsbDemodulatorNextMessageReturnsNullForEmptyStream() throws IOException {
+        var demodulator = new ParallelAdsbDemodulator(InputStream.nullInputStream());
+        assertNull(demodulator.nextMessage());
+        assertNull(demodulator.nextMessage());
+    }
+
+    @Test
+    void parallelAdsbDemodulatorNextMessageWorksOnSamples() throws IOException {
+        var demodulator = new ParallelAdsbDemodulator(new ByteArrayInputStream(TestSamples.samples()));
+        assertEquals(referenceMessages(TestSamples.samples()).get(0), demodulator.nextMessage());
+        assertNull(demodulator.nextMessage());
+    }
+
+    @Test
+    void parallelAdsbDemodulatorReturnsSameMessagesAsAdsbDemodulatorWithAnyChunkSize() throws IOException {
+        var samples = TestSamples.longSamples();
+        var expected = referenceMessages(samples);
+        var pool = new ForkJoinPool(3);
+        try {
+            for (var chunkSize : new int[]{1, 7, 1000, 1200, 4321, 1 << 16})
+                assertEquals(expected, parallelMessages(samples, pool, chunkSize));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.test.TestSamples;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HexFormat;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class PhaseCorrectionTest {
+    private static final String MESSAGE = "8D392AE499107FB5C00439035DB8";
+    private static final int POSITION = 100;
+
+    // adds a slowly decaying pulse of 5 samples starting 3/4 of a sample before the given index, the samples on its edges being
+    // partially covered (the decay makes the given index the only local maximum of Sigma P)
+    private static void pulse(int[] power, int index) {
+        power[index - 1] += 75;
+        for (var i = 0; i < 4; i += 1)
+            power[index + i] += 100 - 5 * i;
+        power[index + 4] += 25;
+    }
+
+    // the power samples of a message starting 3/4 of a sample before POSITION
+    private static int[] power(byte[] message) {
+        var power = new int[POSITION + 2 * MessageScanner.WINDOW_SIZE];
+        for (var offset : new int[]{0, 10, 35, 45})
+            pulse(power, POSITION + offset);
+        for (var bit = 0; bit < message.length * Byte.SIZE; bit += 1) {
+            var one = (message[bit / Byte.SIZE] >>> (7 - bit % Byte.SIZE) & 1) == 1;
+            pulse(power, POSITION + 80 + 10 * bit + (one ? 0 : 5));
+        }
+        return power;
+    }
+
+    private static RawMessage scan(int[] power, PhaseCorrection phaseCorrection) {
+        var scanner = new MessageScanner(ErrorCorrection.NONE, phaseCorrection);
+        var message = scanner.nextMessage(power, 0, power.length - MessageScanner.WINDOW_SIZE, 0, 0);
+        return message == null ? null : message.toRawMessage();
+    }
+
+    @Test
+    void phaseCorrectionNoneDoesNotDecode() {
+        assertNull(PhaseCorrection.NONE.decode(power(HexFormat.of().parseHex(MESSAGE)), POSITION, RawMessage.LENGTH));
+    }
+
+    @Test
+    void phaseCorrectionDecodesMessageStartingBetweenSamples() {
+        var bytes = HexFormat.of().parseHex(MESSAGE);
+        var expected = new RawMessage(POSITION * MessageScanner.SAMPLE_DURATION_NS, new ByteString(bytes));
+        var power = power(bytes);
+        assertArrayEquals(bytes, PhaseCorrection.INTERPOLATED.decode(power, POSITION, RawMessage.LENGTH));
+        assertEquals(expected, scan(power, PhaseCorrection.NONE));
+        assertEquals(expected, scan(power, PhaseCorrection.INTERPOLATED));
+    }
+
+    @Test
+    void phaseCorrectionRecoversMessageWithNoiseOnPulseEdges() {
+        var bytes = HexFormat.of().parseHex(MESSAGE);
+        var power = power(bytes);
+        // a spike on the first sample of the empty half of the first bit of the ME field, which is only read at the fixed offsets
+        var index = POSITION + 80 + 10 * 32;
+        assertEquals(0, power[index + 5]);
+        power[index + 5] = 110;
+        assertNull(scan(power, PhaseCorrection.NONE));
+
+        var scanner = new MessageScanner(ErrorCorrection.NONE, PhaseCorrection.INTERPOLATED);
+        var message = scanner.nextMessage(power, 0, power.length - MessageScanner.WINDOW_SIZE, 0, 0);
+        assertEquals(new RawMessage(POSITION * MessageScanner.SAMPLE_DURATION_NS, new ByteString(bytes)), message.toRawMessage());
+        assertEquals(1, scanner.statistics().rephased());
+    }
+
+    @Test
+    void demodulatorsReturnSameMessagesWithPhaseCorrection() throws IOException {
+        var samples = TestSamples.longSamples();
+        var block = new BlockAdsbDemodulator(new ByteArrayInputStream(samples), ErrorCorrection.NONE, PhaseCorrection.INTERPOLATED);
+        var parallel = new ParallelAdsbDemodulator(new ByteArrayInputStream(samples),
+                ForkJoinPool.commonPool(), 4321, ErrorCorrection.NONE, PhaseCorrection.INTERPOLATED);
+        RawMessage message;
+        var count = 0;
+        do {
+            message = block.nextMessage();
+            assertEquals(message, parallel.nextMessage());
+            count += 1;
+        } while (message != null);
+        assertTrue(count > 100);
+    }
+}
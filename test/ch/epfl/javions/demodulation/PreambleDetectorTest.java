@@ -0,0 +1,90 @@
+package ch.epfl.javions.demodulation;
+
+import ch.epfl.test.TestRandomizer;
+import ch.epfl.test.TestSamples;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class PreambleDetectorTest {
+    private static final int MARGIN = MessageScanner.WINDOW_SIZE + PreambleDetector.POSITIONS;
+    private static final int MODE_S_FORMATS = 1 | 1 << 4 | 1 << 5 | 1 << 11 | 1 << 16 | 1 << 17 | 1 << 18 | 1 << 20 | 1 << 21;
+
+    private static int[] samplesPower() throws IOException {
+        var samples = TestSamples.longSamples();
+        var batchSize = (samples.length / 4 + 7) / 8 * 8;
+        var power = new int[batchSize];
+        new FusedPowerComputer(new ByteArrayInputStream(samples), batchSize).readBatch(power);
+        return power;
+    }
+
+    private static int[] randomPower() {
+        var rng = TestRandomizer.newRandom();
+        var power = new int[1 << 16];
+        for (int i = 0; i < power.length; i += 1)
+            power[i] = rng.nextInt(1 << 10);
+        return power;
+    }
+
+    private static long expectedCandidates(int[] power, int position, int formats) {
+        long bits = 0;
+        for (int i = 0; i < PreambleDetector.POSITIONS; i += 1) {
+            var p = position + i;
+            var candidate = MessageScanner.isCandidate(power, p,
+                    MessageScanner.sigmaP(power, p - 1), MessageScanner.sigmaP(power, p), MessageScanner.sigmaP(power, p + 1), formats);
+            if (candidate)
+                bits |= 1L << i;
+        }
+        return bits;
+    }
+
+    private static void assertSameCandidates(PreambleDetector detector, int[] power) {
+        for (int position = 1; position < power.length - MARGIN; position += 1 + position % 61)
+            assertEquals(expectedCandidates(power, position, detector.formats()), detector.candidates(power, position));
+    }
+
+    @Test
+    void scalarPreambleDetectorFindsCandidatesOfEveryPosition() throws IOException {
+        var power = samplesPower();
+        var detector = new ScalarPreambleDetector(MessageScanner.ADSB_FORMATS);
+        assertSameCandidates(detector, power);
+        assertSameCandidates(detector, randomPower());
+        assertSameCandidates(new ScalarPreambleDetector(MODE_S_FORMATS), randomPower());
+
+        long found = 0;
+        for (int position = 1; position < power.length - MARGIN; position += PreambleDetector.POSITIONS)
+            found += Long.bitCount(detector.candidates(power, position));
+        assertTrue(found > 100);
+    }
+
+    @Test
+    void vectorPreambleDetectorFindsSameCandidatesAsScalarOne() throws IOException {
+        // the vector detector can only be tested when the tests are run with --add-modules jdk.incubator.vector
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+            return;
+        var detector = new VectorPreambleDetector(MessageScanner.ADSB_FORMATS);
+        assertSameCandidates(detector, samplesPower());
+        assertSameCandidates(detector, randomPower());
+        assertSameCandidates(new VectorPreambleDetector(MODE_S_FORMATS), samplesPower());
+        assertSameCandidates(new VectorPreambleDetector(MODE_S_FORMATS), randomPower());
+    }
+
+    @Test
+    void messageScannerFindsSameMessagesWithBothDetectors() throws IOException {
+        var power = samplesPower();
+        var to = power.length - MessageScanner.WINDOW_SIZE;
+        var scalar = new MessageScanner(new ScalarPreambleDetector(MessageScanner.ADSB_FORMATS), ErrorCorrection.NONE);
+        var best = new MessageScanner(PreambleDetector.best(MessageScanner.ADSB_FORMATS), ErrorCorrection.NONE);
+        for (int from = 0; from < to; ) {
+            var expected = scalar.nextMessage(power, from, to, 0, 0);
+            assertEquals(expected, best.nextMessage(power, from, to, 0, 0));
+            if (expected == null)
+                break;
+            from = (int) (expected.timeStampNs() / MessageScanner.SAMPLE_DURATION_NS) + MessageScanner.WINDOW_SIZE;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ch.epfl.javions.demodulation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class RecentAddressesTest {
+    @Test
+    void recentAddressesConstructorThrowsWithNegativeAge() {
+        assertThrows(IllegalArgumentException.class, () -> new RecentAddresses(-1));
+    }
+
+    @Test
+    void recentAddressesDefaultAgeIsOneMinute() {
+        assertEquals(600_000_000L, RecentAddresses.DEFAULT_MAX_AGE);
+    }
+
+    @Test
+    void recentAddressesContainsAddressesUntilTheyAreTooOld() {
+        var addresses = new RecentAddresses(100);
+        assertFalse(addresses.contains(0x4B1814, 0));
+        addresses.add(0x4B1814, 10);
+        assertTrue(addresses.contains(0x4B1814, 10));
+        assertTrue(addresses.contains(0x4B1814, 110));
+        assertFalse(addresses.contains(0x4B1814, 111));
+        assertFalse(addresses.contains(0x4B1815, 10));
+
+        // seen again, the address is recent again
+        addresses.add(0x4B1814, 200);
+        assertTrue(addresses.contains(0x4B1814, 300));
+    }
+
+    @Test
+    void recentAddressesEvictsOldAddresses() {
+        var addresses = new RecentAddresses(100);
+        for (var i = 0; i < 1000; i += 1)
+            addresses.add(i, i);
+        // only the addresses of the last two periods of eviction are held
+        assertTrue(addresses.size() <= 201);
+        for (var i = 0; i < 1000; i += 1)
+            assertEquals(i >= 899, addresses.contains(i, 999));
+    }
+}
@@ -0,0 +1,169 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.adsb.AirbornePositionMessage;
+import ch.epfl.javions.adsb.AirborneVelocityMessage;
+import ch.epfl.javions.adsb.AircraftIdentificationMessage;
+import ch.epfl.javions.adsb.CallSign;
+import ch.epfl.javions.aircraft.IcaoAddress;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class AircraftStateStoreTest {
+    private static final IcaoAddress ADDRESS = IcaoAddress.of(0x4B1814);
+
+    private static final class RecordingListener implements AircraftStateListener {
+        private final List<AircraftStateDelta> updated = new ArrayList<>();
+        private final List<IcaoAddress> removed = new ArrayList<>();
+
+        @Override
+        public void aircraftUpdated(AircraftStateDelta delta) {
+            updated.add(delta);
+        }
+
+        @Override
+        public void aircraftRemoved(IcaoAddress icaoAddress) {
+            removed.add(icaoAddress);
+        }
+    }
+
+    @Test
+    void aircraftStateStorePublishesOneDeltaPerMessage() {
+        var store = new AircraftStateStore();
+        var listener = new RecordingListener();
+        store.addListener(listener);
+        store.update(new AircraftIdentificationMessage(0, ADDRESS, 0xA3, new CallSign("SWR123")));
+        store.update(new AirborneVelocityMessage(10, ADDRESS, 100, 1));
+        store.update(new AirborneVelocityMessage(20, IcaoAddress.of(0x4B1815), 200, 2));
+        assertEquals(3, listener.updated.size());
+        assertEquals(2, store.size());
+        assertEquals(3, store.messageCount());
+
+        var delta = listener.updated.get(1);
+        assertEquals(ADDRESS, delta.icaoAddress());
+        assertEquals(10, delta.lastMessageTimeStampNs());
+        assertEquals(0xA3, delta.category());
+        assertEquals(new CallSign("SWR123"), delta.callSign());
+        assertEquals(100, delta.velocity());
+        assertEquals(1, delta.trackOrHeading());
+        assertNull(delta.position());
+        assertTrue(Double.isNaN(delta.altitude()));
+
+        store.removeListener(listener);
+        store.update(new AirborneVelocityMessage(30, ADDRESS, 100, 1));
+        assertEquals(3, listener.updated.size());
+    }
+
+    @Test
+    void aircraftStateStorePublishesChangedTrajectoryPoints() {
+        var store = new AircraftStateStore();
+        var listener = new RecordingListener();
+        store.addListener(listener);
+        store.update(new AirbornePositionMessage(0, ADDRESS, 1000, 0, 0.5, 0.5));
+        store.update(new AirbornePositionMessage(1000, ADDRESS, 1000, 1, 0.5, 0.5));
+        var first = listener.updated.get(1);
+        assertNotNull(first.position());
+        assertEquals(0, first.trajectoryStart());
+        assertEquals(1, first.trajectoryPoints().size());
+
+        // the same time stamp replaces the last point, then the new position adds one
+        store.update(new AirbornePositionMessage(1000, ADDRESS, 2000, 1, 0.5, 0.5));
+        var replaced = listener.updated.get(2);
+        var point = new AirbornePos(replaced.position(), 2000);
+        assertEquals(0, replaced.trajectoryStart());
+        assertEquals(List.of(point, point), replaced.trajectoryPoints());
+        // a new time stamp only adds a point
+        store.update(new AirbornePositionMessage(2000, ADDRESS, 3000, 0, 0.5, 0.5));
+        var added = listener.updated.get(3);
+        assertEquals(2, added.trajectoryStart());
+        assertEquals(1, added.trajectoryPoints().size());
+
+        // combined, the deltas give the whole trajectory
+        var combined = listener.updated.stream().reduce(AircraftStateDelta::followedBy).orElseThrow();
+        assertEquals(0, combined.trajectoryStart());
+        assertEquals(List.of(point, point, added.trajectoryPoints().get(0)), combined.trajectoryPoints());
+    }
+
+    @Test
+    void aircraftStateStoreForgetsOutdatedAircraft() {
+        var store = new AircraftStateStore();
+        var listener = new RecordingListener();
+        store.addListener(listener);
+        var other = IcaoAddress.of(0x4B1815);
+        store.update(new AircraftIdentificationMessage(0, ADDRESS, 0xA3, new CallSign("SWR123")));
+        store.update(new AirborneVelocityMessage(1, other, 100, 1));
+        // the other aircraft sends a message more than a minute later, so the first one is forgotten
+        store.update(new AirborneVelocityMessage(AircraftStateStore.MAX_MESSAGE_AGE_NS + 1000, other, 100, 1));
+        assertEquals(List.of(ADDRESS), listener.removed);
+        assertEquals(1, store.size());
+
+        // then it is a new aircraft, without the call sign of the previous one
+        store.update(new AirborneVelocityMessage(AircraftStateStore.MAX_MESSAGE_AGE_NS + 2000, ADDRESS, 200, 1));
+        var delta = listener.updated.get(listener.updated.size() - 1);
+        assertNull(delta.callSign());
+        assertEquals(200, delta.velocity());
+    }
+
+    @Test
+    void aircraftStateDeltaFollowedByThrowsForOtherAircraft() {
+        var delta = new AircraftStateDelta(ADDRESS, 0, 0, null, null, Double.NaN, Double.NaN, Double.NaN, 0, List.of());
+        var other = new AircraftStateDelta(IcaoAddress.of(1), 0, 0, null, null, Double.NaN, Double.NaN, Double.NaN, 0, List.of());
+        assertThrows(IllegalArgumentException.class, () -> delta.followedBy(other));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AircraftStateDelta(ADDRESS, 0, 0, null, null, Double.NaN, Double.NaN, Double.NaN, -1, List.of()));
+    }
+
+    @Test
+    void aircraftStateStoreGivesSnapshotsOfAircraft() {
+        var store = new AircraftStateStore();
+        assertNull(store.get(ADDRESS));
+        assertTrue(store.snapshots().isEmpty());
+        store.update(new AircraftIdentificationMessage(0, ADDRESS, 0xA3, new CallSign("SWR123")));
+        var before = store.get(ADDRESS);
+        store.update(new AirborneVelocityMessage(10, ADDRESS, 100, 1));
+        store.update(new AirborneVelocityMessage(20, IcaoAddress.of(0x4B1815), 200, 2));
+
+        // a snapshot never changes
+        assertTrue(Double.isNaN(before.velocity()));
+        var snapshot = store.get(ADDRESS);
+        assertEquals(new AircraftSnapshot(ADDRESS, 10, 0xA3, new CallSign("SWR123"), null, Double.NaN, 100, 1, 0), snapshot);
+        assertEquals(2, store.snapshots().size());
+        assertTrue(store.snapshots().contains(snapshot));
+    }
+
+    @Test
+    void aircraftStateStoreCanBeReadWhileUpdated() throws InterruptedException {
+        var store = new AircraftStateStore();
+        var count = 200_000;
+        var failures = new AtomicInteger();
+        var done = new AtomicBoolean();
+        var readers = new ArrayList<Thread>();
+        for (var i = 0; i < 4; i += 1) {
+            var reader = new Thread(() -> {
+                while (!done.get()) {
+                    for (var snapshot : store.snapshots()) {
+                        // the velocity and the time stamp of a snapshot are always the ones of the same message
+                        if (snapshot.velocity() != snapshot.lastMessageTimeStampNs() % 1000)
+                            failures.incrementAndGet();
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (var i = 0; i < count; i += 1)
+            store.update(new AirborneVelocityMessage(i, IcaoAddress.of(i % 10), i % 1000, 1));
+        done.set(true);
+        for (var reader : readers)
+            reader.join();
+        assertEquals(0, failures.get());
+        assertEquals(10, store.size());
+        assertEquals(count, store.messageCount());
+    }
+}
@@ -0,0 +1,107 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.adsb.CompactRawMessage;
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.javions.demodulation.ErrorCorrection;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class DecodingEngineTest {
+    // an identification message and a velocity message, of two aircraft
+    private static final List<String> MESSAGES = List.of("8D4840D6202CC371C32CE0576098", "8D485020994409940838175B284F");
+
+    private static RawMessageSource source(int count) {
+        var next = new AtomicInteger();
+        return () -> {
+            var i = next.getAndIncrement();
+            return i < count ? CompactRawMessage.of(new RawMessage(1000L * i, ByteString.ofHexadecimalString(MESSAGES.get(i % MESSAGES.size())))) : null;
+        };
+    }
+
+    @Test
+    void decodingEngineAppliesAllMessagesOfSource() throws IOException {
+        var engine = new DecodingEngine(new MessageRing(16, MessageRing.OverflowPolicy.BLOCK));
+        var addresses = new HashSet<String>();
+        var updates = new ArrayList<AircraftStateDelta>();
+        engine.store().addListener(delta -> {
+            updates.add(delta);
+            addresses.add(delta.icaoAddress().string());
+        });
+        engine.run(source(3000));
+        assertEquals(3000, engine.rawMessageCount());
+        assertEquals(3000, engine.store().messageCount());
+        assertEquals(3000, updates.size());
+        assertEquals(2, engine.store().size());
+        assertEquals(2, addresses.size());
+        assertEquals(0, engine.queue().size());
+        assertEquals(0, engine.queue().dropped());
+        assertTrue(engine.messagesPerSecond() > 0);
+    }
+
+    @Test
+    void decodingEngineThrowsErrorsOfSource() {
+        var engine = new DecodingEngine(MessageRing.OverflowPolicy.BLOCK);
+        var next = new AtomicInteger();
+        var source = source(1000);
+        assertThrows(IOException.class, () -> engine.run(() -> {
+            if (next.getAndIncrement() == 100)
+                throw new IOException();
+            return source.nextMessage();
+        }));
+        assertEquals(100, engine.store().messageCount());
+        // the engine can run again
+        assertDoesNotThrow(() -> engine.run(source(10)));
+    }
+
+    @Test
+    void decodingEngineStopsWhenAsked() throws IOException {
+        var engine = new DecodingEngine(MessageRing.OverflowPolicy.BLOCK);
+        var next = new AtomicInteger();
+        var source = source(1000);
+        engine.run(() -> {
+            if (next.incrementAndGet() == 50)
+                engine.stop();
+            return source.nextMessage();
+        });
+        assertEquals(50, engine.rawMessageCount());
+        assertEquals(50, engine.store().messageCount());
+    }
+
+    @Test
+    void decodingEngineThrowsErrorsOfListenersInsteadOfBlocking() {
+        // the ring is much smaller than the source, so the decoding thread would wait forever for a dead updating thread
+        var engine = new DecodingEngine(new MessageRing(4, MessageRing.OverflowPolicy.BLOCK));
+        var updates = new AtomicInteger();
+        engine.store().addListener(delta -> {
+            if (updates.incrementAndGet() == 10)
+                throw new IllegalArgumentException();
+        });
+        assertThrows(IllegalArgumentException.class, () -> engine.run(source(10_000)));
+        assertEquals(10, updates.get());
+        assertTrue(engine.rawMessageCount() < 10_000);
+        assertThrows(IllegalStateException.class, () -> engine.run(source(10)));
+    }
+
+    @Test
+    void decodingEngineCorrectsErrorsOnlyIfPropertyIsSet() {
+        try {
+            System.clearProperty(DecodingEngine.ERROR_CORRECTION_PROPERTY);
+            assertEquals(ErrorCorrection.NONE, DecodingEngine.errorCorrection());
+            System.setProperty(DecodingEngine.ERROR_CORRECTION_PROPERTY, "single_bit");
+            assertEquals(ErrorCorrection.SINGLE_BIT, DecodingEngine.errorCorrection());
+            System.setProperty(DecodingEngine.ERROR_CORRECTION_PROPERTY, "three_bits");
+            assertThrows(IllegalArgumentException.class, DecodingEngine::errorCorrection);
+        } finally {
+            System.clearProperty(DecodingEngine.ERROR_CORRECTION_PROPERTY);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package ch.epfl.javions.engine;
+
+import ch.epfl.javions.adsb.AirbornePositionMessage;
+import ch.epfl.javions.adsb.AirborneVelocityMessage;
+import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class MessageRingTest {
+    private static Message position(int address, long timeStampNs, int parity) {
+        return new AirbornePositionMessage(timeStampNs, IcaoAddress.of(address), 1000, parity, 0.5, 0.5);
+    }
+
+    private static Message velocity(int address, long timeStampNs) {
+        return new AirborneVelocityMessage(timeStampNs, IcaoAddress.of(address), 200, 0);
+    }
+
+    private static List<Message> drainAll(MessageRing ring) {
+        var messages = new ArrayList<Message>();
+        ring.drain(messages::add, Long.MAX_VALUE);
+        return messages;
+    }
+
+    @Test
+    void messageRingConstructorThrowsIfCapacityIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new MessageRing(0, MessageRing.OverflowPolicy.BLOCK));
+        assertThrows(IllegalArgumentException.class, () -> new MessageRing(12, MessageRing.OverflowPolicy.BLOCK));
+        assertThrows(NullPointerException.class, () -> new MessageRing(16, null));
+    }
+
+    @Test
+    void messageRingKeepsMessagesInOrder() {
+        var ring = new MessageRing(8, MessageRing.OverflowPolicy.BLOCK);
+        assertNull(ring.poll());
+        var expected = new ArrayList<Message>();
+        // the indices wrap around the ring many times
+        for (var i = 0; i < 100; i += 1) {
+            var message = velocity(i, i);
+            ring.offer(message);
+            expected.add(message);
+            if (i % 5 == 4) {
+                assertEquals(5, ring.size());
+                assertEquals(expected, drainAll(ring));
+                expected.clear();
+            }
+        }
+        assertEquals(5, ring.highWaterMark());
+        assertEquals(0, ring.dropped());
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void messageRingDropsOldestMessagesWhenFull() {
+        var ring = new MessageRing(4, MessageRing.OverflowPolicy.DROP_OLDEST);
+        var messages = new ArrayList<Message>();
+        for (var i = 0; i < 10; i += 1) {
+            messages.add(velocity(i, i));
+            ring.offer(messages.get(i));
+        }
+        assertEquals(4, ring.size());
+        assertEquals(4, ring.highWaterMark());
+        assertEquals(6, ring.dropped());
+        assertEquals(messages.subList(6, 10), drainAll(ring));
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void messageRingCoalescesMessagesPerAircraftAndKindWhenFull() {
+        var ring = new MessageRing(2, MessageRing.OverflowPolicy.COALESCE);
+        var first = velocity(1, 0);
+        var second = velocity(2, 1);
+        ring.offer(first);
+        ring.offer(second);
+
+        // the ring is full, so the newer messages of an aircraft replace the older ones of the same kind
+        ring.offer(velocity(1, 2));
+        ring.offer(position(1, 3, 0));
+        ring.offer(position(1, 4, 1));
+        var lastVelocity = velocity(1, 5);
+        ring.offer(lastVelocity);
+        var lastEven = position(1, 6, 0);
+        ring.offer(lastEven);
+        assertEquals(2, ring.dropped());
+        assertEquals(2, ring.size());
+
+        assertEquals(List.of(first, second), drainAll(ring));
+        // the waiting messages go in the ring before the new one, sorted by the time stamp of their last replacement
+        var other = velocity(2, 7);
+        ring.offer(other);
+        assertEquals(List.of(position(1, 4, 1), lastVelocity), drainAll(ring));
+        ring.flush();
+        assertEquals(List.of(lastEven, other), drainAll(ring));
+        assertEquals(2, ring.dropped());
+    }
+
+    @Test
+    void messageRingCoalescesLikeMapOfWaitingMessages() throws InterruptedException {
+        var rng = TestRandomizer.newRandom();
+        var ring = new MessageRing(8, MessageRing.OverflowPolicy.COALESCE);
+        // the ring and the waiting messages by aircraft and kind, in the order of their last replacement
+        var expectedRing = new ArrayDeque<Message>();
+        var expectedWaiting = new LinkedHashMap<Integer, Message>();
+        var expectedDropped = 0;
+        for (var i = 0; i < 100 * TestRandomizer.RANDOM_ITERATIONS; i += 1) {
+            if (rng.nextInt(10) == 0) {
+                // the consumer removes a few messages, which makes room for the waiting ones at the next offer
+                for (var n = rng.nextInt(10); n > 0; n -= 1) {
+                    assertSame(expectedRing.poll(), ring.poll());
+                }
+                continue;
+            }
+            // enough aircraft for the waiting messages to grow, and few enough for them to be replaced often
+            var address = rng.nextInt(200);
+            var kind = rng.nextInt(3);
+            var message = kind == 0 ? velocity(address, i) : position(address, i, kind - 1);
+            var waiting = expectedWaiting.values().iterator();
+            while (waiting.hasNext() && expectedRing.size() < ring.capacity()) {
+                expectedRing.add(waiting.next());
+                waiting.remove();
+            }
+            if (!expectedWaiting.isEmpty() || expectedRing.size() == ring.capacity()) {
+                if (expectedWaiting.remove(address << 2 | kind) != null)
+                    expectedDropped += 1;
+                expectedWaiting.put(address << 2 | kind, message);
+            } else {
+                expectedRing.add(message);
+            }
+            ring.offer(message);
+            assertEquals(expectedDropped, ring.dropped());
+        }
+        // the waiting messages all go in the ring, in order, once the consumer makes room
+        expectedRing.addAll(expectedWaiting.values());
+        var flushing = new Thread(ring::flush);
+        flushing.start();
+        var drained = new ArrayList<Message>();
+        while (flushing.isAlive())
+            drained.addAll(drainAll(ring));
+        flushing.join();
+        drained.addAll(drainAll(ring));
+        assertEquals(new ArrayList<>(expectedRing), drained);
+        assertEquals(expectedDropped, ring.dropped());
+    }
+
+    @Test
+    void messageRingDrainStopsWhenBudgetIsSpent() {
+        var ring = new MessageRing(1024, MessageRing.OverflowPolicy.BLOCK);
+        for (var i = 0; i < 1000; i += 1)
+            ring.offer(velocity(i, i));
+        // the budget is only checked every few messages, so at least a batch is drained
+        var drained = ring.drain(m -> {}, 0);
+        assertTrue(drained > 0 && drained < 1000);
+        assertEquals(1000 - drained, ring.size());
+        assertEquals(1000 - drained, ring.drain(m -> {}, Long.MAX_VALUE));
+    }
+
+    @Test
+    void messageRingDropsMessagesOnceClosedInsteadOfBlocking() {
+        var ring = new MessageRing(2, MessageRing.OverflowPolicy.BLOCK);
+        ring.offer(velocity(1, 1));
+        ring.offer(velocity(2, 2));
+        ring.close();
+        assertTrue(ring.isClosed());
+        ring.offer(velocity(3, 3));
+        assertEquals(1, ring.dropped());
+        assertEquals(2, ring.size());
+
+        var coalescing = new MessageRing(1, MessageRing.OverflowPolicy.COALESCE);
+        coalescing.offer(velocity(1, 1));
+        coalescing.offer(velocity(2, 2));
+        coalescing.close();
+        coalescing.flush();
+        assertEquals(1, coalescing.dropped());
+        assertEquals(List.of(velocity(1, 1)), drainAll(coalescing));
+    }
+
+    @Test
+    void messageRingTransfersAllMessagesBetweenThreadsWhenBlocking() throws InterruptedException {
+        var ring = new MessageRing(64, MessageRing.OverflowPolicy.BLOCK);
+        var count = 200_000;
+        var producer = new Thread(() -> {
+            for (var i = 0; i < count; i += 1)
+                ring.offer(velocity(i & 0xFFFFFF, i));
+        });
+        producer.start();
+        var received = 0;
+        var ordered = true;
+        while (received < count) {
+            Message message = ring.poll();
+            if (message == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            ordered &= message.timeStampNs() == received;
+            received += 1;
+        }
+        producer.join();
+        assertTrue(ordered);
+        assertEquals(0, ring.dropped());
+        assertTrue(ring.highWaterMark() <= 64);
+    }
+
+    @Test
+    void messageRingNeverReturnsDroppedMessageTwiceWhenDroppingOldest() throws InterruptedException {
+        var ring = new MessageRing(16, MessageRing.OverflowPolicy.DROP_OLDEST);
+        var count = 200_000;
+        var producer = new Thread(() -> {
+            for (var i = 0; i < count; i += 1)
+                ring.offer(velocity(i & 0xFFFFFF, i));
+        });
+        producer.start();
+        var received = 0L;
+        var last = -1L;
+        var ordered = true;
+        while (producer.isAlive() || ring.size() > 0) {
+            Message message = ring.poll();
+            if (message == null)
+                continue;
+            ordered &= message.timeStampNs() > last;
+            last = message.timeStampNs();
+            received += 1;
+        }
+        producer.join();
+        assertTrue(ordered);
+        assertEquals(count, received + ring.dropped());
+    }
+}
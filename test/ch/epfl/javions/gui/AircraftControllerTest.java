@@ -164,18 +164,14 @@ public final class AircraftControllerTest extends Application {
         new AnimationTimer() {
             @Override
             public void handle(long now) {
-                try {
-                    for (int i = 0; i < 10; i += 1) {
-                        var next = mi.next();
-                        //System.out.println(next);
-                        Message m = MessageParser.parse(next);
-
-                        if (m != null) asm.updateWithMessage(m);
-                        asm.purge();
-
-                    }
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
+                for (int i = 0; i < 10; i += 1) {
+                    var next = mi.next();
+                    //System.out.println(next);
+                    Message m = MessageParser.parse(next);
+
+                    if (m != null) asm.updateWithMessage(m);
+                    asm.purge();
+
                 }
             }
         }.start();
@@ -0,0 +1,152 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.adsb.AirbornePositionMessage;
+import ch.epfl.javions.adsb.AirborneVelocityMessage;
+import ch.epfl.javions.adsb.AircraftIdentificationMessage;
+import ch.epfl.javions.adsb.CallSign;
+import ch.epfl.javions.adsb.Message;
+import ch.epfl.javions.aircraft.AircraftDatabase;
+import ch.epfl.javions.aircraft.IcaoAddress;
+import ch.epfl.javions.engine.AircraftStateDelta;
+import ch.epfl.javions.engine.AircraftStateStore;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class AircraftStateCoalescerTest {
+    private static final int AIRCRAFT = 5;
+
+    // messages of a few aircraft, with even and odd positions close enough to be decoded
+    private static List<Message> randomMessages(int count) {
+        var rng = TestRandomizer.newRandom();
+        var messages = new ArrayList<Message>();
+        var timeStampNs = 0L;
+        for (var i = 0; i < count; i += 1) {
+            var address = IcaoAddress.of(0x4B1800 + rng.nextInt(AIRCRAFT));
+            // some messages share the time stamp of the previous one, which changes the last point of the trajectory
+            timeStampNs += rng.nextInt(5) == 0 ? 0 : rng.nextLong(1, 100_000_000);
+            messages.add(switch (rng.nextInt(4)) {
+                case 0 -> new AircraftIdentificationMessage(timeStampNs, address, 0xA0 + rng.nextInt(8), new CallSign("SWR" + rng.nextInt(1000)));
+                case 1 -> new AirborneVelocityMessage(timeStampNs, address, rng.nextDouble(300), rng.nextDouble(2 * Math.PI));
+                default -> new AirbornePositionMessage(timeStampNs, address, rng.nextDouble(1000, 12000), rng.nextInt(2),
+                        0.5 + rng.nextDouble(-1e-3, 1e-3), 0.5 + rng.nextDouble(-1e-3, 1e-3));
+            });
+        }
+        return messages;
+    }
+
+    private static AircraftStateManager newManager() {
+        return new AircraftStateManager(new AircraftDatabase("does-not-exist.zip"), r -> {}, r -> {});
+    }
+
+    private static List<ObservableAircraftState> sortedStates(AircraftStateManager manager) {
+        var states = new ArrayList<>(manager.states());
+        states.sort(Comparator.comparing(s -> s.getIcaoAddress().string()));
+        return states;
+    }
+
+    private static void assertSameStates(AircraftStateManager expected, AircraftStateManager actual) {
+        var expectedStates = sortedStates(expected);
+        var actualStates = sortedStates(actual);
+        assertEquals(expectedStates.size(), actualStates.size());
+        for (var i = 0; i < expectedStates.size(); i += 1) {
+            var e = expectedStates.get(i);
+            var a = actualStates.get(i);
+            assertEquals(e.getIcaoAddress(), a.getIcaoAddress());
+            assertEquals(e.getLastMessageTimeStampNs(), a.getLastMessageTimeStampNs());
+            assertEquals(e.getCategory(), a.getCategory());
+            assertEquals(e.getCallSign(), a.getCallSign());
+            assertEquals(e.getPosition(), a.getPosition());
+            assertEquals(e.getAltitude(), a.getAltitude());
+            assertEquals(e.getVelocity(), a.getVelocity());
+            assertEquals(e.getTrackOrHeading(), a.getTrackOrHeading());
+            assertEquals(e.getTrajectory(), a.getTrajectory());
+        }
+    }
+
+    @Test
+    void aircraftStateCoalescerGivesSameStatesAsMessages() {
+        var rng = TestRandomizer.newRandom();
+        var messages = randomMessages(5_000);
+        var expected = newManager();
+        var actual = newManager();
+        var store = new AircraftStateStore();
+        var coalescer = new AircraftStateCoalescer();
+        store.addListener(coalescer);
+        for (var i = 0; i < messages.size(); i += 1) {
+            expected.updateWithMessage(messages.get(i));
+            store.update(messages.get(i));
+            // frames of random lengths
+            if (rng.nextInt(20) == 0 || i == messages.size() - 1) {
+                coalescer.drainTo(actual);
+                assertSameStates(expected, actual);
+            }
+        }
+        assertTrue(actual.states().stream().anyMatch(s -> s.getTrajectory().size() > 1));
+    }
+
+    @Test
+    void aircraftStateCoalescerPublishesOneDeltaPerChangedAircraft() {
+        var store = new AircraftStateStore();
+        var coalescer = new AircraftStateCoalescer();
+        store.addListener(coalescer);
+        var messages = randomMessages(1_000);
+        messages.forEach(store::update);
+        var deltas = coalescer.takeDeltas();
+        assertEquals(AIRCRAFT, deltas.size());
+        assertEquals(AIRCRAFT, deltas.stream().map(AircraftStateDelta::icaoAddress).distinct().count());
+        assertTrue(coalescer.takeDeltas().isEmpty());
+
+        var last = messages.get(messages.size() - 1);
+        store.update(new AirborneVelocityMessage(last.timeStampNs() + 1, last.icaoAddress(), 100, 1));
+        deltas = coalescer.takeDeltas();
+        assertEquals(1, deltas.size());
+        assertEquals(last.icaoAddress(), deltas.get(0).icaoAddress());
+        assertEquals(100, deltas.get(0).velocity());
+        // the trajectory didn't change since the previous delta
+        assertTrue(deltas.get(0).trajectoryPoints().isEmpty());
+    }
+
+    private static void updateWithPosition(AircraftStateStore store, IcaoAddress icaoAddress, long timeStampNs) {
+        store.update(new AirbornePositionMessage(timeStampNs, icaoAddress, 1000, 0, 0.5, 0.5));
+        store.update(new AirbornePositionMessage(timeStampNs + 1000, icaoAddress, 1000, 1, 0.5, 0.5));
+    }
+
+    @Test
+    void aircraftStateCoalescerRemovesTheAircraftForgottenByTheStore() {
+        var store = new AircraftStateStore();
+        var coalescer = new AircraftStateCoalescer();
+        store.addListener(coalescer);
+        var manager = newManager();
+        var forgotten = new IcaoAddress("4B1814");
+        var other = new IcaoAddress("4B1815");
+        updateWithPosition(store, forgotten, 0);
+        coalescer.drainTo(manager);
+        assertEquals(1, manager.states().size());
+        var oldState = manager.states().iterator().next();
+
+        // the store forgets the aircraft, which sends a message again in the same frame, without any position
+        var timeStampNs = AircraftStateStore.MAX_MESSAGE_AGE_NS + 2_000_000_000L;
+        updateWithPosition(store, other, timeStampNs);
+        store.update(new AirborneVelocityMessage(timeStampNs + 2000, forgotten, 100, 1));
+        coalescer.drainTo(manager);
+        assertEquals(1, manager.states().size());
+        assertEquals(other, manager.states().iterator().next().getIcaoAddress());
+        assertNotNull(oldState.getPosition());
+
+        // its next position creates a new state, whose trajectory starts again
+        updateWithPosition(store, forgotten, timeStampNs + 3000);
+        coalescer.drainTo(manager);
+        assertEquals(2, manager.states().size());
+        var newState = manager.states().stream().filter(s -> s.getIcaoAddress().equals(forgotten)).findFirst().orElseThrow();
+        assertNotSame(oldState, newState);
+        assertEquals(100, newState.getVelocity());
+        assertEquals(1, newState.getTrajectory().size());
+    }
+}
@@ -0,0 +1,94 @@
+package ch.epfl.javions.gui;
+
+import ch.epfl.javions.adsb.AirbornePositionMessage;
+import ch.epfl.javions.aircraft.AircraftDatabase;
+import ch.epfl.javions.aircraft.AircraftRegistration;
+import ch.epfl.javions.aircraft.IcaoAddress;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class AircraftStateManagerTest {
+    private static Path zipDatabase() throws IOException {
+        var zipFile = Files.createTempDirectory("javions").resolve("aircraft.zip");
+        try (var zip = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            zip.putNextEntry(new ZipEntry("14.csv"));
+            zip.write("4B1814,HB-JCN,BCS3,AIRBUS A220-300,L2J,M\n4B2A14,HB-JNA,B77W,BOEING 777-300ER,L2J,H".getBytes(UTF_8));
+            zip.closeEntry();
+        }
+        return zipFile;
+    }
+
+    // an even and an odd position of the aircraft, so that it has a position and is in the states of the manager
+    private static void sendPositions(AircraftStateManager manager, String address, long timeStampNs) {
+        var icaoAddress = new IcaoAddress(address);
+        manager.updateWithMessage(new AirbornePositionMessage(timeStampNs, icaoAddress, 1000, 0, 0.5, 0.5));
+        manager.updateWithMessage(new AirbornePositionMessage(timeStampNs + 1000, icaoAddress, 1000, 1, 0.5, 0.5));
+    }
+
+    @Test
+    void aircraftStateManagerLooksUpNewAircraftTogetherOffTheUpdatingThread() throws IOException {
+        var lookups = new ArrayList<Runnable>();
+        var updates = new ArrayList<Runnable>();
+        var manager = new AircraftStateManager(new AircraftDatabase(zipDatabase().toString()), lookups::add, updates::add);
+        sendPositions(manager, "4B1814", 0);
+        sendPositions(manager, "4B2A14", 10_000);
+        sendPositions(manager, "ABCDEF", 20_000);
+
+        // the three aircraft are looked up by a single task, and have no data until the update is run
+        assertEquals(1, lookups.size());
+        assertEquals(3, manager.states().size());
+        lookups.get(0).run();
+        assertEquals(1, updates.size());
+        assertTrue(manager.states().stream().allMatch(s -> s.aircraftData() == null));
+
+        updates.get(0).run();
+        for (var state : manager.states()) {
+            var expected = switch (state.getIcaoAddress().string()) {
+                case "4B1814" -> new AircraftRegistration("HB-JCN");
+                case "4B2A14" -> new AircraftRegistration("HB-JNA");
+                default -> null;
+            };
+            assertEquals(expected, state.aircraftData() == null ? null : state.aircraftData().registration());
+        }
+
+        // a new aircraft schedules a new lookup
+        sendPositions(manager, "4B1815", 30_000);
+        assertEquals(2, lookups.size());
+    }
+
+    @Test
+    void aircraftStateManagerKeepsAircraftWithoutDataIfDatabaseCannotBeRead() {
+        var manager = new AircraftStateManager(new AircraftDatabase("does-not-exist.zip"), Runnable::run, Runnable::run);
+        sendPositions(manager, "4B1814", 0);
+        assertEquals(1, manager.states().size());
+        assertNull(manager.states().iterator().next().aircraftData());
+    }
+
+    @Test
+    void aircraftStateManagerPurgesTheAircraftUpdatedWithOldMessages() {
+        var manager = new AircraftStateManager(new AircraftDatabase("does-not-exist.zip"), r -> {}, r -> {});
+        sendPositions(manager, "4B1814", 0);
+        sendPositions(manager, "4B2A14", (long) AircraftStateManager.maxMessageAge);
+        manager.purge();
+        assertEquals(2, manager.states().size());
+
+        sendPositions(manager, "ABCDEF", (long) AircraftStateManager.maxMessageAge + 10_000);
+        manager.purge();
+        assertEquals(2, manager.states().size());
+        assertTrue(manager.states().stream().noneMatch(s -> s.getIcaoAddress().string().equals("4B1814")));
+
+        // its next message creates a new state
+        sendPositions(manager, "4B1814", (long) AircraftStateManager.maxMessageAge + 20_000);
+        assertEquals(3, manager.states().size());
+    }
+}
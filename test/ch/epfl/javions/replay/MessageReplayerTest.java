@@ -0,0 +1,103 @@
+package ch.epfl.javions.replay;
+
+import ch.epfl.javions.adsb.CompactRawMessage;
+import ch.epfl.javions.adsb.RawMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class MessageReplayerTest {
+    private static final byte[] MESSAGE = HexFormat.of().parseHex("8D4B17E5F8210002004BB8B1F1AC");
+    private static final int COUNT = 10_000;
+    private static final long PERIOD_NS = 1_000_000;
+
+    // COUNT copies of a message, one every millisecond from the first one
+    private static Path messagesFile() throws IOException {
+        var file = Files.createTempFile("messages", ".bin");
+        try (var out = new DataOutputStream(Files.newOutputStream(file))) {
+            for (var i = 0; i < COUNT; i += 1) {
+                out.writeLong(100 + i * PERIOD_NS);
+                out.write(MESSAGE);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    void messageReplayerReturnsAllMessagesOfFile() throws IOException {
+        try (var replayer = new MessageReplayer(messagesFile(), MessageReplayer.MAX_SPEED)) {
+            RawMessage message;
+            var count = 0;
+            while ((message = replayer.nextMessage()) != null) {
+                assertEquals(100 + count * PERIOD_NS, message.timeStampNs());
+                assertEquals(17, message.downLinkFormat());
+                assertArrayEquals(MESSAGE, HexFormat.of().parseHex(message.bytes().toString()));
+                count += 1;
+            }
+            assertEquals(COUNT, count);
+            assertEquals(COUNT, replayer.messages());
+            assertNull(replayer.nextMessage());
+        }
+    }
+
+    @Test
+    void messageReplayerReturnsCompactMessagesOfFile() throws IOException {
+        try (var replayer = new MessageReplayer(messagesFile(), MessageReplayer.MAX_SPEED)) {
+            var expected = CompactRawMessage.of(100, MESSAGE, 0);
+            var message = replayer.nextCompactMessage();
+            assertEquals(expected, message);
+            assertEquals(0x4B17E5, message.icaoAddress());
+            assertEquals(new CompactRawMessage(100 + PERIOD_NS, expected.high(), expected.low()), replayer.nextCompactMessage());
+        }
+    }
+
+    @Test
+    void messageReplayerStartsAtGivenTimeStamp() throws IOException {
+        var file = messagesFile();
+        for (var start : new long[]{0, 100, 101, 100 + 1234 * PERIOD_NS, 100 + (COUNT - 1) * PERIOD_NS}) {
+            try (var replayer = new MessageReplayer(file, MessageReplayer.MAX_SPEED, start)) {
+                var first = replayer.nextMessage();
+                assertTrue(first.timeStampNs() >= start);
+                assertTrue(first.timeStampNs() - PERIOD_NS < start);
+            }
+        }
+        try (var replayer = new MessageReplayer(file, MessageReplayer.MAX_SPEED, Long.MAX_VALUE)) {
+            assertNull(replayer.nextMessage());
+        }
+    }
+
+    @Test
+    void messageReplayerPacesMessagesAtGivenSpeed() throws IOException {
+        var now = new long[]{5_000};
+        var sleeps = new ArrayList<Long>();
+        try (var replayer = new MessageReplayer(messagesFile(), 4, 0, () -> now[0], ns -> {
+            sleeps.add(ns);
+            now[0] += ns;
+        })) {
+            for (var i = 0; i < 100; i += 1) {
+                var message = replayer.nextMessage();
+                // at 4 times the real speed, the messages are due every quarter of a millisecond after the first one
+                assertEquals(5_000 + i * PERIOD_NS / 4, now[0]);
+                now[0] += 1000; // the time taken by the consumer isn't added to the delays
+            }
+            assertEquals(99, sleeps.size());
+            assertTrue(sleeps.stream().allMatch(ns -> ns == PERIOD_NS / 4 - 1000));
+            assertEquals(99 * PERIOD_NS / 4, replayer.elapsedNs());
+            assertEquals(100 * 1e9 / (99 * PERIOD_NS / 4), replayer.messagesPerSecond(), 1e-6);
+        }
+    }
+
+    @Test
+    void messageReplayerRejectsInvalidSpeed() {
+        assertThrows(IllegalArgumentException.class, () -> new MessageReplayer(messagesFile(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new MessageReplayer(messagesFile(), -1));
+    }
+}
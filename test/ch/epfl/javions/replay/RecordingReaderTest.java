@@ -0,0 +1,218 @@
+package ch.epfl.javions.replay;
+
+import ch.epfl.javions.ByteString;
+import ch.epfl.javions.adsb.RawMessage;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("unused")
+class RecordingReaderTest {
+    private static final int COUNT = 10_000;
+
+    // messages of a few aircraft, some of them at the same time stamp
+    private static List<RawMessage> randomMessages() {
+        var rng = TestRandomizer.newRandom();
+        var addresses = IntStream.range(0, 50).map(i -> rng.nextInt(1 << 24)).toArray();
+        var messages = new ArrayList<RawMessage>();
+        var timeStampNs = rng.nextLong(1L << 40);
+        for (var i = 0; i < COUNT; i += 1) {
+            var bytes = new byte[RawMessage.LENGTH];
+            rng.nextBytes(bytes);
+            bytes[0] = (byte) 0x8D;
+            var address = addresses[rng.nextInt(addresses.length)];
+            bytes[1] = (byte) (address >>> 16);
+            bytes[2] = (byte) (address >>> 8);
+            bytes[3] = (byte) address;
+            timeStampNs += rng.nextInt(10) == 0 ? 0 : rng.nextLong(1L << rng.nextInt(1, 34));
+            messages.add(new RawMessage(timeStampNs, new ByteString(bytes)));
+        }
+        return messages;
+    }
+
+    private static Path record(List<RawMessage> messages, BlockCompression compression, int blockSize) throws IOException {
+        var file = Files.createTempFile("recording", ".jvr");
+        try (var writer = new RecordingWriter(file, compression, blockSize)) {
+            for (var message : messages)
+                writer.write(message);
+        }
+        return file;
+    }
+
+    private static List<RawMessage> readAll(RecordingReader reader) throws IOException {
+        var messages = new ArrayList<RawMessage>();
+        for (var i = 0; i < reader.blockCount(); i += 1)
+            messages.addAll(reader.readBlock(i));
+        return messages;
+    }
+
+    @Test
+    void recordingReaderReadsMessagesWritten() throws IOException {
+        var messages = randomMessages();
+        for (var compression : BlockCompression.values()) {
+            for (var blockSize : new int[]{1, 100, 4096, COUNT}) {
+                try (var reader = new RecordingReader(record(messages, compression, blockSize))) {
+                    assertEquals((COUNT + blockSize - 1) / blockSize, reader.blockCount());
+                    assertEquals(COUNT, reader.messageCount());
+                    assertEquals(messages, readAll(reader));
+                }
+            }
+        }
+    }
+
+    @Test
+    void recordingIsSmallerThanFlatFile() throws IOException {
+        var messages = randomMessages();
+        var flat = (long) COUNT * MessageReplayer.RECORD_BYTES;
+        // the random bytes of the messages don't compress, but the time stamps and addresses do
+        assertTrue(Files.size(record(messages, BlockCompression.NONE, 4096)) < flat * 3 / 4);
+        assertTrue(Files.size(record(messages, BlockCompression.DEFLATE, 4096)) < flat * 3 / 4);
+    }
+
+    @Test
+    void recordingReaderFindsBlockOfTimeStamp() throws IOException {
+        var messages = randomMessages();
+        try (var reader = new RecordingReader(record(messages, BlockCompression.DEFLATE, 100))) {
+            assertEquals(0, reader.blockAt(Long.MIN_VALUE));
+            assertEquals(reader.blockCount() - 1, reader.blockAt(Long.MAX_VALUE));
+            for (var i = 0; i < COUNT; i += 37) {
+                var timeStampNs = messages.get(i).timeStampNs();
+                var block = reader.blockAt(timeStampNs);
+                // the first message at that time stamp is in the block or at the start of the next one
+                var first = messages.stream().filter(m -> m.timeStampNs() == timeStampNs).findFirst().orElseThrow();
+                var blockMessages = new ArrayList<>(reader.readBlock(block));
+                if (block + 1 < reader.blockCount())
+                    blockMessages.add(reader.readBlock(block + 1).get(0));
+                assertTrue(blockMessages.contains(first));
+                assertTrue(reader.firstTimeStampNs(block) <= timeStampNs || block == 0);
+            }
+        }
+    }
+
+    @Test
+    void recordingReaderDecodesBlocksInParallel() throws IOException {
+        var messages = randomMessages();
+        try (var reader = new RecordingReader(record(messages, BlockCompression.DEFLATE, 128))) {
+            var parallel = IntStream.range(0, reader.blockCount()).parallel()
+                    .mapToObj(i -> {
+                        try {
+                            return reader.readBlock(i);
+                        } catch (IOException e) {
+                            throw new AssertionError(e);
+                        }
+                    })
+                    .flatMap(List::stream)
+                    .toList();
+            assertEquals(messages, parallel);
+        }
+    }
+
+    @Test
+    void messageReplayerReplaysRecordingFromTimeStamp() throws IOException {
+        var messages = randomMessages();
+        var file = record(messages, BlockCompression.DEFLATE, 256);
+        for (var start : new int[]{0, 1, 255, 256, 5000, COUNT - 1}) {
+            var startTimeStampNs = messages.get(start).timeStampNs();
+            var expected = messages.stream().filter(m -> m.timeStampNs() >= startTimeStampNs).toList();
+            var replayed = new ArrayList<RawMessage>();
+            try (var replayer = new MessageReplayer(file, MessageReplayer.MAX_SPEED, startTimeStampNs)) {
+                RawMessage message;
+                while ((message = replayer.nextMessage()) != null)
+                    replayed.add(message);
+            }
+            assertEquals(expected, replayed);
+        }
+    }
+
+    @Test
+    void recordingWriterConvertsFlatFile() throws IOException {
+        var messages = randomMessages();
+        var flat = Files.createTempFile("messages", ".bin");
+        try (var out = new DataOutputStream(Files.newOutputStream(flat))) {
+            for (var message : messages) {
+                out.writeLong(message.timeStampNs());
+                out.write(HexFormat.of().parseHex(message.bytes().toString()));
+            }
+        }
+        var recording = Files.createTempFile("recording", ".jvr");
+        RecordingWriter.convert(flat, recording, BlockCompression.DEFLATE);
+        assertTrue(RecordingReader.isRecording(recording));
+        assertFalse(RecordingReader.isRecording(flat));
+        try (var reader = new RecordingReader(recording)) {
+            assertEquals(messages, readAll(reader));
+        }
+    }
+
+    @Test
+    void recordingWriterRejectsUnsortedMessages() throws IOException {
+        var messages = randomMessages();
+        try (var writer = new RecordingWriter(Files.createTempFile("recording", ".jvr"), BlockCompression.NONE)) {
+            writer.write(messages.get(1));
+            assertThrows(IllegalArgumentException.class, () -> writer.write(new RawMessage(0, messages.get(0).bytes())));
+        }
+    }
+
+    @Test
+    void recordingReaderRejectsTruncatedRecording() throws IOException {
+        var file = record(randomMessages(), BlockCompression.DEFLATE, 1000);
+        var bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> new RecordingReader(file));
+
+        // a corrupted block is only detected when it is read
+        bytes[100] ^= 0x55;
+        Files.write(file, bytes);
+        try (var reader = new RecordingReader(file)) {
+            assertThrows(IOException.class, () -> reader.readBlock(0));
+        }
+    }
+
+    @Test
+    void recordingReaderRejectsBlocksWithCorruptedHeader() throws IOException {
+        var messages = randomMessages();
+        for (var compression : BlockCompression.values()) {
+            var bytes = Files.readAllBytes(record(messages, compression, 100));
+            // the header of the first block follows the magic number
+            for (var i = Integer.BYTES; i < Integer.BYTES + RecordingWriter.BLOCK_HEADER_BYTES; i += 1) {
+                for (var bit = 0; bit < Byte.SIZE; bit += 1) {
+                    var corrupted = bytes.clone();
+                    corrupted[i] ^= (byte) (1 << bit);
+                    var file = Files.createTempFile("recording", ".jvr");
+                    Files.write(file, corrupted);
+                    try (var reader = new RecordingReader(file)) {
+                        assertThrows(IOException.class, () -> reader.readBlock(0));
+                        assertEquals(messages.subList(100, 200), reader.readBlock(1));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void recordingBlockOnlyThrowsIOExceptionOnCorruptedBlocks() {
+        // the variable-length encoding of -1 as the number of messages, then a time stamp
+        var negative = new byte[]{-1, -1, -1, -1, -1, -1, -1, -1, -1, 1, 0, 0, 0, 0, 0, 0, 0, 0};
+        assertThrows(IOException.class, () -> RecordingBlock.decode(negative));
+        var encoded = RecordingBlock.encode(randomMessages().subList(0, 10));
+        for (var i = 0; i < encoded.length; i += 1) {
+            var corrupted = encoded.clone();
+            corrupted[i] = -1;
+            try {
+                RecordingBlock.decode(corrupted);
+            } catch (IOException e) {
+                // the bytes of the messages can be changed without corrupting the block, the others can't
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ch.epfl.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+public final class TestSamples {
+    // Number of copies of samples.bin put in the long sample stream, enough to cross several batches of 2^16 power samples.
+    private final static int COPIES = 150;
+
+    private TestSamples() {
+    }
+
+    /**
+     * @return the content of the samples.bin resource (it contains exactly one message)
+     */
+    public static byte[] samples() {
+        try (InputStream s = Objects.requireNonNull(TestSamples.class.getResourceAsStream("/samples.bin"))) {
+            return s.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return copies of samples.bin separated by random noise of random length,
+     * so that the messages appear at every possible offset of the demodulation batches
+     */
+    public static byte[] longSamples() {
+        var rng = TestRandomizer.newRandom();
+        var samples = samples();
+        var bytes = new byte[COPIES * (samples.length + 2 * Short.BYTES * 1200)];
+        int length = 0;
+        for (int i = 0; i < COPIES; i += 1) {
+            System.arraycopy(samples, 0, bytes, length, samples.length);
+            length += samples.length;
+            int noise = rng.nextInt(2 * 1200) * Short.BYTES;
+            fillWithNoise(rng, bytes, length, noise);
+            length += noise;
+        }
+        return java.util.Arrays.copyOf(bytes, length);
+    }
+
+    private static void fillWithNoise(RandomGenerator rng, byte[] bytes, int from, int length) {
+        for (int i = from; i < from + length; i += 2) {
+            var sample = 2048 + rng.nextInt(-16, 16);
+            bytes[i] = (byte) (sample & 0xFF);
+            bytes[i + 1] = (byte) ((sample >> 8) & 0xFF);
+        }
+    }
+}